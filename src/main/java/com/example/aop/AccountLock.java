@@ -1,5 +1,7 @@
 package com.example.aop;
 
+import com.example.type.TransactionType;
+
 import java.lang.annotation.*;
 
 @Target(ElementType.METHOD) // 어노테이션을 붙일 수 있는 타겟
@@ -8,4 +10,7 @@ import java.lang.annotation.*;
 @Inherited // 상속가능
 public @interface AccountLock {
     long tryLockTime() default 5000L; //  해당시간동 안 기다린다
+
+    // lock-free 모드(account.balance.mode)에서 lock 을 생략할 수 있는지 판단할 때 사용
+    TransactionType transactionType() default TransactionType.USE;
 }
@@ -0,0 +1,15 @@
+package com.example.aop;
+
+import java.lang.annotation.*;
+
+/*
+* Idempotency-Key 헤더를 받는 요청 메서드
+* 같은 key 로 다시 들어온 요청은 처음 요청의 결과(응답 또는 실패)를 그대로 돌려준다
+* - 계좌 lock(@AccountLock)보다 먼저 확인하므로 중복 요청은 lock 도 DB 도 건드리지 않는다
+* - 헤더가 없으면 아무 동작도 하지 않는다
+* */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Idempotent {
+}
@@ -0,0 +1,15 @@
+package com.example.aop;
+
+import java.lang.annotation.*;
+
+/*
+* 복제 지연만큼 오래된 데이터를 읽어도 되는 조회 메서드
+* account.datasource.replica.enabled 가 true 면 이 메서드의 트랜잭션은 replica 로 보낸다
+* - 이미 트랜잭션 안에서 호출되면 그 트랜잭션의 DB(primary)를 그대로 쓴다 (자기가 쓴 데이터는 보인다)
+* - replica 를 쓰지 않으면 아무 동작도 하지 않는다
+* */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReplicaRead {
+}
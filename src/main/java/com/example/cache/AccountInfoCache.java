@@ -0,0 +1,102 @@
+package com.example.cache;
+
+import com.example.dto.AccountInfo;
+import com.example.dto.CacheStatsResponse;
+import com.example.event.AccountChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.codec.JsonJacksonCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+* GET /account?user_id 응답(List<AccountInfo>) 캐시
+* - 1차 : 서버 메모리 (최대 개수 + TTL 로 제한)
+* - 2차 : Redis (account.cache.account-info.redis-tier = true 일 때)
+*         다른 서버에서 무효화하면 topic 으로 알려서 각 서버의 1차 캐시도 지운다
+* - 계좌 생성/해지, 잔액 사용/취소가 커밋되면 해당 사용자 항목을 지운다 (AccountChangedEvent)
+*   REDIS / LEDGER 잔액 엔진은 DB 에 나중에 저장하므로 저장이 커밋된 뒤 직접 evict 한다
+*   그 사이 읽어간 값은 TTL 이 지나면 사라진다
+* */
+@Slf4j
+@Component
+public class AccountInfoCache implements MonitoredCache {
+    private static final String NAME = "accountInfo";
+    private static final String REDIS_KEY = "ACINFO";
+    private static final String INVALIDATION_TOPIC = "ACINFO:INVALIDATE";
+
+    private final Cache<Long, List<AccountInfo>> localCache;
+    private final long ttlSeconds;
+    private final RMapCache<Long, List<AccountInfo>> redisCache;
+    private final RTopic invalidationTopic;
+
+    public AccountInfoCache(
+            ObjectProvider<RedissonClient> redissonClientProvider,
+            @Value("${account.cache.account-info.max-size:10000}") long maxSize,
+            @Value("${account.cache.account-info.ttl-seconds:30}") long ttlSeconds,
+            @Value("${account.cache.account-info.redis-tier:false}") boolean redisTier) {
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.ttlSeconds = ttlSeconds;
+
+        if (redisTier) {
+            RedissonClient redissonClient = redissonClientProvider.getObject();
+            this.redisCache = redissonClient.getMapCache(REDIS_KEY, new JsonJacksonCodec());
+            this.invalidationTopic = redissonClient.getTopic(INVALIDATION_TOPIC);
+            invalidationTopic.addListener(Long.class,
+                    (channel, userId) -> localCache.invalidate(userId));
+        } else {
+            this.redisCache = null;
+            this.invalidationTopic = null;
+        }
+    }
+
+    public List<AccountInfo> get(Long userId, Supplier<List<AccountInfo>> loader) {
+        return localCache.get(userId, key -> {
+            if (redisCache == null) {
+                return loader.get();
+            }
+            List<AccountInfo> cached = redisCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            List<AccountInfo> loaded = loader.get();
+            redisCache.fastPut(key, loaded, ttlSeconds, TimeUnit.SECONDS);
+            return loaded;
+        });
+    }
+
+    public void evict(Long userId) {
+        localCache.invalidate(userId);
+        if (redisCache != null) {
+            redisCache.fastRemove(userId);
+            invalidationTopic.publish(userId);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        if (event.getUserId() != null) {
+            evict(event.getUserId());
+        }
+    }
+
+    @Override
+    public CacheStatsResponse getStats() {
+        return CacheStatsResponse.from(NAME, localCache);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+* 문자열용 Bloom filter
+* mightContain 이 false 면 한 번도 put 되지 않은 값 (확실), true 면 있을 수도 있는 값
+* 여러 스레드가 동시에 put / mightContain 해도 된다
+* */
+public class BloomFilter {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+
+    // expectedInsertions 개를 넣었을 때 오탐률이 falsePositiveRate 정도가 되도록 크기를 정한다
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount * 64;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitSize / n * Math.log(2)));
+    }
+
+    private BloomFilter(long[] words, int hashCount) {
+        this.words = new AtomicLongArray(words);
+        this.bitSize = (long) words.length * 64;
+        this.hashCount = hashCount;
+    }
+
+    public void put(String value) {
+        long h1 = hash(value);
+        long h2 = fmix64(h1 ^ FNV_PRIME) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitSize);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word;
+            do {
+                word = words.get(index);
+                if ((word & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(index, word, word | mask));
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = fmix64(h1 ^ FNV_PRIME) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(hashCount);
+        out.writeInt(words.length());
+        for (int i = 0; i < words.length(); i++) {
+            out.writeLong(words.get(i));
+        }
+    }
+
+    public static BloomFilter readFrom(DataInputStream in) throws IOException {
+        int hashCount = in.readInt();
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return new BloomFilter(words, hashCount);
+    }
+
+    // 같은 설정으로 만든 filter 인지 (저장된 파일을 그대로 써도 되는지) 확인
+    public boolean isCompatible(BloomFilter other) {
+        return bitSize == other.bitSize && hashCount == other.hashCount;
+    }
+
+    // other 에 들어간 값을 모두 이 filter 에도 넣는다 (같은 설정끼리만)
+    public void mergeFrom(BloomFilter other) {
+        for (int i = 0; i < words.length(); i++) {
+            long bits = other.words.get(i);
+            words.accumulateAndGet(i, bits, (a, b) -> a | b);
+        }
+    }
+
+    private static long hash(String value) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return fmix64(h);
+    }
+
+    // MurmurHash3 마무리 단계 - 비트를 고르게 섞는다
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
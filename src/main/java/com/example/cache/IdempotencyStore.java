@@ -0,0 +1,287 @@
+package com.example.cache;
+
+import com.example.dto.CacheStatsResponse;
+import com.example.exception.AccountException;
+import com.example.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RedissonClient;
+import org.redisson.codec.JsonJacksonCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+* Idempotency-Key 별 처리 결과 저장소 (@Idempotent)
+* - 1차 : 서버 메모리 (최대 개수 + TTL 로 제한), 처리 중인 요청도 future 로 들고 있어서
+*         동시에 들어온 같은 key 요청은 한 번만 실행하고 그 결과를 같이 받는다
+* - 2차 : Redis (account.idempotency.redis-tier = true 일 때)
+*         처리 전에 "처리 중" 표시를 먼저 넣어서 다른 서버로 들어온 같은 key 는 결과가 나올 때까지 기다린다
+*         처리 중 표시는 in-flight-lease 동안 유지되고 처리하는 동안 lease 의 1/3 마다 연장한다
+*         (처리가 길어져도 표시가 먼저 사라져서 다른 서버가 같은 요청을 한 번 더 실행하지 않도록)
+*         서버가 죽어서 연장이 멈추면 lease 가 지난 뒤 재시도가 처음부터 실행된다
+* - 성공 응답과 다시 보내도 결과가 같은 검증 실패(잔액 부족 등, FINAL_FAILURES)만 저장해서 그대로 돌려준다
+*   lock 획득 실패, 내부 오류처럼 다시 보내면 성공할 수 있는 실패는 저장하지 않는다
+* - 같은 key 에 다른 요청 내용(fingerprint)이 오면 INVALID_REQUEST
+* */
+@Slf4j
+@Component
+public class IdempotencyStore implements MonitoredCache {
+    private static final String NAME = "idempotency";
+    private static final String REDIS_KEY = "IDEMPOTENCY";
+    private static final long POLL_MILLIS = 20;
+    // 다시 보내도 같은 결과가 나오는 검증 실패 (나머지 에러 코드는 저장하지 않고 재시도하면 다시 실행)
+    private static final Set<ErrorCode> FINAL_FAILURES = EnumSet.of(
+            ErrorCode.ACCOUNT_NOT_FOUND,
+            ErrorCode.ACCOUNT_ALREADY_UNREGISTERED,
+            ErrorCode.AMOUNT_EXCEED_BALANCE,
+            ErrorCode.CANCEL_MUST_FULLY,
+            ErrorCode.TRANSACTION_NOT_FOUND,
+            ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH,
+            ErrorCode.TOO_OLD_ORDER_TO_CANCEL,
+            ErrorCode.USER_NOT_FOUND,
+            ErrorCode.USER_ACCOUNT_UN_MATCH);
+
+    private final Cache<String, CompletableFuture<Entry>> localCache;
+    private final long ttlSeconds;
+    private final long inFlightTimeoutMillis;
+    private final long inFlightLeaseMillis;
+    private final RMapCache<String, Entry> redisCache;
+    private final ScheduledExecutorService leaseRenewer;
+
+    public IdempotencyStore(
+            ObjectProvider<RedissonClient> redissonClientProvider,
+            ObjectMapper objectMapper,
+            @Value("${account.idempotency.max-size:100000}") long maxSize,
+            @Value("${account.idempotency.ttl-seconds:86400}") long ttlSeconds,
+            @Value("${account.idempotency.in-flight-timeout-millis:10000}") long inFlightTimeoutMillis,
+            @Value("${account.idempotency.in-flight-lease-millis:60000}") long inFlightLeaseMillis,
+            @Value("${account.idempotency.redis-tier:false}") boolean redisTier) {
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.ttlSeconds = ttlSeconds;
+        this.inFlightTimeoutMillis = inFlightTimeoutMillis;
+        this.inFlightLeaseMillis = inFlightLeaseMillis;
+
+        if (redisTier) {
+            // 응답의 LocalDateTime 을 직렬화할 수 있도록 Spring 의 ObjectMapper 설정(JavaTimeModule)을 그대로 쓴다
+            this.redisCache = redissonClientProvider.getObject()
+                    .getMapCache(REDIS_KEY, new JsonJacksonCodec(objectMapper));
+            this.leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "idempotency-lease");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.redisCache = null;
+            this.leaseRenewer = null;
+        }
+    }
+
+    /*
+    * key 로 처음 들어온 요청만 action 을 실행하고, 이후 같은 key 는 저장된 결과를 돌려준다
+    * fingerprint : 요청 내용 - 같은 key 를 다른 요청에 재사용했는지 확인
+    * */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, String fingerprint, Supplier<T> action) {
+        CompletableFuture<Entry> owned = new CompletableFuture<>();
+        CompletableFuture<Entry> future = localCache.get(key, k -> owned);
+        if (future != owned) {
+            // 이 서버에서 이미 처리했거나 처리 중
+            return (T) replay(await(future), fingerprint);
+        }
+
+        Entry entry;
+        try {
+            entry = claimOrWait(key, fingerprint);
+            if (entry == null) {
+                entry = run(key, fingerprint, action);
+            }
+        } catch (RuntimeException e) {
+            // 저장하지 않는 실패 - 기다리던 요청에도 같은 실패를 주고, 다음 재시도는 처음부터 실행
+            localCache.asMap().remove(key, owned);
+            owned.completeExceptionally(e);
+            throw e;
+        }
+        owned.complete(entry);
+        return (T) replay(entry, fingerprint);
+    }
+
+    private Entry run(String key, String fingerprint, Supplier<?> action) {
+        Lease lease = redisCache == null ? null : new Lease(key, Entry.inFlight(fingerprint));
+        Entry entry;
+        try {
+            entry = Entry.completed(fingerprint, action.get());
+        } catch (AccountException e) {
+            if (!FINAL_FAILURES.contains(e.getErrorCode())) {
+                finish(lease, null);
+                throw e;
+            }
+            entry = Entry.failed(fingerprint, e.getErrorCode());
+        } catch (RuntimeException e) {
+            finish(lease, null);
+            throw e;
+        }
+        finish(lease, entry);
+        return entry;
+    }
+
+    private static void finish(Lease lease, Entry entry) {
+        if (lease != null) {
+            lease.finish(entry);
+        }
+    }
+
+    // Redis 에 처리 중 표시를 넣는다 - 처음이면 null (이 서버가 실행), 다른 서버가 먼저 받았으면 그 결과
+    private Entry claimOrWait(String key, String fingerprint) {
+        if (redisCache == null) {
+            return null;
+        }
+        long deadline = System.currentTimeMillis() + inFlightTimeoutMillis;
+        Entry stored = redisCache.putIfAbsent(key, Entry.inFlight(fingerprint),
+                inFlightLeaseMillis, TimeUnit.MILLISECONDS);
+        while (stored != null && stored.isInFlight()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+            sleep();
+            stored = redisCache.get(key);
+            if (stored == null) {
+                // 먼저 받은 서버가 저장하지 않는 실패로 끝났다 - 이 서버가 다시 시도
+                stored = redisCache.putIfAbsent(key, Entry.inFlight(fingerprint),
+                        inFlightLeaseMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return stored;
+    }
+
+    private Entry await(CompletableFuture<Entry> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Object replay(Entry entry, String fingerprint) {
+        if (!Objects.equals(entry.getFingerprint(), fingerprint)) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        if (entry.getErrorCode() != null) {
+            throw new AccountException(entry.getErrorCode());
+        }
+        return entry.getResponse();
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    @Override
+    public CacheStatsResponse getStats() {
+        return CacheStatsResponse.from(NAME, localCache);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (leaseRenewer != null) {
+            leaseRenewer.shutdownNow();
+        }
+    }
+
+    /*
+    * 이 서버가 처리 중인 key 의 Redis 처리 중 표시 - 끝날 때까지 주기적으로 연장
+    * 연장과 결과 저장이 겹쳐서 저장된 결과를 처리 중 표시로 덮어쓰지 않도록 같은 lock 안에서 한다
+    * */
+    private final class Lease implements Runnable {
+        private final String key;
+        private final Entry marker;
+        private final ScheduledFuture<?> renewal;
+        private boolean finished;
+
+        private Lease(String key, Entry marker) {
+            this.key = key;
+            this.marker = marker;
+            long period = Math.max(1, inFlightLeaseMillis / 3);
+            this.renewal = leaseRenewer.scheduleAtFixedRate(this, period, period, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public synchronized void run() {
+            if (finished) {
+                return;
+            }
+            try {
+                redisCache.fastPut(key, marker, inFlightLeaseMillis, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                // 다음 주기에 다시 연장 (예외로 끝나면 더 이상 실행되지 않는다)
+                log.warn("Idempotency lease renewal failed : {}", key, e);
+            }
+        }
+
+        // entry 가 null 이면 저장하지 않는 실패 - 표시를 지워서 재시도가 바로 실행되게 한다
+        private synchronized void finish(Entry entry) {
+            finished = true;
+            renewal.cancel(false);
+            if (entry == null) {
+                redisCache.fastRemove(key);
+            } else {
+                redisCache.fastPut(key, entry, ttlSeconds, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    // Redis 에는 JSON 으로 저장 (record 는 final 이라 codec 이 타입 정보를 붙이지 않으므로 class 로 둔다)
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Entry {
+        private String fingerprint;
+        private boolean inFlight;
+        private Object response;
+        private ErrorCode errorCode;
+
+        static Entry inFlight(String fingerprint) {
+            return new Entry(fingerprint, true, null, null);
+        }
+
+        static Entry completed(String fingerprint, Object response) {
+            return new Entry(fingerprint, false, response, null);
+        }
+
+        static Entry failed(String fingerprint, ErrorCode errorCode) {
+            return new Entry(fingerprint, false, null, errorCode);
+        }
+    }
+}
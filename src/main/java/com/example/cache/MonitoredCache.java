@@ -0,0 +1,13 @@
+package com.example.cache;
+
+import com.example.dto.CacheStatsResponse;
+
+// GET /cache/stats 에 통계가 노출되는 캐시
+public interface MonitoredCache {
+    CacheStatsResponse getStats();
+
+    // 통계를 집계하지 않는 동안에는 GET /cache/stats 에서 뺀다
+    default boolean isStatsEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+* 없는 거래 id / 계좌번호 조회를 DB 까지 보내지 않기 위한 Bloom filter
+* - 발급한 id 는 발급 시점에 넣고, 기존 데이터는 NegativeLookupGuardLoader 가 시작 시 적재
+* - 적재가 끝나기 전(ready 전)에는 모든 값을 "있을 수도 있음" 으로 판단 -> 항상 DB 조회
+* - false 일 때만 확실히 없는 값이므로 바로 NOT_FOUND 처리해도 된다
+*
+* 다른 서버에서 발급한 id 는 알 수 없으므로 서버가 여러 대면 꺼야 한다 (account.lookup-guard.enabled, 기본 꺼짐)
+* */
+@Component
+public class NegativeLookupGuard {
+    private final boolean enabled;
+    private final long expectedTransactions;
+    private final long expectedAccounts;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter transactionIds;
+    private volatile BloomFilter accountNumbers;
+    private volatile boolean ready;
+
+    // 적재 중 filter 교체(restore)와 add 가 겹치지 않도록 - ready 후에는 교체하지 않으므로 lock 없이 넣는다
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    public NegativeLookupGuard(
+            @Value("${account.lookup-guard.enabled:false}") boolean enabled,
+            @Value("${account.lookup-guard.expected-transactions:10000000}") long expectedTransactions,
+            @Value("${account.lookup-guard.expected-accounts:1000000}") long expectedAccounts,
+            @Value("${account.lookup-guard.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.enabled = enabled;
+        this.expectedTransactions = expectedTransactions;
+        this.expectedAccounts = expectedAccounts;
+        this.falsePositiveRate = falsePositiveRate;
+        this.transactionIds = new BloomFilter(expectedTransactions, falsePositiveRate);
+        this.accountNumbers = new BloomFilter(expectedAccounts, falsePositiveRate);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean mightContainTransaction(String transactionId) {
+        return !ready || transactionIds.mightContain(transactionId);
+    }
+
+    public boolean mightContainAccount(String accountNumber) {
+        return !ready || accountNumbers.mightContain(accountNumber);
+    }
+
+    public void addTransaction(String transactionId) {
+        if (ready) {
+            transactionIds.put(transactionId);
+            return;
+        }
+        Lock lock = swapLock.readLock();
+        lock.lock();
+        try {
+            transactionIds.put(transactionId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void addAccount(String accountNumber) {
+        if (ready) {
+            accountNumbers.put(accountNumber);
+            return;
+        }
+        Lock lock = swapLock.readLock();
+        lock.lock();
+        try {
+            accountNumbers.put(accountNumber);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 빈 filter 를 만든다 (저장된 파일과 설정이 같은지 비교용)
+    BloomFilter newTransactionFilter() {
+        return new BloomFilter(expectedTransactions, falsePositiveRate);
+    }
+
+    BloomFilter newAccountFilter() {
+        return new BloomFilter(expectedAccounts, falsePositiveRate);
+    }
+
+    BloomFilter getTransactionIds() {
+        return transactionIds;
+    }
+
+    BloomFilter getAccountNumbers() {
+        return accountNumbers;
+    }
+
+    // 저장된 파일에서 읽은 filter 로 교체 (ready 전에만 호출)
+    // 시작 후 그 사이 발급되어 현재 filter 에 들어간 값도 옮겨 담는다
+    // (옮겨 담는 동안 add 를 막아서 이전 filter 에만 들어가고 사라지는 값이 없게 한다)
+    void restore(BloomFilter transactionIds, BloomFilter accountNumbers) {
+        Lock lock = swapLock.writeLock();
+        lock.lock();
+        try {
+            transactionIds.mergeFrom(this.transactionIds);
+            accountNumbers.mergeFrom(this.accountNumbers);
+            this.transactionIds = transactionIds;
+            this.accountNumbers = accountNumbers;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void markReady() {
+        this.ready = enabled;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.cache;
+
+import com.example.repository.AccountRepository;
+import com.example.repository.ArchivedTransactionRepository;
+import com.example.repository.LookupKeyView;
+import com.example.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/*
+* 시작 시 NegativeLookupGuard 적재
+* - snapshot-path 파일이 있으면 읽고, 파일에 기록된 마지막 id 이후의 데이터만 DB 에서 추가
+* - 없으면 전체 거래 id(archive 포함) / 계좌번호를 id 순서로 나눠서 읽는다
+* - 종료 시 snapshot-path 가 설정되어 있으면 현재 filter 와 마지막 id 를 파일로 저장
+* 적재는 별도 스레드에서 하고, 끝나기 전까지 guard 는 모든 조회를 DB 로 보낸다
+* */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.lookup-guard.enabled", havingValue = "true", matchIfMissing = true)
+public class NegativeLookupGuardLoader {
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int CHUNK_SIZE = 5000;
+
+    private final NegativeLookupGuard negativeLookupGuard;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final String snapshotPath;
+
+    public NegativeLookupGuardLoader(
+            NegativeLookupGuard negativeLookupGuard,
+            TransactionRepository transactionRepository,
+            AccountRepository accountRepository,
+            ArchivedTransactionRepository archivedTransactionRepository,
+            @Value("${account.lookup-guard.snapshot-path:}") String snapshotPath) {
+        this.negativeLookupGuard = negativeLookupGuard;
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.snapshotPath = snapshotPath;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        CompletableFuture.runAsync(() -> {
+            try {
+                long[] marks = restoreSnapshot();
+                long transactions = loadAfter(marks[0],
+                        transactionRepository::findLookupKeysAfter, negativeLookupGuard::addTransaction)
+                        + loadAfter(marks[2],
+                        archivedTransactionRepository::findLookupKeysAfter, negativeLookupGuard::addTransaction);
+                long accounts = loadAfter(marks[1],
+                        accountRepository::findLookupKeysAfter, negativeLookupGuard::addAccount);
+                negativeLookupGuard.markReady();
+                log.info("Lookup guard ready : {} transactions, {} accounts loaded from DB",
+                        transactions, accounts);
+            } catch (Exception e) {
+                // 준비되지 않은 guard 는 모든 조회를 통과시키므로 기능에는 문제 없다
+                log.error("Lookup guard load failed, guard stays disabled", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void saveSnapshot() {
+        if (snapshotPath.isBlank()) {
+            return;
+        }
+        try {
+            // 마지막 id 를 먼저 구해야 filter 에 빠진 데이터가 생기지 않는다
+            long transactionMark = transactionRepository.findMaxId();
+            long accountMark = accountRepository.findMaxId();
+            long archiveMark = archivedTransactionRepository.findMaxId();
+
+            Path path = Path.of(snapshotPath);
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "lookup-guard", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(transactionMark);
+                out.writeLong(accountMark);
+                out.writeLong(archiveMark);
+                negativeLookupGuard.getTransactionIds().writeTo(out);
+                negativeLookupGuard.getAccountNumbers().writeTo(out);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Lookup guard snapshot saved : {}", path);
+        } catch (Exception e) {
+            log.error("Lookup guard snapshot save failed", e);
+        }
+    }
+
+    // 파일을 읽었으면 {거래 마지막 id, 계좌 마지막 id, archive 마지막 id}, 아니면 {0, 0, 0}
+    private long[] restoreSnapshot() {
+        if (snapshotPath.isBlank() || !Files.exists(Path.of(snapshotPath))) {
+            return new long[]{0L, 0L, 0L};
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(Path.of(snapshotPath))))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                return new long[]{0L, 0L, 0L};
+            }
+            long transactionMark = in.readLong();
+            long accountMark = in.readLong();
+            long archiveMark = in.readLong();
+            BloomFilter transactionIds = BloomFilter.readFrom(in);
+            BloomFilter accountNumbers = BloomFilter.readFrom(in);
+
+            if (!transactionIds.isCompatible(negativeLookupGuard.newTransactionFilter())
+                    || !accountNumbers.isCompatible(negativeLookupGuard.newAccountFilter())) {
+                log.info("Lookup guard snapshot ignored : filter settings changed");
+                return new long[]{0L, 0L, 0L};
+            }
+            negativeLookupGuard.restore(transactionIds, accountNumbers);
+            return new long[]{transactionMark, accountMark, archiveMark};
+        } catch (IOException e) {
+            log.error("Lookup guard snapshot read failed, rebuilding from DB", e);
+            return new long[]{0L, 0L, 0L};
+        }
+    }
+
+    private long loadAfter(long afterId,
+                           BiFunction<Long, Pageable, List<LookupKeyView>> finder,
+                           Consumer<String> adder) {
+        long loaded = 0;
+        List<LookupKeyView> chunk;
+        do {
+            chunk = finder.apply(afterId, PageRequest.of(0, CHUNK_SIZE));
+            for (LookupKeyView view : chunk) {
+                adder.accept(view.getLookupKey());
+                afterId = view.getId();
+            }
+            loaded += chunk.size();
+        } while (chunk.size() == CHUNK_SIZE);
+        return loaded;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.cache;
+
+import com.example.dto.CacheStatsResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/*
+* Hibernate 2차 캐시 region 통계 (hibernate.generate_statistics 가 켜져 있어야 집계된다)
+* 기본은 꺼져 있다 (account.cache.hibernate-statistics) - 꺼져 있으면 GET /cache/stats 에 나오지 않는다
+* region 별로 빈을 만든다 (SecondLevelCacheConfiguration)
+* */
+public class SecondLevelCacheRegion implements MonitoredCache {
+    private final String regionName;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SecondLevelCacheRegion(String regionName, EntityManagerFactory entityManagerFactory) {
+        this.regionName = regionName;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public CacheStatsResponse getStats() {
+        CacheRegionStatistics stats = statistics().getDomainDataRegionStatistics(regionName);
+        long requests = stats.getHitCount() + stats.getMissCount();
+        return CacheStatsResponse.builder()
+                .name("hibernate:" + regionName)
+                // JCache 는 개수를 알려주지 않으면 음수
+                .size(Math.max(stats.getElementCountInMemory(), 0))
+                .hitCount(stats.getHitCount())
+                .missCount(stats.getMissCount())
+                .hitRate(requests == 0 ? 1.0 : (double) stats.getHitCount() / requests)
+                .build();
+    }
+
+    @Override
+    public boolean isStatsEnabled() {
+        return statistics().isStatisticsEnabled();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.cache;
+
+import com.example.dto.CacheStatsResponse;
+import com.example.dto.TransactionDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/*
+* GET /transaction/{transactionId} 조회 캐시
+* 거래 내역은 한 번 저장되면 바뀌지 않으므로 무효화 없이 LRU 로만 밀어낸다
+* - 저장할 때(커밋 후) 넣고, 조회 시 없으면 DB 에서 읽어서 넣는다
+* - max-memory-mb 가 있으면 대략적인 메모리 크기 기준, 없으면 max-entries 개수 기준으로 제한
+* */
+@Component
+public class TransactionDtoCache implements MonitoredCache {
+    private static final String NAME = "transaction";
+    // 객체 헤더, 필드, enum/LocalDateTime 참조 등 문자열을 제외한 대략적인 크기
+    private static final int ENTRY_OVERHEAD_BYTES = 200;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private final Cache<String, TransactionDto> cache;
+
+    public TransactionDtoCache(
+            @Value("${account.cache.transaction.max-entries:100000}") long maxEntries,
+            @Value("${account.cache.transaction.max-memory-mb:0}") long maxMemoryMb) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (maxMemoryMb > 0) {
+            builder.maximumWeight(maxMemoryMb * 1024 * 1024)
+                    .<String, TransactionDto>weigher((key, value) -> estimateBytes(key, value));
+        } else {
+            builder.maximumSize(maxEntries);
+        }
+        this.cache = builder.build();
+    }
+
+    public TransactionDto get(String transactionId,
+                              Function<String, TransactionDto> loader) {
+        return cache.get(transactionId, loader);
+    }
+
+    // 캐시에 없는 id 만 모아서 loader 로 한 번에 읽는다 (loader 결과에 없는 id 는 리턴되지 않고 캐시되지도 않는다)
+    public Map<String, TransactionDto> getAll(Collection<String> transactionIds,
+                                              Function<Set<? extends String>, Map<String, TransactionDto>> loader) {
+        return cache.getAll(transactionIds, loader);
+    }
+
+    // DB 트랜잭션 안이면 커밋된 뒤에 넣는다 (롤백된 거래가 조회되지 않도록)
+    public void put(TransactionDto transactionDto) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            cache.put(transactionDto.getTransactionId(), transactionDto);
+                        }
+                    });
+        } else {
+            cache.put(transactionDto.getTransactionId(), transactionDto);
+        }
+    }
+
+    @Override
+    public CacheStatsResponse getStats() {
+        return CacheStatsResponse.from(NAME, cache);
+    }
+
+    private static int estimateBytes(String transactionId, TransactionDto transactionDto) {
+        // 숫자/영문 문자열은 글자당 1 byte (compact strings)
+        int bytes = ENTRY_OVERHEAD_BYTES + STRING_OVERHEAD_BYTES + transactionId.length();
+        if (transactionDto.getAccountNumber() != null) {
+            bytes += STRING_OVERHEAD_BYTES + transactionDto.getAccountNumber().length();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/*
+* 읽기 전용 replica 를 함께 쓰는 설정 (account.datasource.replica.enabled=true)
+* - primary : spring.datasource.* (쓰기, 일반 트랜잭션)
+* - replica : account.datasource.replica.* (@ReplicaRead 메서드만)
+* 설정하지 않으면 Spring Boot 기본 DataSource 하나만 쓴다
+* 로컬(H2)은 replica 를 별도 in-memory DB 로 두고 시작할 때 primary 를 복사한다 (ReplicaSeeder)
+* */
+@Configuration
+@ConditionalOnProperty(name = "account.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfiguration {
+
+    @Bean
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${account.datasource.replica.url}") String url,
+            @Value("${account.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${account.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${account.datasource.replica.maximum-pool-size:10}") int maximumPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    // JPA, data.sql 초기화 등은 모두 이 DataSource 를 쓴다
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "account.datasource.replica.seed-from-primary", havingValue = "true")
+    public ReplicaSeeder replicaSeeder(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Value("${account.datasource.replica.url}") String url,
+            @Value("${account.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${account.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        return new ReplicaSeeder(primaryDataSource, url, username, password);
+    }
+
+    @Bean
+    public ReplicaReadAspect replicaReadAspect() {
+        return new ReplicaReadAspect();
+    }
+}
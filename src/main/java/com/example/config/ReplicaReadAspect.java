@@ -0,0 +1,33 @@
+package com.example.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+* @ReplicaRead 메서드를 replica 로 보낸다
+* 트랜잭션(@Transactional)보다 바깥에서 실행되어야 하므로 가장 먼저 적용
+* */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ReplicaReadAspect {
+
+    @Around("@annotation(com.example.aop.ReplicaRead)")
+    public Object aroundReplicaRead(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+        // 쓰기 트랜잭션 안에서 호출되었거나 이미 replica 로 가는 중이면 그대로
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                || ReplicaRoutingDataSource.isReplicaRead()) {
+            return proceedingJoinPoint.proceed();
+        }
+
+        ReplicaRoutingDataSource.setReplicaRead(true);
+        try {
+            return proceedingJoinPoint.proceed();
+        } finally {
+            ReplicaRoutingDataSource.setReplicaRead(false);
+        }
+    }
+}
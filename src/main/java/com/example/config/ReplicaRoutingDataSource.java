@@ -0,0 +1,44 @@
+package com.example.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/*
+* 커넥션을 얻는 시점에 primary / replica 중 하나를 고른다
+* - @ReplicaRead 메서드 안이면 replica
+* - 나머지는 전부 primary (readOnly 트랜잭션이라도 - 리포지토리 조회는 기본이 readOnly 라서
+*   쓰기 직전에 읽는 계좌까지 복제 지연된 값을 읽게 된다)
+* 트랜잭션이 시작된 뒤에 고를 수 있도록 LazyConnectionDataSourceProxy 로 감싸서 쓴다
+* */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return isReplicaRead() ? Target.REPLICA : Target.PRIMARY;
+    }
+
+    static boolean isReplicaRead() {
+        return Boolean.TRUE.equals(REPLICA_READ.get());
+    }
+
+    static void setReplicaRead(boolean replicaRead) {
+        if (replicaRead) {
+            REPLICA_READ.set(Boolean.TRUE);
+        } else {
+            REPLICA_READ.remove();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/*
+* 로컬 replica 용 별도 H2 in-memory DB 를 primary 의 복사본으로 채운다
+* (account.datasource.replica.seed-from-primary=true, application-replica.yml)
+* - 모든 빈이 만들어진 뒤(스키마 생성 + data.sql 이후), 요청을 받기 전에 한 번 H2 SCRIPT 결과를 그대로 실행
+* - 복제는 하지 않으므로 그 뒤에 primary 에 쓴 내용은 replica 에 보이지 않는다
+*   (@ReplicaRead 조회가 실제로 replica 로 가는지 바로 드러난다)
+* replica 커넥션 풀은 읽기 전용이므로 DriverManager 로 따로 연결해서 쓴다
+* */
+@Slf4j
+public class ReplicaSeeder implements SmartInitializingSingleton {
+    private final DataSource primaryDataSource;
+    private final String replicaUrl;
+    private final String username;
+    private final String password;
+
+    public ReplicaSeeder(DataSource primaryDataSource, String replicaUrl, String username, String password) {
+        this.primaryDataSource = primaryDataSource;
+        this.replicaUrl = replicaUrl;
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try (Connection primary = primaryDataSource.getConnection();
+             Statement script = primary.createStatement();
+             ResultSet lines = script.executeQuery("SCRIPT");
+             Connection replica = DriverManager.getConnection(replicaUrl, username, password);
+             Statement statement = replica.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            int count = 0;
+            while (lines.next()) {
+                statement.execute(lines.getString(1));
+                count++;
+            }
+            log.info("Replica seeded from primary : {} statements", count);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Replica seed from primary failed : " + replicaUrl, e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling // @Scheduled 가 붙은 주기 작업(대사, 정리 작업 등)을 실행
+public class SchedulingConfiguration {
+}
@@ -0,0 +1,23 @@
+package com.example.config;
+
+import com.example.cache.SecondLevelCacheRegion;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+* Hibernate 2차 캐시 region 을 GET /cache/stats 에 노출
+* region 이름은 엔티티의 @Cache / @NaturalIdCache, application.conf 와 같아야 한다
+* */
+@Configuration
+public class SecondLevelCacheConfiguration {
+    @Bean
+    public SecondLevelCacheRegion accountUserCacheRegion(EntityManagerFactory entityManagerFactory) {
+        return new SecondLevelCacheRegion("account-user", entityManagerFactory);
+    }
+
+    @Bean
+    public SecondLevelCacheRegion accountNumberCacheRegion(EntityManagerFactory entityManagerFactory) {
+        return new SecondLevelCacheRegion("account-number", entityManagerFactory);
+    }
+}
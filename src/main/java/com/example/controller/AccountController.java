@@ -1,7 +1,6 @@
 package com.example.controller;
 
-import com.example.domain.Account;
-import com.example.domain.AccountUser;
+import com.example.cache.AccountInfoCache;
 import com.example.dto.AccountDto;
 import com.example.dto.AccountInfo;
 import com.example.dto.CreateAccount;
@@ -15,7 +14,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 
 /*
@@ -29,6 +27,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AccountController {
     private final AccountService accountService;
+    private final AccountInfoCache accountInfoCache;
 
     @PostMapping("/account")
     private CreateAccount.Response createAccount(
@@ -69,16 +68,14 @@ public class AccountController {
 
             @RequestParam("user_id") Long userId
     ){
-      return accountService.getAccountByUserId(userId).stream()
-              .map(AccountDto -> AccountInfo.builder()
-                      .accountNumber(AccountDto.getAccountNumber())
-                      .balance(AccountDto.getBalance())
-                      .build())
-              .collect(Collectors.toList());
+      // 자주 조회되므로 캐시, 계좌/잔액이 바뀌면 해당 사용자 항목이 지워진다
+      return accountInfoCache.get(userId, () ->
+              accountService.getAccountInfoByUserId(userId));
     }
 
+    // 엔티티를 그대로 내보내지 않는다 (연관관계 LAZY, 내부 필드 노출 방지)
     @GetMapping("/account/{id}")
-    private Account getAccount(@PathVariable(name = "id") Long id){
+    private AccountDto getAccount(@PathVariable(name = "id") Long id){
         return accountService.getAccount(id);
     }
 
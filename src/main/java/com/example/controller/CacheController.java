@@ -0,0 +1,26 @@
+package com.example.controller;
+
+import com.example.cache.MonitoredCache;
+import com.example.dto.CacheStatsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/*
+* 캐시 적중률 등 통계 확인
+* */
+@RestController
+@RequiredArgsConstructor
+public class CacheController {
+    private final List<MonitoredCache> caches;
+
+    @GetMapping("/cache/stats")
+    public List<CacheStatsResponse> getCacheStats(){
+        return caches.stream()
+                .filter(MonitoredCache::isStatsEnabled)
+                .map(MonitoredCache::getStats)
+                .toList();
+    }
+}
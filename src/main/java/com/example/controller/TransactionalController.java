@@ -1,21 +1,43 @@
 package com.example.controller;
 
 import com.example.aop.AccountLock;
+import com.example.aop.Idempotent;
 import com.example.dto.CancelBalance;
 import com.example.dto.QueryTransactionResponse;
+import com.example.dto.QueryTransactions;
+import com.example.dto.TransactionHistory;
 import com.example.dto.UseBalance;
+import com.example.dto.UseBalanceBatch;
 import com.example.exception.AccountException;
+import com.example.service.BalanceEngine;
+import com.example.service.BulkBalanceService;
+import com.example.service.FailureJournal;
+import com.example.service.TransactionExportService;
 import com.example.service.TransactionService;
+import com.example.type.ErrorCode;
+import com.example.type.ExportFormat;
+import com.example.type.TransactionType;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Optional;
 
 /*
 * 잔액 관련 컨트롤러
-* 1. 잔액 사용
+* 1. 잔액 사용 (여러 건 한 번에)
 * 2. 잔액 사용 취소
-* 3. 거래 확인
+* 3. 거래 확인 (여러 건 한 번에)
+* 4. 계좌별 거래 내역
+* 5. 계좌별 거래 내역 내보내기 (NDJSON / CSV)
 * */
 
 @RestController
@@ -23,19 +45,31 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class TransactionalController {
     private final TransactionService transactionService;
+    private final FailureJournal failureJournal;
+    private final TransactionExportService transactionExportService;
+    private final BulkBalanceService bulkBalanceService;
+    // account.balance.mode 가 LOCKED 가 아닐 때만 해당 모드의 엔진이 등록된다
+    private final Optional<BalanceEngine> balanceEngine;
+
+    // Idempotency-Key 헤더가 있으면 같은 key 의 재요청에는 처음 결과를 그대로 돌려준다 (IdempotencyAspect)
     @PostMapping("/transaction/use")
-    @AccountLock
+    @Idempotent
+    @AccountLock(transactionType = TransactionType.USE)
     public UseBalance.Response useBalance(
             @RequestBody @Valid UseBalance.Request request
-    ) throws InterruptedException {
+    ) {
         //UseBalance 에서 예외 발생할 수 있음
 
-
+        if(balanceEngine.isPresent()){
+            return UseBalance.Response.from(
+                    balanceEngine.get().useBalance(request.getUserId(),
+                            request.getAccountNumber(),
+                            request.getAmount())
+            );
+        }
 
         try {
 
-            Thread.sleep(2000L);
-
             return UseBalance.Response.from(
                     transactionService.useBalance(request.getUserId(),
                             request.getAccountNumber(),
@@ -46,7 +80,8 @@ public class TransactionalController {
         catch (AccountException e){
 
             log.error("Failed to use Balance.");
-            transactionService.saveFailedTransaction(
+            // 실패 거래는 비동기로 저장하고 바로 응답 (lock 을 오래 잡지 않음)
+            failureJournal.record(TransactionType.USE,
                     request.getAccountNumber(),
                     request.getAmount()
             );
@@ -56,12 +91,32 @@ public class TransactionalController {
     }
 
 
+    // 정산 배치 등 여러 건을 한 번에 - 계좌마다 lock 은 한 번, 건별 결과(성공/실패)를 요청 순서대로
+    // 계좌 lock 은 BulkBalanceService 가 계좌별로 잡는다 (@AccountLock 없음)
+    @PostMapping("/transaction/use/batch")
+    public UseBalanceBatch.Response useBalanceBatch(
+            @RequestBody @Valid UseBalanceBatch.Request request
+    ) {
+        return UseBalanceBatch.Response.from(request.getRequests(),
+                bulkBalanceService.useBalances(request.getRequests()));
+    }
+
+
     @PostMapping("/transaction/cancel")
-    @AccountLock
+    @Idempotent
+    @AccountLock(transactionType = TransactionType.CANCEL)
     public CancelBalance.Response cancelBalance(
             @Valid @RequestBody CancelBalance.Request
              request
     ){
+        if(balanceEngine.isPresent()){
+            return CancelBalance.Response.from(
+                    balanceEngine.get().cancelBalance(request.getTransactionId(),
+                            request.getAccountNumber(),
+                            request.getAmount())
+            );
+        }
+
         try {
 
             return CancelBalance.Response.from(
@@ -74,7 +129,7 @@ public class TransactionalController {
         catch (AccountException e){
 
             log.error("Failed to use Balance.");
-            transactionService.saveFailedCancelTransaction(
+            failureJournal.record(TransactionType.CANCEL,
                     request.getAccountNumber(),
                     request.getAmount()
             );
@@ -92,4 +147,55 @@ public class TransactionalController {
                 transactionService.queryTransaction(transactionId)
         );
     }
+
+    // 대사(reconciliation) 등 여러 거래의 상태를 한 번에 - 요청한 순서대로, 없는 거래는 found = false
+    @PostMapping("/transaction/query")
+    public QueryTransactions.Response queryTransactions(
+            @RequestBody @Valid QueryTransactions.Request request
+    ){
+        return QueryTransactions.Response.from(request.getTransactionIds(),
+                transactionService.queryTransactions(request.getTransactionIds()));
+    }
+
+    @GetMapping("/transaction")
+    public TransactionHistory.Response getTransactionHistory(
+            @RequestParam("account_number") String accountNumber,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "20") int size
+    ){
+        return TransactionHistory.Response.from(
+                transactionService.getTransactionHistory(accountNumber, cursor, size)
+        );
+    }
+
+    // 응답 본문은 비동기 스레드에서 거래를 읽는 대로 바로 쓴다 (전체를 메모리에 올리지 않음)
+    @GetMapping("/transaction/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam("account_number") String accountNumber,
+            @RequestParam(name = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(name = "format", defaultValue = "ndjson") String format
+    ){
+        ExportFormat exportFormat = parseExportFormat(format);
+        // 응답을 쓰기 시작하기 전에 계좌를 확인 (없으면 일반 에러 응답)
+        Long accountId = transactionExportService.getAccountId(accountNumber);
+
+        StreamingResponseBody body = out -> transactionExportService.export(
+                accountId, accountNumber, from, to, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
+                        + accountNumber + "." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    private static ExportFormat parseExportFormat(String format) {
+        try {
+            return ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+    }
 }
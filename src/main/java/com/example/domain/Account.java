@@ -4,6 +4,8 @@ import com.example.exception.AccountException;
 import com.example.type.ErrorCode;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -16,11 +18,23 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity // 일종의 DB테이블 설정 클래스
+@Table(indexes = {
+        // findByAccountNumber (계좌번호는 중복되면 안된다)
+        @Index(name = "uk_account_account_number", columnList = "account_number", unique = true),
+        // findInfoByAccountUserId (사용자의 계좌 목록)
+        @Index(name = "idx_account_user_status", columnList = "account_user_id, account_status")
+})
+// 계좌번호 -> id 를 2차 캐시 (application.conf 의 account-number)
+// 잔액이 자주 바뀌므로 계좌 엔티티 자체는 캐시하지 않는다
+@NaturalIdCache(region = "account-number")
 public class Account extends BaseEntity {
 
-    @ManyToOne// user가 account를 10개까지 가질수 있음
+    // user가 account를 10개까지 가질수 있음
+    // LAZY : 계좌만 필요한 조회에서 account_user 를 같이 읽지 않는다 (getId() 는 조회 없이 FK 값)
+    @ManyToOne(fetch = FetchType.LAZY)
     private AccountUser accountUser;
 
+    @NaturalId // 발급 후 바뀌지 않는다
     private String accountNumber;
 
     @Enumerated(EnumType.STRING) // db에 enum 값을 0,1,2 형식으로 DB에 저장을 안하게 해줌
@@ -31,6 +45,13 @@ public class Account extends BaseEntity {
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
 
+    @Version // lock 없이 잔액을 바꾸는 경우 다른 요청의 변경을 덮어쓰지 않도록 함
+    private Long version;
+
+    // REDIS 모드 : DB 잔액이 반영한 Redis 잔액 변경 순번 (Redis 스크립트가 계좌마다 1 씩 올린다)
+    // write-behind 가 늦게 저장하는 이전 스냅샷으로 잔액을 되돌리지 않도록 이 값보다 큰 순번만 반영한다
+    private Long balanceSeq;
+
 
     public void useBalance(Long amount){
         if(amount > balance){
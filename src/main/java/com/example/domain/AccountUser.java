@@ -2,6 +2,9 @@ package com.example.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -14,6 +17,17 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+// 거의 바뀌지 않으므로 2차 캐시 (application.conf 의 account-user)
+// accountCount 는 lock 을 건 엔티티로 바꾸므로 바뀐 사용자 항목만 갱신된다 (region 전체를 비우지 않는다)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "account-user")
 public class AccountUser extends BaseEntity {
     private String name;
+
+    // 해지되지 않은 계좌 수, 계좌 생성/해지 트랜잭션 안에서 findByIdForUpdate 로 읽은 엔티티로만 바꾼다
+    // (생성할 때마다 account 테이블을 COUNT 하지 않기 위함)
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer accountCount = 0;
 }
\ No newline at end of file
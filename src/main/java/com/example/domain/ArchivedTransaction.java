@@ -0,0 +1,69 @@
+package com.example.domain;
+
+import com.example.dto.TransactionDto;
+import com.example.type.TransactionResultType;
+import com.example.type.TransactionType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/*
+* 취소 가능 기간(1년)이 지나 transaction 테이블에서 옮겨진 거래 내역
+* 계좌와 연관관계를 두지 않고 계좌번호를 그대로 복사해 둔다 (조회 시 join 없이 TransactionDto 로 변환)
+* 압축은 하지 않고 DB 의 테이블 압축에 맡긴다 (예: MySQL ROW_FORMAT=COMPRESSED, 로컬 H2 는 테이블 단위 압축 없음)
+* - 거래 id 로 한 건씩 조회하고 계좌/기간으로 내보내야 하므로 압축 파일 segment 로 묶지 않았다
+* */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(indexes = {
+        @Index(name = "uk_archived_transaction_transaction_id", columnList = "transaction_id", unique = true),
+        // 거래 내역 내보내기 - 계좌별 기간 조회
+        @Index(name = "idx_archived_transaction_account_transacted_at",
+                columnList = "account_id, transacted_at, id")
+})
+public class ArchivedTransaction extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionResultType transactionResultType;
+
+    private Long accountId;
+    private String accountNumber;
+    private Long amount;
+    private Long balanceSnapshot;
+
+    private String transactionId;
+    private LocalDateTime transactedAt;
+
+    public static ArchivedTransaction from(Transaction transaction) {
+        return ArchivedTransaction.builder()
+                .transactionType(transaction.getTransactionType())
+                .transactionResultType(transaction.getTransactionResultType())
+                .accountId(transaction.getAccount().getId())
+                .accountNumber(transaction.getAccount().getAccountNumber())
+                .amount(transaction.getAmount())
+                .balanceSnapshot(transaction.getBalanceSnapshot())
+                .transactionId(transaction.getTransactionId())
+                .transactedAt(transaction.getTransactedAt())
+                .build();
+    }
+
+    public TransactionDto toDto() {
+        return TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(transactionId)
+                .transactedAt(transactedAt)
+                .build();
+    }
+}
@@ -16,6 +16,14 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        // findByTransactionId, findWithAccountByTransactionId, findDtoByTransactionId (거래 조회, 취소)
+        @Index(name = "uk_transaction_transaction_id", columnList = "transaction_id", unique = true),
+        // 계좌별 거래 내역 조회 - (transacted_at, id) 기준 keyset 페이지
+        @Index(name = "idx_transaction_account_transacted_at", columnList = "account_id, transacted_at, id"),
+        // 보관 기간이 지난 거래를 archive 로 옮길 때
+        @Index(name = "idx_transaction_transacted_at", columnList = "transacted_at")
+})
 public class Transaction extends BaseEntity {
 
     @Enumerated(EnumType.STRING)
@@ -24,7 +32,9 @@ public class Transaction extends BaseEntity {
     @Enumerated(EnumType.STRING)
     private TransactionResultType transactionResultType;
 
-    @ManyToOne // account 에 여러 트랜잭션 연결
+    // account 에 여러 트랜잭션 연결
+    // LAZY : 거래 조회/응답은 TransactionDto projection 으로 계좌번호만 join 해서 읽는다
+    @ManyToOne(fetch = FetchType.LAZY)
     private Account account;
     private Long amount;
     private Long balanceSnapshot;
@@ -1,6 +1,7 @@
 package com.example.dto;
 
 import com.example.domain.Account;
+import com.example.domain.AccountStatus;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 
@@ -34,6 +35,7 @@ public class AccountDto {
 public class AccountDto { // entity(Account)클래스보다 단순화된 버전으로 생성
     private Long userId;
     private String accountNumber;
+    private AccountStatus accountStatus;
     private Long balance;
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
@@ -44,6 +46,7 @@ public class AccountDto { // entity(Account)클래스보다 단순화된 버전
                 .builder()
                 .userId(account.getAccountUser().getId())
                 .accountNumber(account.getAccountNumber())
+                .accountStatus(account.getAccountStatus())
                 .balance(account.getBalance())
                 .registeredAt(account.getRegisteredAt())
                 .unRegisteredAt(account.getUnRegisteredAt())
@@ -0,0 +1,29 @@
+package com.example.dto;
+
+import com.example.exception.AccountException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+* 여러 건을 한 번에 처리할 때 건별 결과
+* 성공이면 transactionDto, 실패면 exception 만 채워진다
+* */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BalanceResult {
+    private TransactionDto transactionDto;
+    private AccountException exception;
+
+    public static BalanceResult success(TransactionDto transactionDto){
+        return new BalanceResult(transactionDto, null);
+    }
+
+    public static BalanceResult failure(AccountException exception){
+        return new BalanceResult(null, exception);
+    }
+
+    public boolean isSuccess(){
+        return exception == null;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+public class QueryTransactions {
+    public static final int MAX_TRANSACTION_IDS = 1000;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request {
+        @NotEmpty
+        @Size(max = MAX_TRANSACTION_IDS)
+        private List<@NotBlank String> transactionIds;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private List<Result> results; // 요청한 id 순서대로
+
+        public static Response from(List<String> transactionIds,
+                                    Map<String, TransactionDto> transactions) {
+            return new Response(transactionIds.stream()
+                    .map(transactionId -> Result.from(transactionId, transactions.get(transactionId)))
+                    .toList());
+        }
+    }
+
+    // 거래가 없으면 found = false, transaction = null
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Result {
+        private String transactionId;
+        private boolean found;
+        private QueryTransactionResponse transaction;
+
+        public static Result from(String transactionId, TransactionDto transactionDto) {
+            return Result.builder()
+                    .transactionId(transactionId)
+                    .found(transactionDto != null)
+                    .transaction(transactionDto == null ? null
+                            : QueryTransactionResponse.from(transactionDto))
+                    .build();
+        }
+    }
+}
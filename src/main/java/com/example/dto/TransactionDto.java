@@ -1,6 +1,7 @@
 package com.example.dto;
 
 import com.example.domain.Transaction;
+import com.example.repository.TransactionHistoryView;
 import com.example.type.TransactionResultType;
 import com.example.type.TransactionType;
 import lombok.*;
@@ -32,4 +33,16 @@ public class TransactionDto {
                 .transactedAt(transaction.getTransactedAt())
                 .build();
     }
+
+    public static TransactionDto fromView(TransactionHistoryView view, String accountNumber){
+        return TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(view.getTransactionType())
+                .transactionResultType(view.getTransactionResultType())
+                .amount(view.getAmount())
+                .balanceSnapshot(view.getBalanceSnapshot())
+                .transactionId(view.getTransactionId())
+                .transactedAt(view.getTransactedAt())
+                .build();
+    }
 }
@@ -0,0 +1,28 @@
+package com.example.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+public class TransactionHistory {
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private List<QueryTransactionResponse> transactions;
+        private String nextCursor;
+
+        public static Response from(TransactionHistoryDto transactionHistoryDto){
+            return Response.builder()
+                    .accountNumber(transactionHistoryDto.getAccountNumber())
+                    .transactions(transactionHistoryDto.getTransactions().stream()
+                            .map(QueryTransactionResponse::from)
+                            .toList())
+                    .nextCursor(transactionHistoryDto.getNextCursor())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.dto;
+
+import com.example.exception.AccountException;
+import com.example.type.ErrorCode;
+import lombok.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionHistoryDto {
+    private String accountNumber;
+    private List<TransactionDto> transactions;
+    // 다음 페이지 요청에 그대로 넘기는 값, 마지막 페이지면 null
+    private String nextCursor;
+
+    /*
+    * 페이지의 마지막 거래 (transactedAt, id)
+    * 클라이언트는 내용을 알 필요가 없으므로 base64 문자열로 주고받는다
+    * */
+    public record Cursor(LocalDateTime transactedAt, Long id) {
+        public String encode() {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (transactedAt + "_" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String cursor) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = decoded.lastIndexOf('_');
+                return new Cursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                        Long.parseLong(decoded.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new AccountException(ErrorCode.INVALID_REQUEST);
+            }
+        }
+    }
+}
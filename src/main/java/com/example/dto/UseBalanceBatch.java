@@ -0,0 +1,91 @@
+package com.example.dto;
+
+import com.example.type.ErrorCode;
+import com.example.type.TransactionResultType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class UseBalanceBatch {
+    public static final int MAX_REQUESTS = 1000;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request {
+        @NotEmpty
+        @Size(max = MAX_REQUESTS)
+        private List<@Valid UseBalance.Request> requests;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private int successCount;
+        private int failureCount;
+        private List<Item> results; // 요청 순서대로
+
+        public static Response from(List<UseBalance.Request> requests,
+                                    List<BalanceResult> balanceResults) {
+            List<Item> items = new ArrayList<>(requests.size());
+            int successCount = 0;
+            for (int i = 0; i < requests.size(); i++) {
+                Item item = Item.from(requests.get(i), balanceResults.get(i));
+                if (item.getTransactionResult() == TransactionResultType.S) {
+                    successCount++;
+                }
+                items.add(item);
+            }
+            return Response.builder()
+                    .successCount(successCount)
+                    .failureCount(items.size() - successCount)
+                    .results(items)
+                    .build();
+        }
+    }
+
+    // 성공이면 거래 정보, 실패면 errorCode 가 채워진다
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        private String accountNumber;
+        private TransactionResultType transactionResult;
+        private String transactionId;
+        private Long amount;
+        private LocalDateTime transactedAt;
+        private ErrorCode errorCode;
+        private String errorMessage;
+
+        public static Item from(UseBalance.Request request, BalanceResult balanceResult) {
+            if (!balanceResult.isSuccess()) {
+                return Item.builder()
+                        .accountNumber(request.getAccountNumber())
+                        .transactionResult(TransactionResultType.F)
+                        .amount(request.getAmount())
+                        .errorCode(balanceResult.getException().getErrorCode())
+                        .errorMessage(balanceResult.getException().getErrorMessage())
+                        .build();
+            }
+            TransactionDto transactionDto = balanceResult.getTransactionDto();
+            return Item.builder()
+                    .accountNumber(transactionDto.getAccountNumber())
+                    .transactionResult(transactionDto.getTransactionResultType())
+                    .transactionId(transactionDto.getTransactionId())
+                    .amount(transactionDto.getAmount())
+                    .transactedAt(transactionDto.getTransactedAt())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+* 계좌 상태(생성, 해지 등)가 바뀌었을 때 발행
+* 계좌 정보를 DB 밖(Redis 등)에 따로 들고 있는 쪽이 커밋 후에 받아서 맞춰준다
+* */
+@Getter
+@AllArgsConstructor
+public class AccountChangedEvent {
+    private Long userId;
+    private String accountNumber;
+}
@@ -0,0 +1,124 @@
+package com.example.journal;
+
+import com.example.domain.Transaction;
+import com.example.type.TransactionResultType;
+import com.example.type.TransactionType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.zip.CRC32C;
+
+/*
+* 거래 저널의 고정 길이(80 byte) 레코드
+*  0 sequence          long  (1 부터, 0 이면 아직 쓰지 않은 자리)
+*  8 transactedAt      long  (epoch millis)
+* 16 accountId         long
+* 24 amount            long
+* 32 balanceSnapshot   long
+* 40 transactionType   byte  (enum 순서 - 순서를 바꾸면 안된다)
+* 41 resultType        byte
+* 42 (reserved)        short
+* 44 transactionId     32 byte ASCII (남는 자리는 0)
+* 76 checksum          int   (0 ~ 75 의 CRC32C)
+* */
+public record JournalRecord(long sequence,
+                            String transactionId,
+                            long accountId,
+                            TransactionType transactionType,
+                            TransactionResultType transactionResultType,
+                            long amount,
+                            long balanceSnapshot,
+                            long transactedAtMillis) {
+    public static final int SIZE = 80;
+
+    private static final int TRANSACTION_ID_OFFSET = 44;
+    private static final int TRANSACTION_ID_LENGTH = 32;
+    private static final int CHECKSUM_OFFSET = 76;
+
+    // sequence 는 저널에 쓸 때 정해진다
+    public static JournalRecord from(Transaction transaction) {
+        return new JournalRecord(0L,
+                transaction.getTransactionId(),
+                orZero(transaction.getAccount() == null ? null : transaction.getAccount().getId()),
+                transaction.getTransactionType(),
+                transaction.getTransactionResultType(),
+                orZero(transaction.getAmount()),
+                orZero(transaction.getBalanceSnapshot()),
+                transaction.getTransactedAt()
+                        .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    public JournalRecord withSequence(long sequence) {
+        return new JournalRecord(sequence, transactionId, accountId, transactionType,
+                transactionResultType, amount, balanceSnapshot, transactedAtMillis);
+    }
+
+    public LocalDateTime transactedAt() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(transactedAtMillis), ZoneId.systemDefault());
+    }
+
+    // 읽는 쪽이 쓰는 중인 레코드를 보지 않도록 나머지를 다 쓴 뒤 sequence 를 마지막에 쓴다
+    void writeTo(ByteBuffer buffer, int offset) {
+        byte[] id = transactionId.getBytes(StandardCharsets.US_ASCII);
+        if (id.length > TRANSACTION_ID_LENGTH) {
+            throw new IllegalArgumentException("transactionId too long : " + transactionId);
+        }
+        ByteBuffer encoded = ByteBuffer.allocate(SIZE);
+        encoded.putLong(0, sequence);
+        encoded.putLong(8, transactedAtMillis);
+        encoded.putLong(16, accountId);
+        encoded.putLong(24, amount);
+        encoded.putLong(32, balanceSnapshot);
+        encoded.put(40, (byte) transactionType.ordinal());
+        encoded.put(41, (byte) transactionResultType.ordinal());
+        encoded.put(TRANSACTION_ID_OFFSET, id);
+        encoded.putInt(CHECKSUM_OFFSET, checksum(encoded, 0));
+
+        buffer.put(offset + 8, encoded, 8, SIZE - 8);
+        buffer.putLong(offset, sequence);
+    }
+
+    // 아직 쓰지 않은 자리면 null, checksum 이 맞지 않으면 예외
+    static JournalRecord readFrom(ByteBuffer buffer, int offset) {
+        long sequence = buffer.getLong(offset);
+        if (sequence == 0) {
+            return null;
+        }
+        if (buffer.getInt(offset + CHECKSUM_OFFSET) != checksum(buffer, offset)) {
+            throw new CorruptedRecordException(sequence);
+        }
+        int idLength = 0;
+        byte[] id = new byte[TRANSACTION_ID_LENGTH];
+        while (idLength < TRANSACTION_ID_LENGTH
+                && (id[idLength] = buffer.get(offset + TRANSACTION_ID_OFFSET + idLength)) != 0) {
+            idLength++;
+        }
+        return new JournalRecord(sequence,
+                new String(id, 0, idLength, StandardCharsets.US_ASCII),
+                buffer.getLong(offset + 16),
+                TransactionType.values()[buffer.get(offset + 40)],
+                TransactionResultType.values()[buffer.get(offset + 41)],
+                buffer.getLong(offset + 24),
+                buffer.getLong(offset + 32),
+                buffer.getLong(offset + 8));
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, CHECKSUM_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    private static long orZero(Long value) {
+        return value == null ? 0L : value;
+    }
+
+    static class CorruptedRecordException extends IllegalStateException {
+        CorruptedRecordException(long sequence) {
+            super("Journal record checksum mismatch : sequence " + sequence);
+        }
+    }
+}
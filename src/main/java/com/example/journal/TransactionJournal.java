@@ -0,0 +1,174 @@
+package com.example.journal;
+
+import com.example.domain.Transaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/*
+* 저장된 거래를 순서대로 덧붙이는 memory-mapped 저널 파일
+* - 레코드는 고정 길이(JournalRecord.SIZE), 파일(segment)마다 segment-records 개까지 쓰고 다음 파일로 넘어간다
+* - 파일 이름은 그 파일의 첫 sequence (00000000000000000001.journal)
+* - DB 트랜잭션 안이면 커밋된 뒤에 쓴다 (롤백된 거래는 남기지 않음)
+* - 시작 시 마지막 파일을 끝까지 읽어서 이어 쓸 위치를 찾고, checksum 이 깨진 마지막 레코드(쓰다가 종료)는 덮어쓴다
+* 읽기는 TransactionJournalReader 로 한다 (DB 를 조회하지 않는 감사/배치용)
+* */
+@Slf4j
+@Component
+public class TransactionJournal {
+    static final String SUFFIX = ".journal";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentRecords;
+    private final boolean forceOnAppend;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int position;
+    private long nextSequence = 1;
+
+    public TransactionJournal(
+            @Value("${account.journal.enabled:true}") boolean enabled,
+            @Value("${account.journal.directory:journal}") String directory,
+            @Value("${account.journal.segment-records:1048576}") int segmentRecords,
+            @Value("${account.journal.force-on-append:false}") boolean forceOnAppend) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentRecords = segmentRecords;
+        this.forceOnAppend = forceOnAppend;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Path> segments = segments(directory);
+        if (segments.isEmpty()) {
+            openSegment(1);
+            return;
+        }
+        Path last = segments.get(segments.size() - 1);
+        openSegment(firstSequence(last));
+        while (position < segmentRecords && readAt(position) != null) {
+            position++;
+        }
+        nextSequence += position;
+        log.info("Transaction journal opened : {} next sequence {}", last, nextSequence);
+    }
+
+    public void append(Transaction transaction) {
+        if (!enabled) {
+            return;
+        }
+        JournalRecord record = JournalRecord.from(transaction);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            write(record);
+                        }
+                    });
+        } else {
+            write(record);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public TransactionJournalReader newReader() {
+        return new TransactionJournalReader(directory);
+    }
+
+    public synchronized long lastSequence() {
+        return nextSequence - 1;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            segment.force();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    synchronized void write(JournalRecord record) {
+        try {
+            if (position == segmentRecords) {
+                segment.force();
+                channel.close();
+                openSegment(nextSequence);
+            }
+            record.withSequence(nextSequence).writeTo(segment, position * JournalRecord.SIZE);
+            position++;
+            nextSequence++;
+            if (forceOnAppend) {
+                segment.force();
+            }
+        } catch (IOException | RuntimeException e) {
+            // DB 에는 이미 커밋되었으므로 요청은 실패시키지 않는다
+            log.error("Transaction journal append failed : {}", record.transactionId(), e);
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(fileName(firstSequence));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                (long) segmentRecords * JournalRecord.SIZE);
+        position = 0;
+        nextSequence = firstSequence;
+    }
+
+    private JournalRecord readAt(int index) {
+        try {
+            return JournalRecord.readFrom(segment, index * JournalRecord.SIZE);
+        } catch (JournalRecord.CorruptedRecordException e) {
+            log.warn("Transaction journal : torn record at the tail will be overwritten", e);
+            return null;
+        }
+    }
+
+    static String fileName(long firstSequence) {
+        return String.format("%020d%s", firstSequence, SUFFIX);
+    }
+
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    // 첫 sequence 순서로 정렬된 segment 파일 목록
+    static List<Path> segments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+* 저널을 sequence 순서대로 읽는다 (segment 파일을 읽기 전용으로 map)
+* 쓰는 쪽과 동시에 읽어도 되고, 아직 쓰지 않은 자리를 만나면 그 segment 는 끝난 것으로 본다
+* checksum 이 맞지 않는 레코드를 만나면 CorruptedRecordException (IllegalStateException)
+* */
+public class TransactionJournalReader {
+    private final Path directory;
+
+    public TransactionJournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    // fromSequence 부터 끝까지 consumer 에 넘기고, 마지막으로 읽은 sequence 를 리턴 (없으면 fromSequence - 1)
+    public long replay(long fromSequence, Consumer<JournalRecord> consumer) throws IOException {
+        long lastSequence = fromSequence - 1;
+        List<Path> segments = TransactionJournal.segments(directory);
+        for (int i = 0; i < segments.size(); i++) {
+            // 다음 segment 가 fromSequence 이하에서 시작하면 이 segment 는 전부 건너뛴다
+            if (i + 1 < segments.size()
+                    && TransactionJournal.firstSequence(segments.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+            lastSequence = replaySegment(segments.get(i), fromSequence, lastSequence, consumer);
+        }
+        return lastSequence;
+    }
+
+    private long replaySegment(Path path, long fromSequence, long lastSequence,
+                               Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long firstSequence = TransactionJournal.firstSequence(path);
+            // 고정 길이이므로 시작 위치를 바로 계산한다
+            long start = Math.max(0, fromSequence - firstSequence);
+            for (long index = start; (index + 1) * JournalRecord.SIZE <= buffer.capacity(); index++) {
+                JournalRecord record = JournalRecord.readFrom(buffer, (int) (index * JournalRecord.SIZE));
+                if (record == null) {
+                    break;
+                }
+                consumer.accept(record);
+                lastSequence = record.sequence();
+            }
+        }
+        return lastSequence;
+    }
+}
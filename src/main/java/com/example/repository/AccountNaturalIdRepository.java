@@ -0,0 +1,10 @@
+package com.example.repository;
+
+import com.example.domain.Account;
+
+import java.util.Optional;
+
+// 계좌번호(natural id)로 계좌 조회 - 계좌번호 -> id 는 2차 캐시에서 찾는다
+public interface AccountNaturalIdRepository {
+    Optional<Account> findByAccountNumber(String accountNumber);
+}
@@ -0,0 +1,29 @@
+package com.example.repository;
+
+import com.example.domain.Account;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/*
+* 메서드 이름으로 만든 쿼리(where account_number = ?)는 2차 캐시를 쓰지 않으므로 natural id 로 읽는다
+* - 계좌번호 -> id 가 캐시에 있으면 id 로 조회, 없으면 계좌번호로 조회한 뒤 캐시에 넣는다
+* - 같은 트랜잭션에서 이미 읽은 계좌면 DB 를 조회하지 않는다
+* - 트랜잭션 밖에서 부르면 Session 이 바로 닫히므로 트랜잭션으로 실행
+*   (잔액 변경 전에 읽는 쪽도 부르므로 readOnly 로 두지 않는다 - replica 는 @ReplicaRead 로만 고른다)
+* */
+public class AccountNaturalIdRepositoryImpl implements AccountNaturalIdRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public Optional<Account> findByAccountNumber(String accountNumber) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Account.class)
+                .loadOptional(accountNumber);
+    }
+}
@@ -1,22 +1,72 @@
 package com.example.repository;
 
 import com.example.domain.Account;
-import com.example.domain.AccountUser;
+import com.example.dto.AccountDto;
+import com.example.dto.AccountInfo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountNaturalIdRepository {
     Optional<Account> findFirstByOrderByIdDesc(); // 가장 최근 계좌번호를 가져올때 사용
     // 맨처음 계좌번호를 가져올때는 없을 수도 있기때문에 Optional로 받아준다
 
-    Integer countByAccountUser(AccountUser accountUser); // 한 계정이 10개 이상의 계좌를 가질 수 없다
+    // 계좌번호 범위 예약 (시퀀스 increment = account.number.block-size)
+    @Query(value = "select next value for account_number_seq", nativeQuery = true)
+    Long nextAccountNumberBlock();
 
-    Optional<Account> findByAccountNumber(String accountNumber);
+    List<Account> findByAccountNumberIn(List<String> accountNumbers);
 
-    List<Account> findByAccountUser(AccountUser accountUser);
+    // 읽었을 때의 version 그대로일 때만 차감 -> 0 이 리턴되면 다른 요청이 먼저 바꾼 것
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a " +
+            "set a.balance = a.balance - :amount, a.version = a.version + 1 " +
+            "where a.accountNumber = :accountNumber " +
+            "and a.version = :version " +
+            "and a.balance >= :amount " +
+            "and a.accountStatus = com.example.domain.AccountStatus.IN_USE")
+    int useBalanceIfVersionMatches(@Param("accountNumber") String accountNumber,
+                                   @Param("amount") Long amount,
+                                   @Param("version") Long version);
+
+    // Redis 에 있는 잔액을 DB 에 뒤늦게 반영할 때 사용 (write-behind)
+    @Modifying
+    @Query("update Account a set a.balance = :balance, a.version = a.version + 1 where a.id = :id")
+    int updateBalance(@Param("id") Long id, @Param("balance") Long balance);
+
+    // write-behind 용 - Redis 에서 더 나중에 바뀐 잔액(순번이 큰 스냅샷)이 이미 반영되어 있으면 되돌리지 않는다
+    // (거래 시각은 스크립트가 실행되기 전에 정해지므로 Redis 의 실행 순서와 다를 수 있다)
+    @Modifying(flushAutomatically = true)
+    @Query("update Account a set a.balance = :balance, a.balanceSeq = :balanceSeq, " +
+            "a.version = a.version + 1 " +
+            "where a.id = :id and coalesce(a.balanceSeq, 0) < :balanceSeq")
+    int updateBalanceIfNewer(@Param("id") Long id,
+                             @Param("balance") Long balance,
+                             @Param("balanceSeq") Long balanceSeq);
+
+    // id 순서로 afterId 다음부터 계좌번호만 조회 (Bloom filter 적재용)
+    @Query("select a.id as id, a.accountNumber as lookupKey from Account a " +
+            "where a.id > :afterId order by a.id")
+    List<LookupKeyView> findLookupKeysAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select coalesce(max(a.id), 0) from Account a")
+    Long findMaxId();
+
+    // 계좌 조회 응답 - 엔티티 대신 필요한 컬럼만 (accountUser.id 는 FK 컬럼이라 join 없음)
+    @Query("select new com.example.dto.AccountDto(a.accountUser.id, a.accountNumber, a.accountStatus, " +
+            "a.balance, a.registeredAt, a.unRegisteredAt) from Account a where a.id = :id")
+    Optional<AccountDto> findDtoById(@Param("id") Long id);
+
+    // 사용자의 계좌 목록 응답 (계좌번호, 잔액)
+    @Query("select new com.example.dto.AccountInfo(a.accountNumber, a.balance) from Account a " +
+            "where a.accountUser.id = :userId order by a.id")
+    List<AccountInfo> findInfoByAccountUserId(@Param("userId") Long userId);
 }
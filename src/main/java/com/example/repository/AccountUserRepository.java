@@ -1,10 +1,21 @@
 package com.example.repository;
 
 import com.example.domain.AccountUser;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface AccountUserRepository extends JpaRepository<AccountUser, Long> {
+    // 계좌 수를 바꾸기 전에 행 lock (같은 사용자의 계좌 생성/해지는 순서대로)
+    // bulk UPDATE 와 달리 관리되는 엔티티를 고치므로 2차 캐시는 이 사용자 항목만 갱신된다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from AccountUser u where u.id = :id")
+    Optional<AccountUser> findByIdForUpdate(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.example.repository;
+
+import com.example.domain.ArchivedTransaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, Long> {
+    Optional<ArchivedTransaction> findByTransactionId(String transactionId);
+
+    List<ArchivedTransaction> findByTransactionIdIn(Collection<String> transactionIds);
+
+    // id 순서로 afterId 다음부터 거래 id 만 조회 (Bloom filter 적재용)
+    @Query("select t.id as id, t.transactionId as lookupKey from ArchivedTransaction t " +
+            "where t.id > :afterId order by t.id")
+    List<LookupKeyView> findLookupKeysAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select coalesce(max(t.id), 0) from ArchivedTransaction t")
+    Long findMaxId();
+
+    // TransactionRepository.streamHistory 와 같은 형태로 archive 의 기간 내 거래 (내보내기용)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select t.id as id, t.transactionType as transactionType, " +
+            "t.transactionResultType as transactionResultType, t.amount as amount, " +
+            "t.balanceSnapshot as balanceSnapshot, t.transactionId as transactionId, " +
+            "t.transactedAt as transactedAt from ArchivedTransaction t " +
+            "where t.accountId = :accountId " +
+            "and t.transactedAt >= :from and t.transactedAt < :to " +
+            "order by t.transactedAt, t.id")
+    Stream<TransactionHistoryView> streamHistory(@Param("accountId") Long accountId,
+                                                 @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to);
+}
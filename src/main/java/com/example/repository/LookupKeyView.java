@@ -0,0 +1,8 @@
+package com.example.repository;
+
+// 조회 키(계좌번호, 거래 id)만 가져오는 projection - 엔티티 전체를 읽지 않기 위함
+public interface LookupKeyView {
+    Long getId();
+
+    String getLookupKey();
+}
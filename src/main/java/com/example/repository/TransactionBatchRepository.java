@@ -0,0 +1,10 @@
+package com.example.repository;
+
+import com.example.domain.Transaction;
+
+import java.util.List;
+
+// 거래 내역을 여러 건 한 번에 저장할 때 사용 (JDBC batch insert)
+public interface TransactionBatchRepository {
+    void saveAllInBatches(List<Transaction> transactions);
+}
@@ -0,0 +1,37 @@
+package com.example.repository;
+
+import com.example.domain.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.List;
+
+/*
+* 새 거래 내역만 저장하므로 saveAll 처럼 건마다 merge 여부를 확인하지 않고 바로 persist
+* batch_size 건마다 flush 해서 INSERT 를 JDBC batch 로 보내고,
+* 저장된 거래는 영속성 컨텍스트에서 떼어내 메모리가 계속 늘지 않게 한다
+* (같은 트랜잭션에서 바꾼 계좌 등 다른 엔티티는 그대로 관리된다)
+* */
+public class TransactionBatchRepositoryImpl implements TransactionBatchRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int batchSize;
+
+    public TransactionBatchRepositoryImpl(
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void saveAllInBatches(List<Transaction> transactions) {
+        for (int from = 0; from < transactions.size(); from += batchSize) {
+            List<Transaction> chunk =
+                    transactions.subList(from, Math.min(from + batchSize, transactions.size()));
+            chunk.forEach(entityManager::persist);
+            entityManager.flush();
+            chunk.forEach(entityManager::detach);
+        }
+    }
+}
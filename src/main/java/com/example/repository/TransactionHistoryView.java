@@ -0,0 +1,23 @@
+package com.example.repository;
+
+import com.example.type.TransactionResultType;
+import com.example.type.TransactionType;
+
+import java.time.LocalDateTime;
+
+// 거래 내역 목록용 projection - 계좌(account) join 없이 필요한 컬럼만 읽는다
+public interface TransactionHistoryView {
+    Long getId();
+
+    TransactionType getTransactionType();
+
+    TransactionResultType getTransactionResultType();
+
+    Long getAmount();
+
+    Long getBalanceSnapshot();
+
+    String getTransactionId();
+
+    LocalDateTime getTransactedAt();
+}
@@ -3,16 +3,95 @@ package com.example.repository;
 import com.example.domain.Account;
 import com.example.domain.AccountUser;
 import com.example.domain.Transaction;
+import com.example.dto.TransactionDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository
-        extends JpaRepository<Transaction, Long> {
+        extends JpaRepository<Transaction, Long>, TransactionBatchRepository {
 // mapper 처럼 구현체는 직업 안만듦
     Optional<Transaction> findByTransactionId(String transactionId);
     // transactionId 컬럼을 통해 SELECT
-}
\ No newline at end of file
+
+    // 잔액 사용 취소 - 원 거래와 계좌를 한 번에 (검증과 잔액 변경에 둘 다 필요)
+    @Query("select t from Transaction t join fetch t.account where t.transactionId = :transactionId")
+    Optional<Transaction> findWithAccountByTransactionId(@Param("transactionId") String transactionId);
+
+    // 거래 조회 응답 - 계좌는 계좌번호만 필요하므로 join 한 번으로 끝낸다 (account_user 는 읽지 않음)
+    @Query("select new com.example.dto.TransactionDto(a.accountNumber, t.transactionType, " +
+            "t.transactionResultType, t.amount, t.balanceSnapshot, t.transactionId, t.transactedAt) " +
+            "from Transaction t join t.account a where t.transactionId = :transactionId")
+    Optional<TransactionDto> findDtoByTransactionId(@Param("transactionId") String transactionId);
+
+    // 여러 거래 한 번에 조회 (POST /transaction/query) - 없는 id 는 결과에 빠진다
+    @Query("select new com.example.dto.TransactionDto(a.accountNumber, t.transactionType, " +
+            "t.transactionResultType, t.amount, t.balanceSnapshot, t.transactionId, t.transactedAt) " +
+            "from Transaction t join t.account a where t.transactionId in :transactionIds")
+    List<TransactionDto> findDtoByTransactionIdIn(@Param("transactionIds") Collection<String> transactionIds);
+
+    // id 순서로 afterId 다음부터 거래 id 만 조회 (Bloom filter 적재용)
+    @Query("select t.id as id, t.transactionId as lookupKey from Transaction t " +
+            "where t.id > :afterId order by t.id")
+    List<LookupKeyView> findLookupKeysAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select coalesce(max(t.id), 0) from Transaction t")
+    Long findMaxId();
+
+    // 보관 기간이 지난 거래를 오래된 순서로 (archive 로 옮길 때 사용)
+    @Query("select t from Transaction t join fetch t.account " +
+            "where t.transactedAt < :cutoff order by t.transactedAt")
+    List<Transaction> findTransactedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // 계좌의 거래 내역 첫 페이지 (최신순)
+    @Query("select t.id as id, t.transactionType as transactionType, " +
+            "t.transactionResultType as transactionResultType, t.amount as amount, " +
+            "t.balanceSnapshot as balanceSnapshot, t.transactionId as transactionId, " +
+            "t.transactedAt as transactedAt from Transaction t " +
+            "where t.account.id = :accountId " +
+            "order by t.transactedAt desc, t.id desc")
+    List<TransactionHistoryView> findHistory(@Param("accountId") Long accountId, Pageable pageable);
+
+    // 이전 페이지의 마지막 거래 (transactedAt, id) 다음부터 - offset 없이 인덱스에서 바로 이어 읽는다
+    @Query("select t.id as id, t.transactionType as transactionType, " +
+            "t.transactionResultType as transactionResultType, t.amount as amount, " +
+            "t.balanceSnapshot as balanceSnapshot, t.transactionId as transactionId, " +
+            "t.transactedAt as transactedAt from Transaction t " +
+            "where t.account.id = :accountId " +
+            "and (t.transactedAt < :transactedAt or (t.transactedAt = :transactedAt and t.id < :id)) " +
+            "order by t.transactedAt desc, t.id desc")
+    List<TransactionHistoryView> findHistoryBefore(@Param("accountId") Long accountId,
+                                                   @Param("transactedAt") LocalDateTime transactedAt,
+                                                   @Param("id") Long id,
+                                                   Pageable pageable);
+
+    // 기간 내 거래 내역을 오래된 순서로 한 건씩 (내보내기용)
+    // fetch size 만큼씩 DB 에서 가져오고 projection 이라 영속성 컨텍스트에 쌓이지 않는다
+    // 트랜잭션 안에서 호출하고 Stream 을 닫아야 한다
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select t.id as id, t.transactionType as transactionType, " +
+            "t.transactionResultType as transactionResultType, t.amount as amount, " +
+            "t.balanceSnapshot as balanceSnapshot, t.transactionId as transactionId, " +
+            "t.transactedAt as transactedAt from Transaction t " +
+            "where t.account.id = :accountId " +
+            "and t.transactedAt >= :from and t.transactedAt < :to " +
+            "order by t.transactedAt, t.id")
+    Stream<TransactionHistoryView> streamHistory(@Param("accountId") Long accountId,
+                                                 @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,16 @@
+package com.example.service;
+
+/*
+* 새 계좌번호 발급
+* 번호를 하나씩 DB 에서 계산하지 않고 block-size 만큼 범위를 한 번에 예약(hi)해 두고
+* 메모리에서 하나씩(lo) 나눠준다
+* - account.number.allocator = sequence : DB 시퀀스 (기본값)
+* - account.number.allocator = redis    : Redis 카운터 (여러 서버가 DB 시퀀스 없이 공유)
+* 서버가 재시작되면 남은 범위의 번호는 건너뛴다 (번호가 연속이지 않을 수 있음)
+* */
+public interface AccountNumberAllocator {
+    long FIRST_ACCOUNT_NUMBER = 1_000_000_000L;
+    long LAST_ACCOUNT_NUMBER = 9_999_999_999L; // 계좌번호는 10자리
+
+    String nextAccountNumber();
+}
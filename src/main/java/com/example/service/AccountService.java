@@ -1,30 +1,41 @@
 package com.example.service;
 
+import com.example.aop.ReplicaRead;
+import com.example.cache.NegativeLookupGuard;
 import com.example.domain.Account;
 import com.example.domain.AccountStatus;
 import com.example.domain.AccountUser;
 import com.example.dto.AccountDto;
 import com.example.dto.AccountInfo;
+import com.example.event.AccountChangedEvent;
 import com.example.exception.AccountException;
 import com.example.repository.AccountUserRepository;
 import com.example.repository.AccountRepository;
 import com.example.type.ErrorCode;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import static com.example.domain.AccountStatus.IN_USE;
 
 @Service
 @RequiredArgsConstructor
 public class AccountService {
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final NegativeLookupGuard negativeLookupGuard;
+    // account.balance.mode 가 LOCKED 가 아닐 때만 등록된다
+    private final ObjectProvider<BalanceEngine> balanceEngine;
  /*
     //@Autowired
     private final AccountRepository accountRepository;
@@ -61,15 +72,16 @@ public class AccountService {
     @Transactional
     public AccountDto createAccount(Long userId, Long initialBalance){
 
-        AccountUser accountUser = getAccountUser(userId);
+        AccountUser accountUser = getAccountUserForUpdate(userId);
 
         validateCreateAccount(accountUser);
+        accountUser.setAccountCount(accountUser.getAccountCount() + 1);
 
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
-                .orElse("1000000000");
+        // 마지막 계좌번호를 조회해서 +1 하면 동시에 만들 때 번호가 겹치므로 미리 예약한 범위에서 발급
+        String newAccountNumber = accountNumberAllocator.nextAccountNumber();
+        negativeLookupGuard.addAccount(newAccountNumber);
 
-        return AccountDto.fromEntity(
+        AccountDto accountDto = AccountDto.fromEntity(
                 accountRepository.save(
                 Account.builder()
                         .accountUser(accountUser)
@@ -79,26 +91,36 @@ public class AccountService {
                         .registeredAt(LocalDateTime.now())
                         .build()
         ));
+        eventPublisher.publishEvent(new AccountChangedEvent(userId, newAccountNumber));
+
+        return accountDto;
     }
 
     private void validateCreateAccount(AccountUser accountUser) {
-        if(accountRepository.countByAccountUser(accountUser) == 10){
+        // COUNT 대신 사용자별 계좌 수 (사용자 행에 lock 을 걸었으므로 동시에 생성해도 10개를 넘지 않음)
+        if(accountUser.getAccountCount() >= MAX_ACCOUNT_PER_USER){
             throw new AccountException(ErrorCode.MAX_ACCOUNT_PER_USER_10);
         }
     }
 
+    @ReplicaRead
     @Transactional
-    public Account getAccount(Long id) {
+    public AccountDto getAccount(Long id) {
         if(id < 0){
             throw new RuntimeException("Minus");
         }
-        return accountRepository.findById(id).get();
+        return accountRepository.findDtoById(id)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
     }
 
     @Transactional
     public AccountDto deleteAccount(Long userId, String accountNumber) {
-        AccountUser accountUser = getAccountUser(userId);
+        AccountUser accountUser = getAccountUserForUpdate(userId);
 
+        // Bloom filter 에 없는 계좌번호는 DB 를 조회하지 않는다
+        if(!negativeLookupGuard.mightContainAccount(accountNumber)){
+            throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
@@ -106,8 +128,10 @@ public class AccountService {
 
         account.setAccountStatus(AccountStatus.UNREGISTERED);
         account.setUnRegisteredAt(LocalDateTime.now());
+        accountUser.setAccountCount(Math.max(0, accountUser.getAccountCount() - 1));
 
         accountRepository.save(account);
+        eventPublisher.publishEvent(new AccountChangedEvent(userId, accountNumber));
 
         return AccountDto.fromEntity(account);
     }
@@ -122,27 +146,35 @@ public class AccountService {
             throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
         }
 
-        if(account.getBalance() > 0){
+        if(currentBalance(account) > 0){
             throw new AccountException(ErrorCode.BALANCE_NOT_EMPTY);
         }
 
     }
 
-    @Transactional
-    public List<AccountDto> getAccountByUserId(Long userId) {
-        AccountUser accountUser = getAccountUser(userId);
-
-        List<Account> accounts = accountRepository.findByAccountUser(accountUser);
+    // REDIS 모드는 잔액이 Redis 에 먼저 반영되고 DB 에는 나중에 저장되므로 엔진의 잔액으로 확인
+    private long currentBalance(Account account) {
+        BalanceEngine engine = balanceEngine.getIfAvailable();
+        if(engine == null){
+            return account.getBalance();
+        }
+        return engine.currentBalance(account.getAccountNumber())
+                .orElse(account.getBalance());
+    }
 
-        return accounts.stream()
-                .map(AccountDto::fromEntity)
-                // .map(account -> AccountDto.fromEntity(account))
-                .collect(Collectors.toList());
+    // 계좌 목록 응답용 - 계좌 엔티티를 읽지 않고 계좌번호, 잔액만 조회
+    // 사용자 확인은 count 쿼리(existsById) 대신 2차 캐시에 있는 AccountUser 로
+    @ReplicaRead
+    @Transactional
+    public List<AccountInfo> getAccountInfoByUserId(Long userId) {
+        if(accountUserRepository.findById(userId).isEmpty()){
+            throw new AccountException(ErrorCode.USER_NOT_FOUND);
+        }
+        return accountRepository.findInfoByAccountUserId(userId);
     }
 
-    private AccountUser getAccountUser(Long userId) {
-        return accountUserRepository.findById(userId)
+    private AccountUser getAccountUserForUpdate(Long userId) {
+        return accountUserRepository.findByIdForUpdate(userId)
                 .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
-
     }
 }
\ No newline at end of file
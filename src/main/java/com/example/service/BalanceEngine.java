@@ -0,0 +1,44 @@
+package com.example.service;
+
+import com.example.dto.BalanceResult;
+import com.example.dto.TransactionDto;
+import com.example.dto.UseBalance;
+import com.example.exception.AccountException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/*
+* account.balance.mode 가 LOCKED 가 아닐 때 잔액 사용/취소를 처리하는 엔진
+* 모드에 맞는 구현체 하나만 bean 으로 등록되고, 없으면 TransactionalController 가
+* 기존처럼 TransactionService 를 직접 호출한다
+*
+* 실패 거래(F) 기록도 엔진이 책임진다
+* */
+public interface BalanceEngine {
+    TransactionDto useBalance(Long userId, String accountNumber, Long amount);
+
+    TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount);
+
+    // DB 보다 먼저 잔액을 바꾸는 엔진이면 엔진의 현재 잔액 (계좌 해지 시 잔액 확인용)
+    // 비어 있으면 DB 잔액이 최신
+    default Optional<Long> currentBalance(String accountNumber) {
+        return Optional.empty();
+    }
+
+    // 같은 계좌의 여러 건을 순서대로 처리하고 건별 결과를 리턴 (POST /transaction/use/batch)
+    // 기본은 한 건씩 처리, 묶어서 처리할 수 있는 엔진은 재정의한다
+    default List<BalanceResult> useBalances(String accountNumber, List<UseBalance.Request> requests) {
+        List<BalanceResult> results = new ArrayList<>(requests.size());
+        for (UseBalance.Request request : requests) {
+            try {
+                results.add(BalanceResult.success(
+                        useBalance(request.getUserId(), accountNumber, request.getAmount())));
+            } catch (AccountException e) {
+                results.add(BalanceResult.failure(e));
+            }
+        }
+        return results;
+    }
+}
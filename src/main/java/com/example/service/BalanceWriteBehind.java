@@ -0,0 +1,346 @@
+package com.example.service;
+
+import com.example.cache.AccountInfoCache;
+import com.example.domain.Transaction;
+import com.example.journal.TransactionJournal;
+import com.example.repository.AccountRepository;
+import com.example.repository.TransactionRepository;
+import com.example.type.TransactionResultType;
+import com.example.type.TransactionType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+
+/*
+* Redis 에서 처리된 거래를 DB 에 뒤늦게(비동기로) 저장
+* - 큐에 쌓아 두고 flush-interval 마다 batch-size 씩 한 트랜잭션으로
+*   Transaction 을 저장하고, 계좌 잔액은 배치 안에서 잔액 순번(balanceSeq)이 가장 큰 스냅샷으로 맞춘다
+*   순번은 Redis 스크립트가 실제로 실행된 순서라서 거래 시각(스크립트 실행 전에 정해짐)과 달리 뒤바뀌지 않는다
+*   (DB 에 더 큰 순번이 이미 반영되어 있으면 잔액은 건드리지 않음 -> 파일에서 늦게 저장된 건이 잔액을 되돌리지 않는다)
+*   커밋된 뒤 잔액이 바뀐 사용자의 계좌 목록 캐시(AccountInfoCache)를 지운다
+* - Redis 에서는 이미 처리된 거래이므로 버리지 않는다
+*   - 큐가 가득 차면 요청을 막지 않고 overflow 파일에 한 줄씩 append
+*   - 저장에 실패한 배치도 overflow 파일로 옮기고, 다음 flush 에서 큐보다 먼저 파일을 다시 읽어서 저장
+*   - 배치가 실패하면 한 건씩 다시 저장해서 실패한 건만 골라내고,
+*     max-attempts 번 실패한 건은 quarantine 파일로 옮겨서 다른 건을 막지 않게 한다 (수동 확인)
+*   - DB 에 연결할 수 없는 실패는 횟수에 세지 않는다
+* - 종료 시 남은 건을 저장하고, 저장하지 못한 건은 overflow 파일에 남겨 다음 시작 때 저장
+* */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.balance.mode", havingValue = "REDIS")
+public class BalanceWriteBehind {
+    private static final String SEPARATOR = "\t";
+
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionJournal transactionJournal;
+    private final AccountInfoCache accountInfoCache;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Path overflowPath;
+    private final Path quarantinePath;
+
+    private final BlockingQueue<Entry> queue;
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor();
+
+    public BalanceWriteBehind(
+            TransactionRepository transactionRepository,
+            AccountRepository accountRepository,
+            TransactionTemplate transactionTemplate,
+            TransactionJournal transactionJournal,
+            AccountInfoCache accountInfoCache,
+            @Value("${account.balance.redis.write-behind.batch-size:500}") int batchSize,
+            @Value("${account.balance.redis.write-behind.capacity:100000}") int capacity,
+            @Value("${account.balance.redis.write-behind.flush-interval-millis:100}") long flushIntervalMillis,
+            @Value("${account.balance.redis.write-behind.max-attempts:5}") int maxAttempts,
+            @Value("${account.balance.redis.write-behind.overflow-path:write-behind.log}") String overflowPath,
+            @Value("${account.balance.redis.write-behind.quarantine-path:write-behind.quarantine}") String quarantinePath) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.transactionJournal = transactionJournal;
+        this.accountInfoCache = accountInfoCache;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.overflowPath = Path.of(overflowPath);
+        this.quarantinePath = Path.of(quarantinePath);
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        flusher.scheduleWithFixedDelay(this::flushQuietly,
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void enqueue(Entry entry) {
+        if (!queue.offer(entry)) {
+            // DB 가 따라오지 못하는 동안에는 요청을 막지 않고 파일에 남긴다 (Redis 는 이미 바뀌었다)
+            appendTo(overflowPath, List.of(new Pending(entry, 0)));
+        }
+    }
+
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    // 스케줄러, 대사(reconcile), 종료 처리에서 동시에 불려도 같은 건을 두 번 저장하지 않도록 synchronized
+    // 파일에 남은 (더 오래된) 건을 먼저 저장하고, 이번에 실패한 건은 다음 flush 에서 다시 시도
+    public synchronized void flush() {
+        replayOverflow();
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeOrSpill(batch.stream().map(entry -> new Pending(entry, 0)).toList());
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed on shutdown", e);
+        }
+        List<Entry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            appendTo(overflowPath, remaining.stream().map(entry -> new Pending(entry, 0)).toList());
+            log.error("Write-behind stopped with {} entries kept in {}", remaining.size(), overflowPath);
+        }
+    }
+
+    /*
+    * 한 배치를 저장하고, 저장하지 못한 건은 overflow(또는 quarantine) 파일로 옮긴다
+    * DB 에 연결할 수 없어서 실패했으면 false
+    * */
+    private boolean writeOrSpill(List<Pending> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(batch));
+            evictAccountInfo(batch);
+            return true;
+        } catch (RuntimeException e) {
+            if (isUnavailable(e)) {
+                log.error("Write-behind flush failed, {} entries kept in {}", batch.size(), overflowPath, e);
+                appendTo(overflowPath, batch);
+                return false;
+            }
+            log.warn("Write-behind batch of {} entries failed, retrying one by one", batch.size(), e);
+        }
+
+        // 실패한 건만 골라낸다
+        List<Pending> written = new ArrayList<>();
+        List<Pending> retry = new ArrayList<>();
+        List<Pending> quarantine = new ArrayList<>();
+        boolean available = true;
+        for (Pending pending : batch) {
+            if (!available) {
+                retry.add(pending);
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeOne(pending));
+                written.add(pending);
+            } catch (RuntimeException e) {
+                if (isUnavailable(e)) {
+                    available = false;
+                    retry.add(pending);
+                } else if (pending.attempts() + 1 >= maxAttempts) {
+                    log.error("=====Write-behind entry quarantined===== {}", pending.entry(), e);
+                    quarantine.add(pending.failed());
+                } else {
+                    retry.add(pending.failed());
+                }
+            }
+        }
+        evictAccountInfo(written);
+        appendTo(overflowPath, retry);
+        appendTo(quarantinePath, quarantine);
+        return available;
+    }
+
+    // 저장된 잔액으로 다시 읽도록 (이미 DB 에 커밋되었으므로 지우지 못해도 TTL 이 지나면 맞춰진다)
+    private void evictAccountInfo(List<Pending> written) {
+        try {
+            written.stream()
+                    .map(Pending::entry)
+                    .filter(entry -> entry.transactionResultType() == TransactionResultType.S)
+                    .map(Entry::accountUserId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .forEach(accountInfoCache::evict);
+        } catch (RuntimeException e) {
+            log.error("Write-behind account info eviction failed", e);
+        }
+    }
+
+    // 파일에서 다시 저장할 때는 이미 저장된 거래(저장 후 파일 정리 전에 종료된 경우)를 건너뛴다
+    private void writeOne(Pending pending) {
+        if (transactionRepository.findDtoByTransactionId(pending.entry().transactionId()).isPresent()) {
+            return;
+        }
+        write(List.of(pending));
+    }
+
+    private void write(List<Pending> batch) {
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        Map<Long, Entry> latest = new LinkedHashMap<>();
+
+        for (Pending pending : batch) {
+            Entry entry = pending.entry();
+            transactions.add(Transaction.builder()
+                    .transactionType(entry.transactionType())
+                    .transactionResultType(entry.transactionResultType())
+                    .account(accountRepository.getReferenceById(entry.accountId()))
+                    .amount(entry.amount())
+                    .balanceSnapshot(entry.balanceSnapshot())
+                    .transactionId(entry.transactionId())
+                    .transactedAt(entry.transactedAt())
+                    .build());
+            if (entry.balanceSeq() != null) {
+                latest.merge(entry.accountId(), entry, (saved, next) ->
+                        next.balanceSeq() > saved.balanceSeq() ? next : saved);
+            }
+        }
+
+        transactionRepository.saveAllInBatches(transactions);
+        transactions.forEach(transactionJournal::append);
+        latest.forEach((accountId, entry) -> accountRepository.updateBalanceIfNewer(
+                accountId, entry.balanceSnapshot(), entry.balanceSeq()));
+    }
+
+    // 파일을 다른 이름으로 옮긴 뒤 읽으므로, 읽는 동안 새로 넘친 건은 새 파일에 쌓인다
+    private void replayOverflow() {
+        Path replaying = overflowPath.resolveSibling(overflowPath.getFileName() + ".replay");
+        try {
+            synchronized (overflowPath) {
+                if (!Files.exists(replaying)) {
+                    if (!Files.exists(overflowPath)) {
+                        return;
+                    }
+                    Files.move(overflowPath, replaying, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            List<Pending> entries = Files.readAllLines(replaying, StandardCharsets.UTF_8).stream()
+                    .filter(line -> !line.isBlank())
+                    .map(Pending::parse)
+                    .toList();
+            boolean available = true;
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                List<Pending> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+                if (available) {
+                    available = writeOrSpill(batch);
+                } else {
+                    // DB 가 내려가 있으면 남은 건은 시도하지 않고 다시 파일로
+                    appendTo(overflowPath, batch);
+                }
+            }
+            Files.delete(replaying);
+            if (available) {
+                log.info("Write-behind replayed {} entries from {}", entries.size(), overflowPath);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void appendTo(Path path, List<Pending> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        synchronized (overflowPath) {
+            try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (Pending pending : entries) {
+                    out.write(pending.format());
+                    out.newLine();
+                }
+            } catch (IOException e) {
+                log.error("=====Write-behind file write failed, {} entries lost===== {}",
+                        entries.size(), entries, e);
+            }
+        }
+    }
+
+    private static boolean isUnavailable(RuntimeException e) {
+        return e instanceof CannotCreateTransactionException
+                || e instanceof TransientDataAccessException;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Write-behind flush failed, {} entries pending", queue.size(), e);
+        }
+    }
+
+    public record Entry(Long accountId,
+                        Long accountUserId,
+                        TransactionType transactionType,
+                        TransactionResultType transactionResultType,
+                        Long amount,
+                        Long balanceSnapshot,
+                        Long balanceSeq,
+                        String transactionId,
+                        LocalDateTime transactedAt) {
+    }
+
+    // 파일에 남기는 한 줄 (저장에 실패한 횟수 포함, 잔액 순번과 소유자 id 는 맨 뒤)
+    // 순번이 없는 이전 형식의 줄은 거래만 저장하고 잔액은 바꾸지 않는다 (순서를 알 수 없으므로 대사에 맡긴다)
+    record Pending(Entry entry, int attempts) {
+
+        Pending failed() {
+            return new Pending(entry, attempts + 1);
+        }
+
+        String format() {
+            return String.join(SEPARATOR, String.valueOf(attempts),
+                    String.valueOf(entry.accountId()), entry.transactionType().name(),
+                    entry.transactionResultType().name(), String.valueOf(entry.amount()),
+                    String.valueOf(entry.balanceSnapshot()), entry.transactionId(),
+                    entry.transactedAt().toString(), String.valueOf(entry.balanceSeq()),
+                    String.valueOf(entry.accountUserId()));
+        }
+
+        static Pending parse(String line) {
+            String[] fields = line.split(SEPARATOR);
+            return new Pending(new Entry(Long.valueOf(fields[1]),
+                    fields.length > 9 && !"null".equals(fields[9]) ? Long.valueOf(fields[9]) : null,
+                    TransactionType.valueOf(fields[2]),
+                    TransactionResultType.valueOf(fields[3]),
+                    Long.valueOf(fields[4]),
+                    Long.valueOf(fields[5]),
+                    fields.length > 8 && !"null".equals(fields[8]) ? Long.valueOf(fields[8]) : null,
+                    fields[6],
+                    LocalDateTime.parse(fields[7])),
+                    Integer.parseInt(fields[0]));
+        }
+    }
+}
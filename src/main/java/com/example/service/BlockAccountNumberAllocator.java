@@ -0,0 +1,35 @@
+package com.example.service;
+
+/*
+* 예약한 범위 [next, limit) 안에서 번호를 하나씩 나눠주는 공통 로직
+* 하위 클래스는 다음 범위의 시작 번호만 구해오면 된다
+* */
+public abstract class BlockAccountNumberAllocator implements AccountNumberAllocator {
+    protected final int blockSize;
+
+    private long next;
+    private long limit;
+
+    protected BlockAccountNumberAllocator(int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("account.number.block-size must be positive");
+        }
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public synchronized String nextAccountNumber() {
+        if (next >= limit) {
+            next = reserveBlock();
+            limit = next + blockSize;
+        }
+        long accountNumber = next++;
+        if (accountNumber > LAST_ACCOUNT_NUMBER) {
+            throw new IllegalStateException("Account number exhausted : " + accountNumber);
+        }
+        return Long.toString(accountNumber);
+    }
+
+    // blockSize 개의 번호를 예약하고 그 시작 번호를 리턴
+    protected abstract long reserveBlock();
+}
@@ -0,0 +1,84 @@
+package com.example.service;
+
+import com.example.dto.BalanceResult;
+import com.example.dto.UseBalance;
+import com.example.exception.AccountException;
+import com.example.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+* 여러 건의 잔액 사용을 한 요청으로 처리 (POST /transaction/use/batch)
+* - 계좌별로 묶어서 계좌마다 lock 을 한 번만 잡고, 같은 계좌 안에서는 요청 순서대로 차감
+* - 거래 내역은 계좌별로 모아서 batch insert (TransactionService.useBalanceBatch)
+* - 건별 결과를 요청 순서대로 돌려주고, 한 계좌가 실패해도 다른 계좌는 계속 처리한다
+* account.balance.mode 가 LOCKED 가 아니면 해당 모드의 엔진이 계좌별 묶음을 처리한다
+* */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkBalanceService {
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final Optional<BalanceEngine> balanceEngine;
+
+    public List<BalanceResult> useBalances(List<UseBalance.Request> requests) {
+        // 계좌번호 -> 요청 위치 (처음 나온 계좌 순서대로)
+        Map<String, List<Integer>> indexesByAccount = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            indexesByAccount.computeIfAbsent(requests.get(i).getAccountNumber(),
+                    accountNumber -> new ArrayList<>()).add(i);
+        }
+
+        BalanceResult[] results = new BalanceResult[requests.size()];
+        indexesByAccount.forEach((accountNumber, indexes) -> {
+            List<BalanceResult> accountResults = useBalances(accountNumber,
+                    indexes.stream().map(requests::get).toList());
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = accountResults.get(i);
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    private List<BalanceResult> useBalances(String accountNumber, List<UseBalance.Request> requests) {
+        try {
+            if (balanceEngine.isPresent()) {
+                return balanceEngine.get().useBalances(accountNumber, requests);
+            }
+            return useBalancesLocked(accountNumber, requests);
+        } catch (AccountException e) {
+            // lock 을 잡지 못한 경우 등 계좌 단위 실패 - 이 계좌의 건은 모두 실패
+            return failAll(requests, e);
+        } catch (RuntimeException e) {
+            log.error("Batch use failed for accountNumber : {}", accountNumber, e);
+            return failAll(requests, new AccountException(ErrorCode.INTERNAL_SERVER_ERROR));
+        }
+    }
+
+    // 커밋된 뒤에 lock 을 푼다 (useBalanceBatch 의 트랜잭션은 lock 안에서 끝난다)
+    private List<BalanceResult> useBalancesLocked(String accountNumber,
+                                                  List<UseBalance.Request> requests) {
+        lockService.lock(accountNumber);
+        try {
+            return transactionService.useBalanceBatch(accountNumber, requests);
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    private static List<BalanceResult> failAll(List<UseBalance.Request> requests,
+                                               AccountException exception) {
+        return requests.stream()
+                .map(request -> BalanceResult.failure(exception))
+                .toList();
+    }
+}
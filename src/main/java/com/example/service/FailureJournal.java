@@ -0,0 +1,184 @@
+package com.example.service;
+
+import com.example.type.TransactionType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/*
+* 잔액 사용/취소 실패 거래(F)를 비동기로 저장
+* - 요청 쪽은 큐에 넣고 바로 리턴 (lock 을 잡은 채로 계좌 조회 + INSERT 하지 않음)
+* - 백그라운드에서 flush-interval 마다 batch-size 씩 한 트랜잭션으로 저장
+* - 큐가 가득 차면 overflow 파일에 한 줄씩 append 하고, 큐가 비었을 때 파일을 다시 읽어서 저장
+* - 종료 시 남은 건을 저장하고, 저장하지 못한 건은 overflow 파일에 남겨 다음 시작 때 저장
+* */
+@Slf4j
+@Component
+public class FailureJournal {
+    private static final String SEPARATOR = "\t";
+
+    private final TransactionService transactionService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final int batchSize;
+    private final Path overflowPath;
+
+    private final BlockingQueue<Entry> queue;
+    private final ScheduledExecutorService writer =
+            Executors.newSingleThreadScheduledExecutor();
+
+    public FailureJournal(
+            TransactionService transactionService,
+            TransactionIdGenerator transactionIdGenerator,
+            @Value("${account.failure-journal.batch-size:500}") int batchSize,
+            @Value("${account.failure-journal.capacity:10000}") int capacity,
+            @Value("${account.failure-journal.flush-interval-millis:200}") long flushIntervalMillis,
+            @Value("${account.failure-journal.overflow-path:failure-journal.log}") String overflowPath) {
+        this.transactionService = transactionService;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.batchSize = batchSize;
+        this.overflowPath = Path.of(overflowPath);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        writer.scheduleWithFixedDelay(this::flushQuietly,
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void record(TransactionType transactionType, String accountNumber, Long amount) {
+        Entry entry = new Entry(transactionType, accountNumber, amount, LocalDateTime.now(),
+                transactionIdGenerator.nextTransactionId());
+        if (!queue.offer(entry)) {
+            // DB 가 따라오지 못하는 동안에는 요청을 막지 않고 파일에 남긴다
+            appendOverflow(List.of(entry));
+        }
+    }
+
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    // 스케줄러와 종료 처리에서 동시에 불려도 같은 건을 두 번 저장하지 않도록 synchronized
+    public synchronized void flush() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+        replayOverflow();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            List<Entry> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            appendOverflow(remaining);
+            log.error("Failure journal flush failed on shutdown, {} entries kept in {}",
+                    remaining.size(), overflowPath, e);
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        try {
+            transactionService.saveFailedTransactions(batch);
+        } catch (RuntimeException e) {
+            // 다음 주기에 파일에서 다시 읽어서 저장한다
+            appendOverflow(batch);
+            throw e;
+        }
+    }
+
+    // 파일을 다른 이름으로 옮긴 뒤 읽으므로, 읽는 동안 새로 넘친 건은 새 파일에 쌓인다
+    private void replayOverflow() {
+        Path replaying = overflowPath.resolveSibling(overflowPath.getFileName() + ".replay");
+        try {
+            synchronized (overflowPath) {
+                if (!Files.exists(replaying)) {
+                    if (!Files.exists(overflowPath)) {
+                        return;
+                    }
+                    Files.move(overflowPath, replaying, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            List<Entry> entries = Files.readAllLines(replaying, StandardCharsets.UTF_8).stream()
+                    .filter(line -> !line.isBlank())
+                    .map(Entry::parse)
+                    .toList();
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                try {
+                    transactionService.saveFailedTransactions(
+                            entries.subList(from, Math.min(from + batchSize, entries.size())));
+                } catch (RuntimeException e) {
+                    // 이미 저장한 건은 빼고 남은 건만 다음에 다시 읽는다
+                    Files.write(replaying, entries.subList(from, entries.size()).stream()
+                            .map(Entry::format).toList(), StandardCharsets.UTF_8);
+                    throw e;
+                }
+            }
+            Files.delete(replaying);
+            log.info("Failure journal replayed {} entries from {}", entries.size(), overflowPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void appendOverflow(List<Entry> entries) {
+        synchronized (overflowPath) {
+            try (BufferedWriter out = Files.newBufferedWriter(overflowPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (Entry entry : entries) {
+                    out.write(entry.format());
+                    out.newLine();
+                }
+            } catch (IOException e) {
+                log.error("Failure journal overflow write failed, {} entries lost", entries.size(), e);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failure journal flush failed, {} entries pending", queue.size(), e);
+        }
+    }
+
+    public record Entry(TransactionType transactionType,
+                        String accountNumber,
+                        Long amount,
+                        LocalDateTime transactedAt,
+                        String transactionId) {
+
+        String format() {
+            return String.join(SEPARATOR, transactionType.name(), accountNumber,
+                    String.valueOf(amount), transactedAt.toString(), transactionId);
+        }
+
+        static Entry parse(String line) {
+            String[] fields = line.split(SEPARATOR);
+            return new Entry(TransactionType.valueOf(fields[0]), fields[1],
+                    Long.valueOf(fields[2]), LocalDateTime.parse(fields[3]), fields[4]);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.service;
+
+import com.example.aop.Idempotent;
+import com.example.cache.IdempotencyStore;
+import com.example.exception.AccountException;
+import com.example.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/*
+* @Idempotent 메서드의 Idempotency-Key 처리
+* 계좌 lock(LockAopAspect)보다 바깥에서 실행되어야 하므로 가장 먼저 적용
+* */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class IdempotencyAspect {
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    @Around("@annotation(idempotent) && args(request)")
+    public Object aroundMethod(
+            ProceedingJoinPoint proceedingJoinPoint,
+            Idempotent idempotent,
+            Object request
+    ) throws Throwable {
+        String idempotencyKey = idempotencyKey();
+        if (idempotencyKey == null) {
+            return proceedingJoinPoint.proceed();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+
+        // 같은 key 라도 사용/취소는 따로 저장
+        String key = proceedingJoinPoint.getSignature().getName() + ":" + idempotencyKey;
+        return idempotencyStore.execute(key, fingerprint(request),
+                () -> proceed(proceedingJoinPoint));
+    }
+
+    private static String idempotencyKey() {
+        if (RequestContextHolder.getRequestAttributes()
+                instanceof ServletRequestAttributes attributes) {
+            return attributes.getRequest().getHeader(HEADER);
+        }
+        return null;
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+    }
+
+    private static Object proceed(ProceedingJoinPoint proceedingJoinPoint) {
+        try {
+            return proceedingJoinPoint.proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
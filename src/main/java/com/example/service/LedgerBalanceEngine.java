@@ -0,0 +1,742 @@
+package com.example.service;
+
+import com.example.cache.AccountInfoCache;
+import com.example.cache.NegativeLookupGuard;
+import com.example.cache.TransactionDtoCache;
+import com.example.domain.Account;
+import com.example.domain.AccountStatus;
+import com.example.domain.Transaction;
+import com.example.dto.BalanceResult;
+import com.example.dto.TransactionDto;
+import com.example.dto.UseBalance;
+import com.example.event.AccountChangedEvent;
+import com.example.exception.AccountException;
+import com.example.journal.TransactionJournal;
+import com.example.repository.AccountRepository;
+import com.example.repository.ArchivedTransactionRepository;
+import com.example.repository.TransactionRepository;
+import com.example.service.LedgerRingBuffer.Kind;
+import com.example.service.LedgerRingBuffer.RecentTransaction;
+import com.example.service.LedgerRingBuffer.Slot;
+import com.example.type.ErrorCode;
+import com.example.type.TransactionResultType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+* 잔액 변경을 스레드 하나가 순서대로 처리하는 엔진 (account.balance.mode = LEDGER)
+* - 요청은 LedgerRingBuffer 에 넣고 결과를 기다린다 (계좌 lock 없음)
+*   계좌/원 거래가 테이블에 없으면 요청 스레드가 버퍼에 넣기 전에 DB 에서 읽어 slot 에 실어 보낸다
+* - 처리 스레드 : 메모리의 계좌 테이블에서 검증 + 잔액 변경 (검증 순서, 에러 코드는 TransactionService 와 같다)
+*   DB 를 읽지 않으므로 느린 조회 하나가 뒤의 요청을 막지 않는다
+*   (사용자 존재 여부는 따로 조회하지 않으므로 없는 사용자는 USER_ACCOUNT_UN_MATCH)
+* - 저장 스레드 : 처리된 건을 batch-size 씩 한 트랜잭션으로 거래 내역(S/F) + 마지막 잔액을 저장하고
+*   커밋된 뒤(TransactionJournal 에도 기록된 뒤) 잔액이 바뀐 사용자의 계좌 목록 캐시를 지우고 요청 스레드에 결과를 돌려준다
+*   persist-attempts 번 실패하면 한 건씩 저장하고, 그래도 저장하지 못한 건은 quarantine 파일에 남기고
+*   INTERNAL_SERVER_ERROR 로 응답한다 (메모리 잔액에서도 되돌리고, 그 사이 처리된 같은 계좌 건의 잔액 스냅샷도 고친다)
+* - 버퍼가 가득 차서 claim-timeout 안에 자리를 받지 못하면 ACCOUNT_TRANSACTION_LOCK
+* - 시작 시 스냅샷 파일 + 그 이후의 거래 저널로 올려 둘 계좌를 정하고, 잔액/상태는 DB 에서 다시 읽는다
+*   (스냅샷/저널은 fsync 하지 않으므로 DB 보다 앞서거나 뒤처질 수 있다 - 응답은 DB 커밋 후이므로 DB 가 기준)
+*
+* 잔액은 이 서버의 메모리가 기준이므로 서버 한 대에서만 써야 한다
+* */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.balance.mode", havingValue = "LEDGER")
+public class LedgerBalanceEngine implements BalanceEngine {
+    private static final int RESTORE_PAGE_SIZE = 1000;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionJournal transactionJournal;
+    private final TransactionDtoCache transactionDtoCache;
+    private final AccountInfoCache accountInfoCache;
+    private final NegativeLookupGuard negativeLookupGuard;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final int batchSize;
+    private final String snapshotPath;
+    private final long snapshotEvery;
+    private final long claimTimeoutNanos;
+    private final int persistAttempts;
+    private final Path quarantinePath;
+
+    private final LedgerRingBuffer ringBuffer;
+    private final Thread processor = new Thread(this::processLoop, "ledger-processor");
+    private final Thread persister = new Thread(this::persistLoop, "ledger-persister");
+    private volatile boolean accepting;
+    private volatile boolean running;
+
+    // 처리 스레드만 바꾸고, 요청 스레드는 DB 에서 읽어야 하는지 확인만 한다
+    private final Map<String, LedgerAccount> accounts = new ConcurrentHashMap<>();
+    private final Map<String, RecentTransaction> recentTransactions = new ConcurrentHashMap<>();
+    private final Deque<String> recentOrder = new ArrayDeque<>();
+    private final int recentLimit;
+    // 커밋된 계좌 상태 변경 (이벤트 스레드가 DB 에서 읽고, 처리 스레드가 그 계좌를 다음에 쓸 때 반영)
+    private final Map<String, AccountStatus> statusChanges = new ConcurrentHashMap<>();
+    // 저장하지 못한 성공 건의 잔액 되돌리기 (저장 스레드가 넣고, 처리 스레드가 다음 건을 처리하기 전에 반영)
+    private final Queue<BalanceCorrection> corrections = new ConcurrentLinkedQueue<>();
+
+    // 저장 스레드만 사용 (DB 에 저장된 상태, 스냅샷용)
+    private final Map<String, LedgerSnapshot.Account> persistedAccounts = new HashMap<>();
+    // 처리 스레드가 반영하기 전에 처리된 건이 아직 저장되지 않았을 수 있는 되돌리기
+    private final List<BalanceCorrection> pendingCorrections = new ArrayList<>();
+    private long persistedSinceSnapshot;
+
+    public LedgerBalanceEngine(
+            AccountRepository accountRepository,
+            TransactionRepository transactionRepository,
+            ArchivedTransactionRepository archivedTransactionRepository,
+            TransactionTemplate transactionTemplate,
+            TransactionJournal transactionJournal,
+            TransactionDtoCache transactionDtoCache,
+            AccountInfoCache accountInfoCache,
+            NegativeLookupGuard negativeLookupGuard,
+            TransactionIdGenerator transactionIdGenerator,
+            @Value("${account.balance.ledger.ring-size:65536}") int ringSize,
+            @Value("${account.balance.ledger.batch-size:1000}") int batchSize,
+            @Value("${account.balance.ledger.recent-transactions:131072}") int recentTransactionCount,
+            @Value("${account.balance.ledger.snapshot-path:}") String snapshotPath,
+            @Value("${account.balance.ledger.snapshot-every:100000}") long snapshotEvery,
+            @Value("${account.balance.ledger.claim-timeout-millis:5000}") long claimTimeoutMillis,
+            @Value("${account.balance.ledger.persist-attempts:5}") int persistAttempts,
+            @Value("${account.balance.ledger.quarantine-path:ledger.quarantine}") String quarantinePath) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.transactionJournal = transactionJournal;
+        this.transactionDtoCache = transactionDtoCache;
+        this.accountInfoCache = accountInfoCache;
+        this.negativeLookupGuard = negativeLookupGuard;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.batchSize = batchSize;
+        this.snapshotPath = snapshotPath;
+        this.snapshotEvery = snapshotEvery;
+        this.claimTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(claimTimeoutMillis);
+        this.persistAttempts = persistAttempts;
+        this.quarantinePath = Path.of(quarantinePath);
+        this.ringBuffer = new LedgerRingBuffer(ringSize);
+        // 저장되기 전의 거래는 DB 에 없으므로 버퍼 크기 이상은 메모리에 남겨 둔다
+        this.recentLimit = Math.max(recentTransactionCount, ringSize);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        restore();
+        running = true;
+        accepting = true;
+        processor.start();
+        persister.start();
+    }
+
+    @Override
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        return await(publish(Kind.USE, userId, null, accountNumber, amount,
+                loadAccount(accountNumber)));
+    }
+
+    @Override
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        return await(publish(Kind.CANCEL, null, transactionId, accountNumber, amount,
+                loadAccount(accountNumber)));
+    }
+
+    // 계좌 해지 등 DB 에서 바뀐 상태를 계좌 테이블에 반영 (잔액은 이 엔진이 기준이므로 상태만)
+    // 커밋 후에 읽으므로 이전에 요청 스레드가 읽어 둔 계좌보다 항상 새 상태다
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        accountRepository.findByAccountNumber(event.getAccountNumber())
+                .ifPresent(entity -> statusChanges.put(event.getAccountNumber(),
+                        entity.getAccountStatus()));
+    }
+
+    // 모두 버퍼에 넣은 뒤에 기다린다 (한 건씩 기다리지 않으므로 같은 저장 묶음에 들어간다)
+    @Override
+    public List<BalanceResult> useBalances(String accountNumber, List<UseBalance.Request> requests) {
+        List<CompletableFuture<TransactionDto>> results = new ArrayList<>(requests.size());
+        LedgerSnapshot.Account loadedAccount = null;
+        AccountException loadFailure = null;
+        try {
+            // 같은 계좌이므로 한 번만 읽는다
+            loadedAccount = loadAccount(accountNumber);
+        } catch (AccountException e) {
+            loadFailure = e;
+        }
+        for (UseBalance.Request request : requests) {
+            try {
+                if (loadFailure != null) {
+                    throw loadFailure;
+                }
+                results.add(publish(Kind.USE, request.getUserId(), null,
+                        accountNumber, request.getAmount(), loadedAccount));
+            } catch (AccountException e) {
+                results.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        List<BalanceResult> balanceResults = new ArrayList<>(results.size());
+        for (CompletableFuture<TransactionDto> result : results) {
+            try {
+                balanceResults.add(BalanceResult.success(await(result)));
+            } catch (AccountException e) {
+                balanceResults.add(BalanceResult.failure(e));
+            }
+        }
+        return balanceResults;
+    }
+
+    // DB 조회는 순번을 받기 전에 끝낸다 (받은 순번을 publish 하기 전까지 처리 스레드가 기다리므로)
+    private CompletableFuture<TransactionDto> publish(Kind kind, Long userId, String originalTransactionId,
+                                                      String accountNumber, Long amount,
+                                                      LedgerSnapshot.Account loadedAccount) {
+        if (!accepting) {
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+        boolean originalLoaded = kind == Kind.CANCEL
+                && !recentTransactions.containsKey(originalTransactionId);
+        RecentTransaction loadedOriginal = originalLoaded
+                ? loadTransaction(originalTransactionId) : null;
+        boolean originalArchived = originalLoaded && loadedOriginal == null
+                && isArchived(originalTransactionId);
+        CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+        long sequence = ringBuffer.claim(claimTimeoutNanos);
+        Slot slot = ringBuffer.slot(sequence);
+        slot.kind = kind;
+        slot.userId = userId;
+        slot.originalTransactionId = originalTransactionId;
+        slot.accountNumber = accountNumber;
+        slot.amount = amount;
+        slot.result = result;
+        slot.loadedAccount = loadedAccount;
+        slot.loadedOriginal = loadedOriginal;
+        slot.originalLoaded = originalLoaded;
+        slot.originalArchived = originalArchived;
+        ringBuffer.publish(sequence);
+        return result;
+    }
+
+    // 아직 계좌 테이블에 없는 계좌만 DB 에서 읽는다 (처리 스레드는 먼저 들어온 쪽을 쓴다)
+    private LedgerSnapshot.Account loadAccount(String accountNumber) {
+        if (accounts.containsKey(accountNumber)
+                || !negativeLookupGuard.mightContainAccount(accountNumber)) {
+            return null;
+        }
+        try {
+            return accountRepository.findByAccountNumber(accountNumber)
+                    .map(LedgerBalanceEngine::snapshotOf)
+                    .orElse(null);
+        } catch (RuntimeException e) {
+            log.error("Ledger account load failed : {}", accountNumber, e);
+            throw new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private RecentTransaction loadTransaction(String transactionId) {
+        if (!negativeLookupGuard.mightContainTransaction(transactionId)) {
+            return null;
+        }
+        try {
+            return findTransaction(transactionId);
+        } catch (RuntimeException e) {
+            log.error("Ledger transaction load failed : {}", transactionId, e);
+            throw new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // archive 로 옮겨진 거래는 1년이 지난 거래 (TransactionService.getTransaction 과 같이 TOO_OLD_ORDER_TO_CANCEL)
+    private boolean isArchived(String transactionId) {
+        try {
+            return archivedTransactionRepository.findByTransactionId(transactionId).isPresent();
+        } catch (RuntimeException e) {
+            log.error("Ledger archived transaction load failed : {}", transactionId, e);
+            throw new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private RecentTransaction findTransaction(String transactionId) {
+        return transactionRepository.findByTransactionId(transactionId)
+                .map(entity -> new RecentTransaction(entity.getAccount().getId(),
+                        entity.getAmount(), entity.getTransactedAt()))
+                .orElse(null);
+    }
+
+    // 버퍼에 들어간 요청은 취소할 수 없으므로 결과가 나올 때까지 기다린다
+    private static TransactionDto await(CompletableFuture<TransactionDto> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    // ---------------------------------------------------------------- 처리 스레드
+
+    private void processLoop() {
+        long next = ringBuffer.processed().get() + 1;
+        while (running) {
+            if (!ringBuffer.isPublished(next)) {
+                LedgerRingBuffer.idle();
+                continue;
+            }
+            Slot slot = ringBuffer.slot(next);
+            applyCorrections(next);
+            try {
+                process(slot);
+            } catch (RuntimeException e) {
+                // 잔액을 바꾼 뒤에 실패했으면 되돌린다 (저장되지 않는 건이 메모리 잔액에 남지 않도록)
+                rollback(slot);
+                log.error("Ledger command failed : {}", slot.accountNumber, e);
+                slot.errorCode = ErrorCode.INTERNAL_SERVER_ERROR;
+                slot.accountId = null;
+            }
+            ringBuffer.processed().set(next++);
+        }
+    }
+
+    private void rollback(Slot slot) {
+        if (slot.transactionId != null) {
+            recentTransactions.remove(slot.transactionId);
+        }
+        if (slot.balanceChange != 0) {
+            accounts.get(slot.accountNumber).balance -= slot.balanceChange;
+            slot.balanceChange = 0;
+        }
+    }
+
+    // sequence 부터 처리하는 건은 되돌린 잔액을 쓴다
+    private void applyCorrections(long sequence) {
+        BalanceCorrection correction;
+        while ((correction = corrections.poll()) != null) {
+            LedgerAccount account = accounts.get(correction.accountNumber);
+            if (account != null) {
+                account.balance += correction.change;
+            }
+            recentTransactions.remove(correction.transactionId);
+            correction.appliedAt = sequence;
+        }
+    }
+
+    private void process(Slot slot) {
+        switch (slot.kind) {
+            case USE -> use(slot);
+            case CANCEL -> cancel(slot);
+        }
+    }
+
+    private void use(Slot slot) {
+        LedgerAccount account = account(slot);
+        if (account == null) {
+            // 계좌가 없으면 실패 거래도 남길 수 없다
+            slot.errorCode = ErrorCode.ACCOUNT_NOT_FOUND;
+            return;
+        }
+        if (!Objects.equals(slot.userId, account.userId)) {
+            slot.errorCode = ErrorCode.USER_ACCOUNT_UN_MATCH;
+        } else if (account.status != AccountStatus.IN_USE) {
+            slot.errorCode = ErrorCode.ACCOUNT_ALREADY_UNREGISTERED;
+        } else if (account.balance < slot.amount) {
+            slot.errorCode = ErrorCode.AMOUNT_EXCEED_BALANCE;
+        }
+        record(slot, account);
+        if (slot.errorCode == null) {
+            remember(slot.transactionId,
+                    new RecentTransaction(account.id, slot.amount, slot.transactedAt));
+            change(slot, account, -slot.amount);
+        }
+    }
+
+    private void cancel(Slot slot) {
+        RecentTransaction original = transaction(slot);
+        LedgerAccount account = account(slot);
+        if (account == null) {
+            slot.errorCode = slot.originalArchived ? ErrorCode.TOO_OLD_ORDER_TO_CANCEL
+                    : original == null ? ErrorCode.TRANSACTION_NOT_FOUND : ErrorCode.ACCOUNT_NOT_FOUND;
+            return;
+        }
+        if (slot.originalArchived) {
+            slot.errorCode = ErrorCode.TOO_OLD_ORDER_TO_CANCEL;
+        } else if (original == null) {
+            slot.errorCode = ErrorCode.TRANSACTION_NOT_FOUND;
+        } else if (original.accountId() != account.id) {
+            slot.errorCode = ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH;
+        } else if (original.amount() != slot.amount) {
+            slot.errorCode = ErrorCode.CANCEL_MUST_FULLY;
+        } else if (original.transactedAt().isBefore(LocalDateTime.now().minusYears(1))) {
+            slot.errorCode = ErrorCode.TOO_OLD_ORDER_TO_CANCEL;
+        }
+        record(slot, account);
+        if (slot.errorCode == null) {
+            change(slot, account, slot.amount);
+        }
+    }
+
+    // 성공/실패 모두 거래 내역으로 남긴다 (기존 saveFailed... 와 동일)
+    // 거래 id 등을 먼저 정하고 잔액은 마지막에 바꾼다 (중간에 실패하면 잔액은 그대로)
+    private void record(Slot slot, LedgerAccount account) {
+        slot.accountId = account.id;
+        slot.accountUserId = account.userId;
+        slot.accountStatus = account.status;
+        slot.balanceSnapshot = account.balance;
+        slot.transactionId = newTransactionId();
+        slot.transactedAt = LocalDateTime.now();
+    }
+
+    private static void change(Slot slot, LedgerAccount account, long amount) {
+        account.balance += amount;
+        slot.balanceChange = amount;
+        slot.balanceSnapshot = account.balance;
+    }
+
+    private LedgerAccount account(Slot slot) {
+        LedgerAccount account = accounts.get(slot.accountNumber);
+        if (account == null && slot.loadedAccount != null) {
+            account = LedgerAccount.from(slot.loadedAccount);
+            accounts.put(slot.accountNumber, account);
+        }
+        if (account != null) {
+            AccountStatus changed = statusChanges.remove(slot.accountNumber);
+            if (changed != null) {
+                account.status = changed;
+            }
+        }
+        return account;
+    }
+
+    private RecentTransaction transaction(Slot slot) {
+        RecentTransaction transaction = recentTransactions.get(slot.originalTransactionId);
+        if (transaction != null || slot.originalLoaded) {
+            return transaction != null ? transaction : slot.loadedOriginal;
+        }
+        // 요청 스레드가 확인한 뒤에 밀려난 경우만 - 버퍼 크기 이상 지난 거래이므로 이미 DB 에 있다
+        return findTransaction(slot.originalTransactionId);
+    }
+
+    private void remember(String transactionId, RecentTransaction transaction) {
+        recentTransactions.put(transactionId, transaction);
+        recentOrder.addLast(transactionId);
+        if (recentOrder.size() > recentLimit) {
+            recentTransactions.remove(recentOrder.pollFirst());
+        }
+    }
+
+    private String newTransactionId() {
+        String transactionId = transactionIdGenerator.nextTransactionId();
+        negativeLookupGuard.addTransaction(transactionId);
+        return transactionId;
+    }
+
+    // ---------------------------------------------------------------- 저장 스레드
+
+    private void persistLoop() {
+        long next = ringBuffer.persisted().get() + 1;
+        while (running) {
+            long available = ringBuffer.processed().get();
+            if (available < next) {
+                LedgerRingBuffer.idle();
+                continue;
+            }
+            long last = Math.min(available, next + batchSize - 1);
+            correctSnapshots(next, last, pendingCorrections);
+            persistWithRetry(next, last);
+            evictAccountInfo(next, last);
+            for (long sequence = next; sequence <= last; sequence++) {
+                Slot slot = ringBuffer.slot(sequence);
+                complete(slot);
+                slot.clear();
+            }
+            // 반영 전에 처리된 건이 모두 저장된 되돌리기는 더 볼 필요가 없다
+            pendingCorrections.removeIf(correction -> correction.appliedAt <= last + 1);
+            ringBuffer.persisted().set(last);
+            persistedSinceSnapshot += last - next + 1;
+            next = last + 1;
+            if (persistedSinceSnapshot >= snapshotEvery) {
+                saveSnapshot();
+            }
+        }
+    }
+
+    private void persistWithRetry(long first, long last) {
+        // 메모리에는 이미 반영되었으므로 몇 번 재시도한다 (그동안 버퍼가 차면 요청은 claim-timeout 까지 기다린다)
+        for (int attempt = 1; attempt <= persistAttempts; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(first, last));
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ledger persist failed (attempt {}), {} ~ {}", attempt, first, last, e);
+                if (!running) {
+                    break;
+                }
+                sleep(Math.min(1000L, 10L * attempt));
+            }
+        }
+        // 계속 실패하면 한 건씩 저장해서 저장할 수 있는 건은 저장하고, 나머지는 quarantine 으로 (다음 묶음을 막지 않는다)
+        for (long sequence = first; sequence <= last; sequence++) {
+            long single = sequence;
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(single, single));
+            } catch (RuntimeException e) {
+                Slot slot = ringBuffer.slot(single);
+                quarantine(slot, e);
+                if (slot.balanceChange != 0) {
+                    revert(slot, single, last);
+                }
+            }
+        }
+    }
+
+    // 저장하지 못한 성공 건을 메모리 잔액에서도 되돌린다 (뒤의 건들은 이 건이 반영된 잔액으로 처리되었다)
+    private void revert(Slot slot, long sequence, long last) {
+        BalanceCorrection correction = new BalanceCorrection(slot.accountNumber, slot.accountId,
+                slot.transactionId, -slot.balanceChange);
+        slot.balanceSnapshot += correction.change;
+        slot.balanceChange = 0;
+        correctSnapshots(sequence + 1, last, List.of(correction));
+        pendingCorrections.add(correction);
+        corrections.add(correction);
+    }
+
+    // 처리 스레드가 되돌리기를 반영하기 전에 처리된 같은 계좌 건은 잔액 스냅샷을 같이 고친다
+    private void correctSnapshots(long first, long last, List<BalanceCorrection> corrections) {
+        for (BalanceCorrection correction : corrections) {
+            for (long sequence = first; sequence <= last && sequence < correction.appliedAt; sequence++) {
+                Slot slot = ringBuffer.slot(sequence);
+                if (Objects.equals(slot.accountId, correction.accountId)) {
+                    slot.balanceSnapshot += correction.change;
+                }
+            }
+        }
+    }
+
+    private void quarantine(Slot slot, RuntimeException cause) {
+        if (slot.accountId == null) {
+            return;
+        }
+        String line = String.join("\t", slot.transactionId, String.valueOf(slot.accountId),
+                slot.accountNumber, slot.transactionType().name(), slot.resultType().name(),
+                String.valueOf(slot.amount), String.valueOf(slot.balanceSnapshot),
+                slot.transactedAt.toString());
+        log.error("=====Ledger transaction quarantined===== {}", line, cause);
+        try (BufferedWriter out = Files.newBufferedWriter(quarantinePath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(line);
+            out.newLine();
+        } catch (IOException e) {
+            log.error("Ledger quarantine write failed : {}", line, e);
+        }
+        // 저장되지 않았으므로 성공으로 응답하지 않는다
+        slot.errorCode = ErrorCode.INTERNAL_SERVER_ERROR;
+    }
+
+    private void persist(long first, long last) {
+        List<Transaction> transactions = new ArrayList<>();
+        Map<Long, Long> lastBalances = new LinkedHashMap<>();
+        for (long sequence = first; sequence <= last; sequence++) {
+            Slot slot = ringBuffer.slot(sequence);
+            if (slot.accountId == null) {
+                continue;
+            }
+            transactions.add(Transaction.builder()
+                    .transactionType(slot.transactionType())
+                    .transactionResultType(slot.resultType())
+                    .account(accountRepository.getReferenceById(slot.accountId))
+                    .amount(slot.amount)
+                    .balanceSnapshot(slot.balanceSnapshot)
+                    .transactionId(slot.transactionId)
+                    .transactedAt(slot.transactedAt)
+                    .build());
+            if (slot.resultType() == TransactionResultType.S) {
+                lastBalances.put(slot.accountId, slot.balanceSnapshot);
+            }
+        }
+        transactionRepository.saveAllInBatches(transactions);
+        transactions.forEach(transactionJournal::append);
+        lastBalances.forEach(accountRepository::updateBalance);
+    }
+
+    // 응답하기 전에 지워서 바로 다음 계좌 목록 조회가 저장된 잔액을 읽게 한다 (저장하지 못한 건은 실패로 바뀌어 있다)
+    private void evictAccountInfo(long first, long last) {
+        Set<Long> userIds = new HashSet<>();
+        for (long sequence = first; sequence <= last; sequence++) {
+            Slot slot = ringBuffer.slot(sequence);
+            if (slot.accountId != null && slot.errorCode == null) {
+                userIds.add(slot.accountUserId);
+            }
+        }
+        try {
+            userIds.forEach(accountInfoCache::evict);
+        } catch (RuntimeException e) {
+            log.error("Ledger account info eviction failed", e);
+        }
+    }
+
+    private void complete(Slot slot) {
+        if (slot.accountId != null) {
+            persistedAccounts.put(slot.accountNumber, new LedgerSnapshot.Account(slot.accountId,
+                    slot.accountNumber, slot.accountUserId, slot.accountStatus, slot.balanceSnapshot));
+        }
+        if (slot.result == null) {
+            return;
+        }
+        if (slot.errorCode != null) {
+            log.error("Failed to {} Balance : {}", slot.transactionType(), slot.errorCode);
+            slot.result.completeExceptionally(new AccountException(slot.errorCode));
+            return;
+        }
+        TransactionDto transactionDto = TransactionDto.builder()
+                .accountNumber(slot.accountNumber)
+                .transactionType(slot.transactionType())
+                .transactionResultType(TransactionResultType.S)
+                .amount(slot.amount)
+                .balanceSnapshot(slot.balanceSnapshot)
+                .transactionId(slot.transactionId)
+                .transactedAt(slot.transactedAt)
+                .build();
+        transactionDtoCache.put(transactionDto);
+        slot.result.complete(transactionDto);
+    }
+
+    // ---------------------------------------------------------------- 스냅샷 / 복구
+
+    private void restore() throws IOException {
+        // 저널이 없으면 스냅샷 이후 변경을 알 수 없으므로 DB 에서 읽는다
+        if (snapshotPath.isBlank() || !transactionJournal.isEnabled()) {
+            return;
+        }
+        LedgerSnapshot snapshot = LedgerSnapshot.read(Path.of(snapshotPath));
+        Map<Long, Long> restoredBalances = new HashMap<>();
+        for (LedgerSnapshot.Account saved : snapshot.accounts()) {
+            restoredBalances.put(saved.id(), saved.balance());
+        }
+        long last = transactionJournal.newReader().replay(snapshot.journalSequence() + 1,
+                record -> restoredBalances.put(record.accountId(), record.balanceSnapshot()));
+
+        // 잔액/상태는 DB 값을 쓰고, 스냅샷 + 저널과 다르면 남긴다
+        List<Long> ids = new ArrayList<>(restoredBalances.keySet());
+        int corrected = 0;
+        for (int from = 0; from < ids.size(); from += RESTORE_PAGE_SIZE) {
+            List<Long> page = ids.subList(from, Math.min(from + RESTORE_PAGE_SIZE, ids.size()));
+            for (Account entity : accountRepository.findAllById(page)) {
+                LedgerSnapshot.Account saved = snapshotOf(entity);
+                Long restored = restoredBalances.get(saved.id());
+                if (restored.longValue() != saved.balance()) {
+                    corrected++;
+                    log.warn("Ledger restore : {} balance {} -> {} (DB)",
+                            saved.accountNumber(), restored, saved.balance());
+                }
+                accounts.put(saved.accountNumber(), LedgerAccount.from(saved));
+                persistedAccounts.put(saved.accountNumber(), saved);
+            }
+        }
+        log.info("Ledger restored : {} accounts ({} corrected from DB), journal {} ~ {}",
+                accounts.size(), corrected, snapshot.journalSequence() + 1, last);
+    }
+
+    private void saveSnapshot() {
+        persistedSinceSnapshot = 0;
+        if (snapshotPath.isBlank() || !transactionJournal.isEnabled()) {
+            return;
+        }
+        try {
+            LedgerSnapshot.write(Path.of(snapshotPath),
+                    transactionJournal.lastSequence(), persistedAccounts.values());
+        } catch (IOException e) {
+            log.error("Ledger snapshot save failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        // 이미 받은 요청은 저장까지 끝낸다
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (ringBuffer.persisted().get() < ringBuffer.claimed() && System.nanoTime() < deadline) {
+            sleep(10);
+        }
+        running = false;
+        try {
+            processor.join(1000);
+            persister.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!persister.isAlive()) {
+            saveSnapshot();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class LedgerAccount {
+        private final long id;
+        private final String accountNumber;
+        private final long userId;
+        private AccountStatus status;
+        private long balance;
+
+        private LedgerAccount(long id, String accountNumber, long userId,
+                              AccountStatus status, long balance) {
+            this.id = id;
+            this.accountNumber = accountNumber;
+            this.userId = userId;
+            this.status = status;
+            this.balance = balance;
+        }
+
+        private static LedgerAccount from(LedgerSnapshot.Account account) {
+            return new LedgerAccount(account.id(), account.accountNumber(),
+                    account.userId(), account.status(), account.balance());
+        }
+    }
+
+    private static final class BalanceCorrection {
+        private final String accountNumber;
+        private final long accountId;
+        private final String transactionId;
+        private final long change;
+        // 처리 스레드가 반영한 순번 (이 순번부터 처리된 건은 되돌린 잔액을 쓴다)
+        private volatile long appliedAt = Long.MAX_VALUE;
+
+        private BalanceCorrection(String accountNumber, long accountId,
+                                  String transactionId, long change) {
+            this.accountNumber = accountNumber;
+            this.accountId = accountId;
+            this.transactionId = transactionId;
+            this.change = change;
+        }
+    }
+
+    private static LedgerSnapshot.Account snapshotOf(Account account) {
+        return new LedgerSnapshot.Account(account.getId(), account.getAccountNumber(),
+                account.getAccountUser().getId(), account.getAccountStatus(), account.getBalance());
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.service;
+
+import com.example.domain.AccountStatus;
+import com.example.dto.TransactionDto;
+import com.example.exception.AccountException;
+import com.example.type.ErrorCode;
+import com.example.type.TransactionResultType;
+import com.example.type.TransactionType;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+* LedgerBalanceEngine 의 미리 만들어 둔 고정 크기 원형 버퍼
+* - 요청 스레드들 : claim 으로 순번을 받아 slot 을 채우고 publish
+* - 처리 스레드 1개 : publish 된 slot 을 순서대로 계좌 테이블에 반영 (processed)
+* - 저장 스레드 1개 : 처리된 slot 을 모아서 DB/저널에 저장하고 결과를 돌려준다 (persisted)
+* 저장까지 끝난 slot 만 다시 쓸 수 있으므로, 버퍼가 가득 차면 요청 스레드가 기다린다
+*   (저장이 멈춰도 요청이 끝없이 기다리지 않도록 claim 에 제한 시간을 둔다)
+* slot 객체는 재사용하므로 요청마다 객체를 새로 만들지 않는다 (결과 future 제외)
+* */
+final class LedgerRingBuffer {
+    private static final long IDLE_PARK_NANOS = 50_000;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLong processed = new AtomicLong(-1);
+    private final AtomicLong persisted = new AtomicLong(-1);
+
+    LedgerRingBuffer(int size) {
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("ring size must be a power of two : " + size);
+        }
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    // 자리가 비었을 때만 순번을 받는다 - 제한 시간이 지나면 순번을 받지 않고 실패
+    // (받은 순번은 반드시 publish 해야 처리 스레드가 다음으로 넘어가므로 먼저 받고 기다리지 않는다)
+    long claim(long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (true) {
+            long current = claimed.get();
+            long sequence = current + 1;
+            // 한 바퀴 전의 같은 자리가 저장될 때까지 기다린다
+            if (sequence - slots.length > persisted.get()) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            } else if (claimed.compareAndSet(current, sequence)) {
+                return sequence;
+            }
+        }
+    }
+
+    Slot slot(long sequence) {
+        return slots[(int) (sequence & mask)];
+    }
+
+    void publish(long sequence) {
+        slot(sequence).published = sequence;
+    }
+
+    boolean isPublished(long sequence) {
+        return slot(sequence).published == sequence;
+    }
+
+    long claimed() {
+        return claimed.get();
+    }
+
+    AtomicLong processed() {
+        return processed;
+    }
+
+    AtomicLong persisted() {
+        return persisted;
+    }
+
+    static void idle() {
+        LockSupport.parkNanos(IDLE_PARK_NANOS);
+    }
+
+    enum Kind {
+        USE, CANCEL
+    }
+
+    record RecentTransaction(long accountId, long amount, LocalDateTime transactedAt) {
+    }
+
+    static final class Slot {
+        // publish 전에 쓴 필드가 처리 스레드에 보이도록 volatile 로 마지막에 쓴다
+        private volatile long published = -1;
+
+        // 요청
+        Kind kind;
+        Long userId;
+        String accountNumber;
+        String originalTransactionId;
+        long amount;
+        CompletableFuture<TransactionDto> result;
+        // 요청 스레드가 DB 에서 미리 읽은 계좌/원 거래 (테이블에 없을 때만)
+        LedgerSnapshot.Account loadedAccount;
+        RecentTransaction loadedOriginal;
+        boolean originalLoaded;
+        boolean originalArchived;
+
+        // 처리 결과 (처리 스레드 -> 저장 스레드, processed 순번으로 전달)
+        ErrorCode errorCode;
+        Long accountId;
+        Long accountUserId;
+        AccountStatus accountStatus;
+        long balanceSnapshot;
+        // 메모리 잔액에 더한 값 (실패 건은 0) - 처리/저장에 실패하면 이만큼 되돌린다
+        long balanceChange;
+        String transactionId;
+        LocalDateTime transactedAt;
+
+        TransactionType transactionType() {
+            return kind == Kind.CANCEL ? TransactionType.CANCEL : TransactionType.USE;
+        }
+
+        TransactionResultType resultType() {
+            return errorCode == null ? TransactionResultType.S : TransactionResultType.F;
+        }
+
+        void clear() {
+            kind = null;
+            userId = null;
+            accountNumber = null;
+            originalTransactionId = null;
+            amount = 0;
+            result = null;
+            loadedAccount = null;
+            loadedOriginal = null;
+            originalLoaded = false;
+            originalArchived = false;
+            errorCode = null;
+            accountId = null;
+            accountUserId = null;
+            accountStatus = null;
+            balanceSnapshot = 0;
+            balanceChange = 0;
+            transactionId = null;
+            transactedAt = null;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.service;
+
+import com.example.domain.AccountStatus;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/*
+* LedgerBalanceEngine 의 계좌 테이블 스냅샷 파일
+* DB 에 저장이 끝난 상태만 기록하고, 그 시점의 거래 저널 sequence 를 같이 남긴다
+* -> 시작 시 스냅샷을 읽고 저널에서 그 다음 거래부터 다시 반영하면 종료 직전 상태가 된다
+* */
+record LedgerSnapshot(long journalSequence, List<Account> accounts) {
+    private static final int VERSION = 1;
+
+    record Account(long id, String accountNumber, long userId, AccountStatus status, long balance) {
+    }
+
+    static LedgerSnapshot read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return new LedgerSnapshot(0L, List.of());
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != VERSION) {
+                return new LedgerSnapshot(0L, List.of());
+            }
+            long journalSequence = in.readLong();
+            int count = in.readInt();
+            List<Account> accounts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                accounts.add(new Account(in.readLong(), in.readUTF(), in.readLong(),
+                        AccountStatus.valueOf(in.readUTF()), in.readLong()));
+            }
+            return new LedgerSnapshot(journalSequence, accounts);
+        }
+    }
+
+    // 임시 파일에 쓴 뒤 바꿔치기 (쓰는 중에 종료되어도 이전 스냅샷은 남는다)
+    static void write(Path path, long journalSequence, Collection<Account> accounts) throws IOException {
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "ledger", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(VERSION);
+            out.writeLong(journalSequence);
+            out.writeInt(accounts.size());
+            for (Account account : accounts) {
+                out.writeLong(account.id());
+                out.writeUTF(account.accountNumber());
+                out.writeLong(account.userId());
+                out.writeUTF(account.status().name());
+                out.writeLong(account.balance());
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.service;
+
+import com.example.exception.AccountException;
+import com.example.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+* 단일 서버 배포용 lock
+* Redis 왕복 없이 계좌번호 hash 로 고정 크기 lock 배열(stripe) 중 하나를 고른다
+* - 다른 계좌가 같은 stripe 에 걸릴 수는 있지만 같은 계좌는 항상 같은 stripe
+* - 대기 시간(1초)과 실패 시 ACCOUNT_TRANSACTION_LOCK 은 Redis 와 동일
+* - ReentrantLock 은 lease time 이 없으므로 unlock 은 항상 finally 에서 호출되어야 한다 (LockAopAspect)
+* */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.lock.mode", havingValue = "local")
+public class LocalStripedLockEngine implements LockEngine {
+    private static final long WAIT_TIME_SECONDS = 1L;
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public LocalStripedLockEngine(@Value("${account.lock.stripes:1024}") int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("account.lock.stripes must be positive");
+        }
+        // 2의 거듭제곱으로 올려서 나머지 연산 대신 비트 연산을 쓴다
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    @Override
+    public void lock(String accountNumber) {
+        log.debug("Trying local lock for accountNumber : {}", accountNumber);
+
+        try {
+            boolean isLock = getStripe(accountNumber).tryLock(WAIT_TIME_SECONDS, TimeUnit.SECONDS);
+            if (!isLock) {
+                log.error("=====Lock acquisition failed=====");
+                throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        log.debug("Unlock local lock for accountNumber : {}", accountNumber);
+        getStripe(accountNumber).unlock();
+    }
+
+    private ReentrantLock getStripe(String accountNumber) {
+        int h = accountNumber.hashCode();
+        // 하위 비트만 쓰므로 상위 비트를 섞어준다 (HashMap 과 같은 방식)
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+}
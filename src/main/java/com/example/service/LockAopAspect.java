@@ -1,11 +1,14 @@
 package com.example.service;
 
+import com.example.aop.AccountLock;
 import com.example.aop.AccountLockIdInterface;
+import com.example.type.BalanceUpdateMode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Aspect
@@ -14,9 +17,14 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class LockAopAspect {
     private final LockService lockService;
-    @Around("@annotation(com.example.aop.AccountLock) && args(request)")
+
+    @Value("${account.balance.mode:LOCKED}")
+    private BalanceUpdateMode balanceUpdateMode = BalanceUpdateMode.LOCKED;
+
+    @Around("@annotation(accountLock) && args(request)")
     public Object aroundMethod(
             ProceedingJoinPoint proceedingJoinPoint,
+            AccountLock accountLock,
             AccountLockIdInterface request
             /*
             * AccountLockIdInterface 로 가져온 이유는
@@ -28,6 +36,11 @@ public class LockAopAspect {
             * 그래서 인터페이스로 Getter 이름 처럼 선언해서 자동으로 두 타입을 사용 가능
             * */
     ) throws Throwable{
+        if(!balanceUpdateMode.needsAccountLock(accountLock.transactionType())){
+            // lock-free 모드에서는 BalanceEngine 이 직접 동시성을 처리한다
+            return proceedingJoinPoint.proceed();
+        }
+
         // lock 취득 시도
         lockService.lock(request.getAccountNumber());
 
@@ -0,0 +1,15 @@
+package com.example.service;
+
+/*
+* 계좌 lock 의 실제 구현(backend)
+* LockService 는 이 인터페이스에만 의존하고
+* account.lock.mode 설정에 따라 구현체가 하나만 bean 으로 등록된다
+*  - redis : RedisLockEngine (여러 서버 간 분산 lock)
+*  - local : LocalStripedLockEngine (단일 서버용 JVM 내부 lock)
+* */
+public interface LockEngine {
+    // lock 취득에 실패하면 AccountException(ACCOUNT_TRANSACTION_LOCK)
+    void lock(String accountNumber);
+
+    void unlock(String accountNumber);
+}
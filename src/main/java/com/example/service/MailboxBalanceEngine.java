@@ -0,0 +1,201 @@
+package com.example.service;
+
+import com.example.dto.BalanceResult;
+import com.example.dto.TransactionDto;
+import com.example.dto.UseBalance;
+import com.example.exception.AccountException;
+import com.example.type.ErrorCode;
+import com.example.type.TransactionType;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+* 계좌별 우편함(mailbox)
+* 같은 계좌에 대한 잔액 사용 요청을 큐에 모아 두고, 계좌마다 한 번에 하나의 worker 만
+* 큐를 비우면서 batch-size 만큼씩 TransactionService.useBalanceBatch 로 처리한다
+* - lock 은 요청마다가 아니라 배치마다 한 번 (다른 서버, 취소 요청과의 동시성 보장)
+* - 요청한 쪽은 자기 건의 결과(Future)만 기다린다
+* */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.balance.mode", havingValue = "MAILBOX")
+public class MailboxBalanceEngine implements BalanceEngine {
+    private final TransactionService transactionService;
+    private final LockService lockService;
+    private final FailureJournal failureJournal;
+    private final int batchSize;
+    private final long awaitTimeoutMillis;
+    private final ExecutorService workers;
+
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public MailboxBalanceEngine(
+            TransactionService transactionService,
+            LockService lockService,
+            FailureJournal failureJournal,
+            @Value("${account.balance.mailbox.batch-size:100}") int batchSize,
+            @Value("${account.balance.mailbox.workers:8}") int workerCount,
+            @Value("${account.balance.mailbox.await-timeout-millis:5000}") long awaitTimeoutMillis) {
+        this.transactionService = transactionService;
+        this.lockService = lockService;
+        this.failureJournal = failureJournal;
+        this.batchSize = batchSize;
+        this.awaitTimeoutMillis = awaitTimeoutMillis;
+        this.workers = Executors.newFixedThreadPool(workerCount);
+    }
+
+    @Override
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        Command command = new Command(
+                new UseBalance.Request(userId, accountNumber, amount),
+                new CompletableFuture<>());
+
+        Mailbox mailbox = mailboxes.computeIfAbsent(accountNumber, Mailbox::new);
+        mailbox.queue.add(command);
+        schedule(mailbox);
+
+        return await(mailbox, command);
+    }
+
+    @Override
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        // 취소는 @AccountLock 으로 lock 을 잡은 상태에서 기존 로직 그대로 처리
+        try {
+            return transactionService.cancelBalance(transactionId, accountNumber, amount);
+        } catch (AccountException e) {
+            log.error("Failed to cancel Balance.");
+            failureJournal.record(TransactionType.CANCEL, accountNumber, amount);
+            throw e;
+        }
+    }
+
+    // 이미 계좌별로 모인 요청은 큐를 거치지 않고 lock 한 번으로 바로 처리
+    @Override
+    public List<BalanceResult> useBalances(String accountNumber, List<UseBalance.Request> requests) {
+        lockService.lock(accountNumber);
+        try {
+            return transactionService.useBalanceBatch(accountNumber, requests);
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    private void schedule(Mailbox mailbox) {
+        // 이미 worker 가 돌고 있으면 그 worker 가 이어서 처리한다
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            workers.execute(() -> drain(mailbox));
+        }
+    }
+
+    private void drain(Mailbox mailbox) {
+        try {
+            List<Command> batch = new ArrayList<>(batchSize);
+            Command command;
+            while (batch.size() < batchSize && (command = mailbox.queue.poll()) != null) {
+                batch.add(command);
+            }
+            if (!batch.isEmpty()) {
+                process(mailbox.accountNumber, batch);
+            }
+        } finally {
+            mailbox.scheduled.set(false);
+            if (!mailbox.queue.isEmpty()) {
+                // 다른 계좌도 처리될 수 있도록 한 배치씩 다시 예약
+                schedule(mailbox);
+            } else {
+                // 비어 있으면 정리, 그 사이에 들어온 요청은 lock 으로 순서가 보장된다
+                mailboxes.remove(mailbox.accountNumber, mailbox);
+            }
+        }
+    }
+
+    private void process(String accountNumber, List<Command> batch) {
+        try {
+            lockService.lock(accountNumber);
+        } catch (Exception e) {
+            batch.forEach(command -> command.result().completeExceptionally(e));
+            return;
+        }
+
+        try {
+            List<BalanceResult> results = transactionService.useBalanceBatch(accountNumber,
+                    batch.stream().map(Command::request).toList());
+
+            for (int i = 0; i < batch.size(); i++) {
+                BalanceResult result = results.get(i);
+                if (result.isSuccess()) {
+                    batch.get(i).result().complete(result.getTransactionDto());
+                } else {
+                    batch.get(i).result().completeExceptionally(result.getException());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Mailbox batch failed for accountNumber : {}", accountNumber, e);
+            batch.forEach(command -> command.result().completeExceptionally(e));
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    private TransactionDto await(Mailbox mailbox, Command command) {
+        try {
+            try {
+                return command.result().get(awaitTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (mailbox.queue.remove(command)) {
+                    // 아직 처리되지 않은 건만 취소할 수 있다
+                    log.error("=====Mailbox result timeout=====");
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }
+                // 이미 배치에 들어가 처리 중이면 취소할 수 없으므로 한 번 더 기다린다
+                return awaitProcessing(command);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    // 그래도 끝나지 않으면 (DB 가 멈춘 경우 등) 요청 스레드를 계속 잡아 두지 않고 결과를 알 수 없는 에러로 응답한다
+    // 배치는 계속 진행되므로 커밋될 수도 있다 (ACCOUNT_TRANSACTION_LOCK 과 달리 다시 요청하면 안 된다)
+    private TransactionDto awaitProcessing(Command command)
+            throws ExecutionException, InterruptedException {
+        try {
+            return command.result().get(awaitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.error("=====Mailbox result timeout while processing===== {}", command.request().getAccountNumber());
+            throw new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private record Command(UseBalance.Request request,
+                           CompletableFuture<TransactionDto> result) {
+    }
+
+    @RequiredArgsConstructor
+    private static class Mailbox {
+        private final String accountNumber;
+        private final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+    }
+}
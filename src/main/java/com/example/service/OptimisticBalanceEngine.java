@@ -0,0 +1,100 @@
+package com.example.service;
+
+import com.example.dto.TransactionDto;
+import com.example.exception.AccountException;
+import com.example.type.ErrorCode;
+import com.example.type.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/*
+* 잔액 사용을 lock 없이 version 조건부 UPDATE 로 처리
+* 충돌하면 짧게 기다렸다가(지수 backoff + jitter) 정해진 횟수만큼만 재시도하고,
+* 그래도 안되면 lock 실패와 같은 ACCOUNT_TRANSACTION_LOCK 으로 응답한다
+*
+* 취소는 계좌 lock 을 잡은 상태로 기존 로직을 타지만,
+* lock 없이 들어온 사용 요청과 version 이 충돌할 수 있으므로 같은 방식으로 재시도한다
+* */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.balance.mode", havingValue = "OPTIMISTIC")
+public class OptimisticBalanceEngine implements BalanceEngine {
+    private final TransactionService transactionService;
+    private final FailureJournal failureJournal;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public OptimisticBalanceEngine(
+            TransactionService transactionService,
+            FailureJournal failureJournal,
+            @Value("${account.balance.optimistic.max-attempts:5}") int maxAttempts,
+            @Value("${account.balance.optimistic.backoff-millis:5}") long backoffMillis) {
+        this.transactionService = transactionService;
+        this.failureJournal = failureJournal;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    @Override
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        try {
+            return retry(() -> transactionService.tryUseBalanceWithVersion(
+                    userId, accountNumber, amount));
+        } catch (AccountException e) {
+            log.error("Failed to use Balance.");
+            failureJournal.record(TransactionType.USE, accountNumber, amount);
+            throw e;
+        }
+    }
+
+    @Override
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        try {
+            return retry(() -> {
+                try {
+                    return Optional.of(transactionService.cancelBalance(
+                            transactionId, accountNumber, amount));
+                } catch (ObjectOptimisticLockingFailureException e) {
+                    return Optional.empty();
+                }
+            });
+        } catch (AccountException e) {
+            log.error("Failed to cancel Balance.");
+            failureJournal.record(TransactionType.CANCEL, accountNumber, amount);
+            throw e;
+        }
+    }
+
+    private TransactionDto retry(Supplier<Optional<TransactionDto>> attempt) {
+        for (int i = 0; i < maxAttempts; i++) {
+            Optional<TransactionDto> result = attempt.get();
+            if (result.isPresent()) {
+                return result.get();
+            }
+            log.debug("Version conflict, attempt {}/{}", i + 1, maxAttempts);
+            if (i + 1 < maxAttempts) {
+                sleepBeforeRetry(i);
+            }
+        }
+        log.error("=====Optimistic update retry exhausted=====");
+        throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+    }
+
+    private void sleepBeforeRetry(int attempt) {
+        // backoff * 2^attempt 범위 안에서 무작위로 기다려서 충돌한 요청끼리 다시 부딪히지 않게 함
+        long bound = backoffMillis << Math.min(attempt, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+}
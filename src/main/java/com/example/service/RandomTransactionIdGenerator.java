@@ -0,0 +1,26 @@
+package com.example.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/*
+* 랜덤 UUID 에서 '-' 를 뺀 32자 (이전 방식)
+* 값이 흩어져서 transactionId 인덱스의 아무 위치에나 들어간다
+* */
+@Component
+@ConditionalOnProperty(name = "account.transaction-id.generator", havingValue = "uuid")
+public class RandomTransactionIdGenerator implements TransactionIdGenerator {
+    @Override
+    public String nextTransactionId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @Override
+    public Optional<LocalDateTime> issuedAt(String transactionId) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.service;
+
+import com.example.repository.AccountRepository;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/*
+* Redis 카운터(ACNO:SEQ)로 범위 예약
+* 카운터는 마지막으로 예약된 번호를 가리키고, 처음 쓸 때만 DB 의 마지막 계좌번호로 맞춘다
+* */
+@Component
+@ConditionalOnProperty(name = "account.number.allocator", havingValue = "redis")
+public class RedisAccountNumberAllocator extends BlockAccountNumberAllocator {
+    private static final String COUNTER_KEY = "ACNO:SEQ";
+
+    private final RedissonClient redissonClient;
+    private final AccountRepository accountRepository;
+
+    public RedisAccountNumberAllocator(
+            RedissonClient redissonClient,
+            AccountRepository accountRepository,
+            @Value("${account.number.block-size:100}") int blockSize) {
+        super(blockSize);
+        this.redissonClient = redissonClient;
+        this.accountRepository = accountRepository;
+    }
+
+    @Override
+    protected long reserveBlock() {
+        RAtomicLong counter = redissonClient.getAtomicLong(COUNTER_KEY);
+        if (counter.get() == 0) {
+            long lastAccountNumber = accountRepository.findFirstByOrderByIdDesc()
+                    .map(account -> Long.parseLong(account.getAccountNumber()))
+                    .orElse(FIRST_ACCOUNT_NUMBER - 1);
+            // 다른 서버가 먼저 맞췄으면 실패해도 된다
+            counter.compareAndSet(0, lastAccountNumber);
+        }
+        return counter.addAndGet(blockSize) - blockSize + 1;
+    }
+}
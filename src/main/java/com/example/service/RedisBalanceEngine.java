@@ -0,0 +1,196 @@
+package com.example.service;
+
+import com.example.cache.NegativeLookupGuard;
+import com.example.cache.TransactionDtoCache;
+import com.example.dto.TransactionDto;
+import com.example.exception.AccountException;
+import com.example.type.ErrorCode;
+import com.example.type.TransactionResultType;
+import com.example.type.TransactionType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+/*
+* 잔액을 Redis hash(ACBL:계좌번호)에 두고 Lua 스크립트 한 번으로 검증 + 변경
+* - 스크립트는 Redis 에서 원자적으로 실행되므로 계좌 lock 이 필요 없다
+* - 검증 순서와 에러 코드는 TransactionService 와 같다
+*   (단, 사용자 존재 여부는 따로 조회하지 않으므로 없는 사용자는 USER_ACCOUNT_UN_MATCH)
+* - 결과(성공/실패 거래)는 BalanceWriteBehind 로 DB 에 나중에 저장
+* - Redis 에 없는 계좌/거래는 RedisBalanceLoader 로 DB 에서 올린 뒤 한 번 더 실행
+*
+* 스크립트 리턴 : {에러코드 또는 OK, 계좌 id, 잔액, 잔액 순번, 소유자 id} (계좌가 없으면 나머지는 빈 문자열)
+* - 잔액 순번(seq) : 잔액을 바꿀 때마다 스크립트 안에서 1 씩 올린다 -> Redis 가 실제로 실행한 순서
+*   write-behind 는 거래 시각이 아니라 이 순번으로 가장 최근 잔액을 고른다 (실패 거래는 현재 순번)
+* */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.balance.mode", havingValue = "REDIS")
+public class RedisBalanceEngine implements BalanceEngine {
+    private static final String OK = "OK";
+
+    // KEYS : 계좌, 새 거래 / ARGV : userId, amount, 거래시각(ms), 거래 보관기간(ms)
+    private static final String USE_BALANCE_SCRIPT =
+            "local a = redis.call('HMGET', KEYS[1], 'id', 'userId', 'status', 'balance', 'accountNumber', 'seq') " +
+            "if not a[1] then return {'ACCOUNT_NOT_FOUND', '', '', '', ''} end " +
+            "local seq = a[6] or '0' " +
+            "if a[2] ~= ARGV[1] then return {'USER_ACCOUNT_UN_MATCH', a[1], a[4], seq, a[2]} end " +
+            "if a[3] ~= 'IN_USE' then return {'ACCOUNT_ALREADY_UNREGISTERED', a[1], a[4], seq, a[2]} end " +
+            "if tonumber(a[4]) < tonumber(ARGV[2]) then return {'AMOUNT_EXCEED_BALANCE', a[1], a[4], seq, a[2]} end " +
+            "local balance = redis.call('HINCRBY', KEYS[1], 'balance', -tonumber(ARGV[2])) " +
+            "seq = redis.call('HINCRBY', KEYS[1], 'seq', 1) " +
+            "redis.call('HMSET', KEYS[2], 'accountNumber', a[5], 'amount', ARGV[2], 'transactedAt', ARGV[3]) " +
+            "redis.call('PEXPIRE', KEYS[2], ARGV[4]) " +
+            "return {'OK', a[1], tostring(balance), tostring(seq), a[2]}";
+
+    // KEYS : 계좌, 원 거래 / ARGV : amount, 취소 가능한 가장 오래된 거래시각(ms)
+    // archive 로 옮겨진 원 거래는 계좌/금액과 상관없이 TOO_OLD_ORDER_TO_CANCEL (다른 잔액 엔진과 같다)
+    private static final String CANCEL_BALANCE_SCRIPT =
+            "local a = redis.call('HMGET', KEYS[1], 'id', 'balance', 'accountNumber', 'seq', 'userId') " +
+            "local t = redis.call('HMGET', KEYS[2], 'accountNumber', 'amount', 'transactedAt', 'archived') " +
+            "local id = a[1] or '' " +
+            "local bal = a[2] or '' " +
+            "local seq = a[1] and (a[4] or '0') or '' " +
+            "local user = a[5] or '' " +
+            "if t[4] then return {'TOO_OLD_ORDER_TO_CANCEL', id, bal, seq, user} end " +
+            "if not t[1] then return {'TRANSACTION_NOT_FOUND', id, bal, seq, user} end " +
+            "if not a[1] then return {'ACCOUNT_NOT_FOUND', '', '', '', ''} end " +
+            "if t[1] ~= a[3] then return {'TRANSACTION_ACCOUNT_UN_MATCH', id, bal, seq, user} end " +
+            "if t[2] ~= ARGV[1] then return {'CANCEL_MUST_FULLY', id, bal, seq, user} end " +
+            "if tonumber(t[3]) < tonumber(ARGV[2]) then return {'TOO_OLD_ORDER_TO_CANCEL', id, bal, seq, user} end " +
+            "local balance = redis.call('HINCRBY', KEYS[1], 'balance', tonumber(ARGV[1])) " +
+            "seq = redis.call('HINCRBY', KEYS[1], 'seq', 1) " +
+            "return {'OK', id, tostring(balance), tostring(seq), user}";
+
+    private final RedissonClient redissonClient;
+    private final RedisBalanceLoader redisBalanceLoader;
+    private final BalanceWriteBehind balanceWriteBehind;
+    private final TransactionDtoCache transactionDtoCache;
+    private final NegativeLookupGuard negativeLookupGuard;
+    private final TransactionIdGenerator transactionIdGenerator;
+
+    @Override
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        String transactionId = newTransactionId();
+        LocalDateTime transactedAt = LocalDateTime.now();
+        List<Object> keys = List.of(
+                RedisBalanceLoader.accountKey(accountNumber),
+                RedisBalanceLoader.transactionKey(transactionId));
+
+        List<Object> reply = eval(USE_BALANCE_SCRIPT, keys,
+                userId, amount, toEpochMilli(transactedAt),
+                redisBalanceLoader.getTransactionTtlMillis());
+        if (accountId(reply).isEmpty() && redisBalanceLoader.loadAccount(accountNumber)) {
+            reply = eval(USE_BALANCE_SCRIPT, keys,
+                    userId, amount, toEpochMilli(transactedAt),
+                    redisBalanceLoader.getTransactionTtlMillis());
+        }
+
+        return complete(TransactionType.USE, accountNumber, amount,
+                transactionId, transactedAt, reply);
+    }
+
+    @Override
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        LocalDateTime transactedAt = LocalDateTime.now();
+        List<Object> keys = List.of(
+                RedisBalanceLoader.accountKey(accountNumber),
+                RedisBalanceLoader.transactionKey(transactionId));
+        long oldestCancelable = toEpochMilli(transactedAt.minusYears(1));
+
+        List<Object> reply = eval(CANCEL_BALANCE_SCRIPT, keys, amount, oldestCancelable);
+
+        boolean loaded = false;
+        if (ErrorCode.TRANSACTION_NOT_FOUND.name().equals(reply.get(0))) {
+            loaded = redisBalanceLoader.loadTransaction(transactionId);
+        }
+        if (accountId(reply).isEmpty()) {
+            loaded |= redisBalanceLoader.loadAccount(accountNumber);
+        }
+        if (loaded) {
+            reply = eval(CANCEL_BALANCE_SCRIPT, keys, amount, oldestCancelable);
+        }
+
+        return complete(TransactionType.CANCEL, accountNumber, amount,
+                newTransactionId(), transactedAt, reply);
+    }
+
+    // 잔액은 Redis 에 먼저 반영되고 DB 에는 나중에 저장된다
+    @Override
+    public Optional<Long> currentBalance(String accountNumber) {
+        return redisBalanceLoader.currentBalance(accountNumber);
+    }
+
+    private TransactionDto complete(TransactionType transactionType,
+                                    String accountNumber,
+                                    Long amount,
+                                    String transactionId,
+                                    LocalDateTime transactedAt,
+                                    List<Object> reply) {
+        String code = (String) reply.get(0);
+        TransactionResultType resultType =
+                OK.equals(code) ? TransactionResultType.S : TransactionResultType.F;
+
+        if (!accountId(reply).isEmpty()) {
+            redisBalanceLoader.markTouched(accountNumber);
+            // 계좌가 있으면 성공/실패 모두 거래 내역으로 남긴다 (기존 saveFailed... 와 동일)
+            balanceWriteBehind.enqueue(new BalanceWriteBehind.Entry(
+                    Long.valueOf(accountId(reply)),
+                    Long.valueOf((String) reply.get(4)),
+                    transactionType,
+                    resultType,
+                    amount,
+                    Long.valueOf((String) reply.get(2)),
+                    Long.valueOf((String) reply.get(3)),
+                    transactionId,
+                    transactedAt));
+        }
+
+        if (resultType == TransactionResultType.F) {
+            log.error("Failed to {} Balance : {}", transactionType, code);
+            throw new AccountException(ErrorCode.valueOf(code));
+        }
+
+        TransactionDto transactionDto = TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(transactionType)
+                .transactionResultType(resultType)
+                .amount(amount)
+                .balanceSnapshot(Long.valueOf((String) reply.get(2)))
+                .transactionId(transactionId)
+                .transactedAt(transactedAt)
+                .build();
+        // DB 에 저장되기 전에도 거래 조회가 되도록 캐시에 먼저 넣는다
+        transactionDtoCache.put(transactionDto);
+        return transactionDto;
+    }
+
+    private List<Object> eval(String script, List<Object> keys, Object... values) {
+        return redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE, script, RScript.ReturnType.MULTI, keys, values);
+    }
+
+    private static String accountId(List<Object> reply) {
+        return (String) reply.get(1);
+    }
+
+    private String newTransactionId() {
+        String transactionId = transactionIdGenerator.nextTransactionId();
+        negativeLookupGuard.addTransaction(transactionId);
+        return transactionId;
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
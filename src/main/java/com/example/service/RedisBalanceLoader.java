@@ -0,0 +1,271 @@
+package com.example.service;
+
+import com.example.cache.NegativeLookupGuard;
+import com.example.domain.Account;
+import com.example.dto.TransactionDto;
+import com.example.event.AccountChangedEvent;
+import com.example.repository.AccountRepository;
+import com.example.repository.ArchivedTransactionRepository;
+import com.example.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.BatchResult;
+import org.redisson.api.RBatch;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+* Redis 잔액 엔진용 데이터 적재 / 대사(reconciliation)
+* - 시작 시 DB 의 모든 계좌를 Redis 에 올려 둔다 (이미 있는 키는 건드리지 않음)
+* - Redis 에 없는 계좌/거래는 요청 시점에 DB 에서 읽어 올린다
+*   archive 로 옮겨진 거래는 취소할 수 없다는 표시(archived)만 올린다 (TOO_OLD_ORDER_TO_CANCEL)
+* - 주기적으로 write-behind 를 비운 뒤 DB 와 Redis 잔액을 비교해서 어긋난 계좌를 남긴다
+*   지난 대사 이후 이 서버에서 거래/상태 변경이 있었던 계좌만 비교한다 (전체 계좌를 매번 읽지 않음)
+*   (잔액은 Redis 가 기준이라 자동으로 고치지 않고, 해지 상태만 DB 를 따라간다)
+* */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.balance.mode", havingValue = "REDIS")
+public class RedisBalanceLoader {
+    private static final String ACCOUNT_KEY_PREFIX = "ACBL:";
+    private static final String TRANSACTION_KEY_PREFIX = "ACTX:";
+    private static final int PAGE_SIZE = 1000;
+
+    // 키가 없을 때만 통째로 넣는다 -> 이미 Redis 에서 바뀐 잔액을 DB 값으로 덮어쓰지 않음
+    private static final String SEED_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 0 then " +
+            "  redis.call('HMSET', KEYS[1], unpack(ARGV, 2)) " +
+            "  if tonumber(ARGV[1]) > 0 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end " +
+            "  return 1 " +
+            "end " +
+            "return 0";
+
+    private final RedissonClient redissonClient;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final BalanceWriteBehind balanceWriteBehind;
+    private final NegativeLookupGuard negativeLookupGuard;
+    private final boolean warmUp;
+    private final long transactionTtlMillis;
+    // 다음 대사에서 비교할 계좌번호
+    private final Set<String> touchedAccounts = ConcurrentHashMap.newKeySet();
+
+    public RedisBalanceLoader(
+            RedissonClient redissonClient,
+            AccountRepository accountRepository,
+            TransactionRepository transactionRepository,
+            ArchivedTransactionRepository archivedTransactionRepository,
+            BalanceWriteBehind balanceWriteBehind,
+            NegativeLookupGuard negativeLookupGuard,
+            @Value("${account.balance.redis.warm-up:true}") boolean warmUp,
+            @Value("${account.balance.redis.transaction-ttl-days:366}") long transactionTtlDays) {
+        this.redissonClient = redissonClient;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.balanceWriteBehind = balanceWriteBehind;
+        this.negativeLookupGuard = negativeLookupGuard;
+        this.warmUp = warmUp;
+        this.transactionTtlMillis = transactionTtlDays * 24 * 60 * 60 * 1000;
+    }
+
+    public static String accountKey(String accountNumber) {
+        return ACCOUNT_KEY_PREFIX + accountNumber;
+    }
+
+    public static String transactionKey(String transactionId) {
+        return TRANSACTION_KEY_PREFIX + transactionId;
+    }
+
+    public long getTransactionTtlMillis() {
+        return transactionTtlMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmUp) {
+            return;
+        }
+        int loaded = 0;
+        Page<Account> page;
+        int pageNumber = 0;
+        do {
+            page = accountRepository.findAll(
+                    PageRequest.of(pageNumber++, PAGE_SIZE, Sort.by("id")));
+            RBatch batch = redissonClient.createBatch();
+            for (Account account : page) {
+                batch.getScript(StringCodec.INSTANCE).evalAsync(RScript.Mode.READ_WRITE,
+                        SEED_SCRIPT, RScript.ReturnType.INTEGER,
+                        List.<Object>of(accountKey(account.getAccountNumber())), accountFields(account));
+            }
+            batch.execute();
+            loaded += page.getNumberOfElements();
+        } while (page.hasNext());
+
+        log.info("Redis balance warm-up finished : {} accounts", loaded);
+    }
+
+    // Redis 에서 잔액이 바뀐 계좌 - 다음 대사에서 DB 와 비교
+    public void markTouched(String accountNumber) {
+        touchedAccounts.add(accountNumber);
+    }
+
+    // Redis 에 올라와 있는 계좌면 Redis 잔액 (DB 에는 아직 저장되지 않은 거래가 있을 수 있다)
+    public Optional<Long> currentBalance(String accountNumber) {
+        String balance = redissonClient
+                .<String, String>getMap(accountKey(accountNumber), StringCodec.INSTANCE)
+                .get("balance");
+        return Optional.ofNullable(balance).map(Long::valueOf);
+    }
+
+    // DB 에 계좌가 있으면 Redis 에 올리고 true
+    public boolean loadAccount(String accountNumber) {
+        if (!negativeLookupGuard.mightContainAccount(accountNumber)) {
+            return false;
+        }
+        return accountRepository.findByAccountNumber(accountNumber)
+                .map(account -> {
+                    seed(accountKey(accountNumber), accountFields(account));
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    // DB 에 거래가 있으면 Redis 에 올리고 true
+    public boolean loadTransaction(String transactionId) {
+        if (!negativeLookupGuard.mightContainTransaction(transactionId)) {
+            return false;
+        }
+        Optional<TransactionDto> transaction = transactionRepository.findDtoByTransactionId(transactionId);
+        if (transaction.isPresent()) {
+            seed(transactionKey(transactionId), transactionFields(transaction.get()));
+            return true;
+        }
+        // 1년이 지나 archive 로 옮겨진 거래 (TransactionService.getTransaction 과 같이 TOO_OLD_ORDER_TO_CANCEL)
+        if (archivedTransactionRepository.findByTransactionId(transactionId).isPresent()) {
+            seed(transactionKey(transactionId), new Object[]{transactionTtlMillis, "archived", "1"});
+            return true;
+        }
+        return false;
+    }
+
+    // 계좌 해지 등 DB 에서 바뀐 상태를 Redis 에 반영 (잔액은 Redis 가 기준이므로 상태만)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        markTouched(event.getAccountNumber());
+        accountRepository.findByAccountNumber(event.getAccountNumber())
+                .ifPresent(account -> redissonClient
+                        .<String, String>getMap(accountKey(account.getAccountNumber()), StringCodec.INSTANCE)
+                        .replace("status", account.getAccountStatus().name()));
+    }
+
+    @Scheduled(fixedDelayString = "${account.balance.redis.reconcile-interval-millis:60000}",
+            initialDelayString = "${account.balance.redis.reconcile-interval-millis:60000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Redis balance reconciliation failed", e);
+        }
+    }
+
+    // 어긋난 계좌번호 목록을 리턴
+    public List<String> reconcile() {
+        Set<String> targets = new HashSet<>(touchedAccounts);
+        touchedAccounts.removeAll(targets);
+        if (targets.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> mismatched = findMismatchedAccounts(targets);
+        if (!mismatched.isEmpty()) {
+            // 처리 중이던 거래 때문에 잠깐 어긋난 것일 수 있으므로 한 번 더 확인
+            mismatched = findMismatchedAccounts(mismatched);
+        }
+        if (mismatched.isEmpty()) {
+            log.debug("Redis balance reconciliation OK : {} accounts", targets.size());
+        } else {
+            // 다음 대사에서도 다시 확인
+            touchedAccounts.addAll(mismatched);
+            log.error("=====Redis balance mismatch===== {}", mismatched);
+        }
+        return mismatched;
+    }
+
+    private List<String> findMismatchedAccounts(Collection<String> targets) {
+        balanceWriteBehind.flush();
+
+        List<String> accountNumbers = List.copyOf(targets);
+        List<String> mismatched = new ArrayList<>();
+        for (int from = 0; from < accountNumbers.size(); from += PAGE_SIZE) {
+            List<Account> accounts = accountRepository.findByAccountNumberIn(
+                    accountNumbers.subList(from, Math.min(from + PAGE_SIZE, accountNumbers.size())));
+
+            RBatch batch = redissonClient.createBatch();
+            for (Account account : accounts) {
+                batch.<String, String>getMap(accountKey(account.getAccountNumber()), StringCodec.INSTANCE)
+                        .getAllAsync(Set.of("balance", "status"));
+            }
+            BatchResult<?> result = batch.execute();
+
+            for (int i = 0; i < accounts.size(); i++) {
+                Account account = accounts.get(i);
+                @SuppressWarnings("unchecked")
+                Map<String, String> cached = (Map<String, String>) result.getResponses().get(i);
+                if (cached.isEmpty()) {
+                    continue; // 아직 Redis 에 올라오지 않은 계좌
+                }
+                if (!String.valueOf(account.getBalance()).equals(cached.get("balance"))
+                        || !account.getAccountStatus().name().equals(cached.get("status"))) {
+                    mismatched.add(account.getAccountNumber());
+                }
+            }
+        }
+
+        return mismatched;
+    }
+
+    private void seed(String key, Object[] fields) {
+        redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                SEED_SCRIPT, RScript.ReturnType.INTEGER, List.<Object>of(key), fields);
+    }
+
+    // 첫 번째 값은 만료 시간(ms, 0 이면 만료 없음), 나머지는 hash field/value
+    private static Object[] accountFields(Account account) {
+        return new Object[]{
+                0,
+                "id", account.getId(),
+                "userId", account.getAccountUser().getId(),
+                "accountNumber", account.getAccountNumber(),
+                "status", account.getAccountStatus().name(),
+                "balance", account.getBalance(),
+                // DB 에 반영된 순번부터 이어서 올린다 (write-behind 가 DB 에 있는 순번보다 큰 스냅샷만 반영)
+                "seq", Objects.requireNonNullElse(account.getBalanceSeq(), 0L)
+        };
+    }
+
+    private Object[] transactionFields(TransactionDto transaction) {
+        return new Object[]{
+                transactionTtlMillis,
+                "accountNumber", transaction.getAccountNumber(),
+                "amount", transaction.getAmount(),
+                "transactedAt", transaction.getTransactedAt()
+                        .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+        };
+    }
+}
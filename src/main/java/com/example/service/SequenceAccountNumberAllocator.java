@@ -0,0 +1,28 @@
+package com.example.service;
+
+import com.example.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/*
+* DB 시퀀스(account_number_seq) 로 범위 예약
+* 시퀀스의 increment 가 block-size 와 같아야 한다 (data.sql 참고)
+* */
+@Component
+@ConditionalOnProperty(name = "account.number.allocator", havingValue = "sequence", matchIfMissing = true)
+public class SequenceAccountNumberAllocator extends BlockAccountNumberAllocator {
+    private final AccountRepository accountRepository;
+
+    public SequenceAccountNumberAllocator(
+            AccountRepository accountRepository,
+            @Value("${account.number.block-size:100}") int blockSize) {
+        super(blockSize);
+        this.accountRepository = accountRepository;
+    }
+
+    @Override
+    protected long reserveBlock() {
+        return accountRepository.nextAccountNumberBlock();
+    }
+}
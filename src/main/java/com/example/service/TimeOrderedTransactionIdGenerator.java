@@ -0,0 +1,125 @@
+package com.example.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+* 시간순 거래 id : 128 bit 를 ULID 처럼 Crockford base32 26자로 표기
+*  48 bit : 발급 시각 (epoch millis)
+*  16 bit : 서버 번호 (TransactionIdNodeLease - 설정값 또는 Redis 에서 받은 번호, 서버마다 다르다)
+*           lease 를 잃으면 발급하지 않는다 (IllegalStateException), 번호가 바뀌면 다음 id 부터 새 번호
+*  32 bit : 스레드 번호 (스레드가 처음 발급할 때 정해진다)
+*  32 bit : 스레드 안의 순번 (밀리초가 바뀌면 0 부터)
+* - 앞자리가 시각이라 문자열 순서가 발급 순서(밀리초 단위)와 같다 -> transactionId 인덱스 뒤쪽에 추가된다
+* - 순번은 스레드마다 따로 두므로 발급할 때 lock/CAS 가 없다
+* - 앞 10자리만 읽으면 발급 시각을 알 수 있다 (archive 로 옮겨졌을 거래인지 판단)
+* */
+@Component
+@ConditionalOnProperty(name = "account.transaction-id.generator", havingValue = "time-ordered",
+        matchIfMissing = true)
+public class TimeOrderedTransactionIdGenerator implements TransactionIdGenerator {
+    static final int LENGTH = 26;
+    private static final int TIMESTAMP_LENGTH = 10;
+    static final int MAX_NODE_ID = 0xFFFF;
+    private static final long COUNTER_MASK = 0xFFFF_FFFFL;
+    private static final byte[] ALPHABET =
+            "0123456789ABCDEFGHJKMNPQRSTVWXYZ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private final long nodeId;
+    // Redis 에서 받은 번호는 발급할 때마다 lease 가 유효한지 확인한다
+    private final TransactionIdNodeLease nodeLease;
+    private final AtomicInteger threadNumbers = new AtomicInteger();
+    private final ThreadLocal<ThreadState> threadState =
+            ThreadLocal.withInitial(() -> new ThreadState(threadNumbers.getAndIncrement()));
+
+    @Autowired
+    public TimeOrderedTransactionIdGenerator(TransactionIdNodeLease nodeLease) {
+        this.nodeId = nodeLease.getNodeId();
+        this.nodeLease = nodeLease;
+    }
+
+    public TimeOrderedTransactionIdGenerator(int nodeId) {
+        checkNodeId(nodeId);
+        this.nodeId = nodeId;
+        this.nodeLease = null;
+    }
+
+    static void checkNodeId(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("node-id must be 0 ~ " + MAX_NODE_ID + " : " + nodeId);
+        }
+    }
+
+    @Override
+    public String nextTransactionId() {
+        long node = nodeLease != null ? nodeLease.getNodeId() : nodeId;
+        ThreadState state = threadState.get();
+        long now = System.currentTimeMillis();
+        if (now > state.lastMillis) {
+            state.lastMillis = now;
+            state.counter = 0;
+        } else if (++state.counter > COUNTER_MASK) {
+            // 시계가 뒤로 가도 이전 시각을 계속 쓰고, 순번이 다 차면 다음 밀리초를 미리 쓴다
+            state.lastMillis++;
+            state.counter = 0;
+        }
+        long high = state.lastMillis << 16 | node;
+        long low = (long) state.threadNumber << 32 | state.counter;
+        return encode(high, low);
+    }
+
+    @Override
+    public Optional<LocalDateTime> issuedAt(String transactionId) {
+        if (transactionId == null || transactionId.length() != LENGTH) {
+            return Optional.empty();
+        }
+        long millis = 0;
+        for (int i = 0; i < TIMESTAMP_LENGTH; i++) {
+            char c = transactionId.charAt(i);
+            int value = c < DECODE.length ? DECODE[c] : -1;
+            if (value < 0) {
+                return Optional.empty();
+            }
+            millis = millis << 5 | value;
+        }
+        return Optional.of(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+    }
+
+    // 128 bit 앞에 0 두 bit 를 붙여 5 bit 씩 뒤에서부터 채운다 (첫 글자는 항상 0 ~ 7)
+    static String encode(long high, long low) {
+        byte[] id = new byte[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            id[i] = ALPHABET[(int) (low & 31)];
+            low = low >>> 5 | high << 59;
+            high >>>= 5;
+        }
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+
+    private static final class ThreadState {
+        private final int threadNumber;
+        private long lastMillis;
+        private long counter;
+
+        private ThreadState(int threadNumber) {
+            this.threadNumber = threadNumber;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.service;
+
+import com.example.domain.ArchivedTransaction;
+import com.example.domain.BaseEntity;
+import com.example.domain.Transaction;
+import com.example.repository.ArchivedTransactionRepository;
+import com.example.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+* 취소 가능 기간(1년)이 지난 거래를 transaction 테이블에서 archived_transaction 테이블로 옮긴다
+* - chunk-size 건씩 각각의 트랜잭션으로 복사 + 삭제 (중간에 실패해도 옮긴 건까지는 유지)
+* - 거래 조회(queryTransaction)는 transaction 테이블에 없으면 archive 에서 찾는다
+* */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionArchiver {
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long afterDays;
+    private final int chunkSize;
+
+    public TransactionArchiver(
+            TransactionRepository transactionRepository,
+            ArchivedTransactionRepository archivedTransactionRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${account.archive.after-days:366}") long afterDays,
+            @Value("${account.archive.chunk-size:1000}") int chunkSize) {
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.afterDays = afterDays;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${account.archive.cron:0 0 4 * * *}")
+    public void scheduledArchive() {
+        try {
+            archive();
+        } catch (Exception e) {
+            log.error("Transaction archive failed", e);
+        }
+    }
+
+    // 옮긴 거래 수를 리턴
+    public long archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        long archived = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveChunk(cutoff));
+            archived += moved;
+        } while (moved == chunkSize);
+
+        if (archived > 0) {
+            log.info("Transaction archive finished : {} transactions before {}", archived, cutoff);
+        }
+        return archived;
+    }
+
+    private int archiveChunk(LocalDateTime cutoff) {
+        List<Transaction> transactions =
+                transactionRepository.findTransactedBefore(cutoff, PageRequest.of(0, chunkSize));
+        if (transactions.isEmpty()) {
+            return 0;
+        }
+        archivedTransactionRepository.saveAll(
+                transactions.stream().map(ArchivedTransaction::from).toList());
+        transactionRepository.deleteAllByIdInBatch(
+                transactions.stream().map(BaseEntity::getId).toList());
+        return transactions.size();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.service;
+
+import com.example.aop.ReplicaRead;
+import com.example.domain.Account;
+import com.example.dto.TransactionDto;
+import com.example.exception.AccountException;
+import com.example.repository.AccountRepository;
+import com.example.repository.ArchivedTransactionRepository;
+import com.example.repository.TransactionHistoryView;
+import com.example.repository.TransactionRepository;
+import com.example.type.ErrorCode;
+import com.example.type.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/*
+* 계좌의 거래 내역 전체를 NDJSON / CSV 로 내보내기 (대사용)
+* - DB 에서 fetch size 만큼씩 읽어서 바로 출력 스트림에 쓴다 -> 거래 수와 관계없이 메모리 사용량 일정
+* - 응답은 요청 스레드가 아닌 비동기 스레드에서 쓰므로, 조회 트랜잭션도 그 스레드에서 연다
+* - 대사용 조회이므로 replica 를 쓴다 (@ReplicaRead)
+* - 계좌는 요청 스레드에서 계좌번호로 id 만 확인하고, 비동기 스레드에는 엔티티 대신 id / 계좌번호를 넘긴다
+* - CSV 는 RFC 4180 형식 (쉼표, 따옴표, 줄바꿈이 들어간 값은 따옴표로 감싸고 따옴표는 두 번)
+* - 범위가 archive 기간(account.archive.after-days)에 걸치면 archived_transaction 을 먼저 쓰고 이어서 transaction
+*   (archive 에는 transaction 에 남은 거래보다 오래된 거래만 있으므로 이어 붙여도 시간 순서)
+*   도중에 archive 가 거래를 옮겨도 빠지거나 겹치지 않도록 두 테이블을 REPEATABLE_READ 한 트랜잭션에서 읽는다
+* */
+@Service
+public class TransactionExportService {
+    // 시작/끝을 주지 않았을 때의 범위
+    private static final LocalDateTime MIN_TRANSACTED_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TRANSACTED_AT = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final String CSV_HEADER =
+            "transactionId,transactedAt,transactionType,transactionResult,amount,balanceSnapshot";
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long archiveAfterDays;
+
+    public TransactionExportService(AccountRepository accountRepository,
+                                    TransactionRepository transactionRepository,
+                                    ArchivedTransactionRepository archivedTransactionRepository,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${account.archive.after-days:366}") long archiveAfterDays) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.archiveAfterDays = archiveAfterDays;
+    }
+
+    // 응답을 쓰기 시작하기 전에 확인 (없으면 일반 에러 응답)
+    public Long getAccountId(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .map(Account::getId)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+    }
+
+    // from 이상 to 미만, 오래된 순서로 out 에 쓰고 쓴 거래 수를 리턴
+    @ReplicaRead
+    public long export(Long accountId,
+                       String accountNumber,
+                       LocalDateTime from,
+                       LocalDateTime to,
+                       ExportFormat format,
+                       OutputStream out) {
+        LocalDateTime start = from == null ? MIN_TRANSACTED_AT : from;
+        LocalDateTime end = to == null ? MAX_TRANSACTED_AT : to;
+
+        // archive 로 옮겨질 수 있는 시점보다 뒤의 범위면 archive 는 읽지 않는다
+        boolean readArchive = start.isBefore(LocalDateTime.now().minusDays(archiveAfterDays));
+
+        Long written = readOnlyTransaction.execute(status -> {
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                if (format == ExportFormat.CSV) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+                long count = 0;
+                if (readArchive) {
+                    try (Stream<TransactionHistoryView> views =
+                                 archivedTransactionRepository.streamHistory(accountId, start, end)) {
+                        count += write(views.iterator(), accountNumber, format, writer);
+                    }
+                }
+                try (Stream<TransactionHistoryView> views =
+                             transactionRepository.streamHistory(accountId, start, end)) {
+                    count += write(views.iterator(), accountNumber, format, writer);
+                }
+                writer.flush();
+                return count;
+            } catch (IOException e) {
+                // 클라이언트가 연결을 끊은 경우 등 - 조회를 멈추고 트랜잭션을 정리한다
+                throw new UncheckedIOException(e);
+            }
+        });
+        return written == null ? 0L : written;
+    }
+
+    private long write(Iterator<TransactionHistoryView> views,
+                       String accountNumber,
+                       ExportFormat format,
+                       Writer writer) throws IOException {
+        long count = 0;
+        while (views.hasNext()) {
+            TransactionHistoryView view = views.next();
+            if (format == ExportFormat.CSV) {
+                writeCsv(view, writer);
+            } else {
+                writer.write(objectMapper.writeValueAsString(TransactionDto.fromView(view, accountNumber)));
+            }
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    private static void writeCsv(TransactionHistoryView view, Writer writer) throws IOException {
+        writeCsvField(view.getTransactionId(), writer);
+        writer.write(',');
+        writeCsvField(String.valueOf(view.getTransactedAt()), writer);
+        writer.write(',');
+        writeCsvField(String.valueOf(view.getTransactionType()), writer);
+        writer.write(',');
+        writeCsvField(String.valueOf(view.getTransactionResultType()), writer);
+        writer.write(',');
+        writeCsvField(String.valueOf(view.getAmount()), writer);
+        writer.write(',');
+        writeCsvField(String.valueOf(view.getBalanceSnapshot()), writer);
+    }
+
+    // 지금 값에는 쉼표/따옴표가 없지만, 값의 형식이 바뀌어도 CSV 가 깨지지 않도록 모든 값을 확인한다
+    static void writeCsvField(String value, Writer writer) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
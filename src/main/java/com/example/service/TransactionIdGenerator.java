@@ -0,0 +1,17 @@
+package com.example.service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/*
+* 새 거래 id 발급
+* - account.transaction-id.generator = time-ordered : 시간순 26자 id (기본값)
+* - account.transaction-id.generator = uuid         : 랜덤 UUID 32자 (이전 방식)
+* 이미 발급된 id 는 방식을 바꿔도 그대로 조회된다 (발급 시각을 모르는 id 로 취급)
+* */
+public interface TransactionIdGenerator {
+    String nextTransactionId();
+
+    // id 에서 읽은 발급 시각 (시각이 들어있지 않은 id 면 empty)
+    Optional<LocalDateTime> issuedAt(String transactionId);
+}
@@ -0,0 +1,126 @@
+package com.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+* 시간순 거래 id 의 서버 번호 (account.transaction-id.node-id)
+* - 0 ~ 65535 로 설정하면 그 번호를 그대로 쓴다 (서버마다 다르게 설정)
+* - -1 이면 Redis 에서 다른 서버가 쓰지 않는 번호를 lease 로 받는다
+*   TXID:NODE:{번호} 키를 먼저 만든 서버가 그 번호를 쓰고, node-lease-seconds 의 1/3 마다 만료를 연장한다
+*   서버가 죽으면 lease 가 만료된 뒤 다른 서버가 같은 번호를 받는다 (그 사이 번호가 겹치지 않는다)
+*   연장하지 못한 채 lease 시간이 지나면 id 발급을 멈추고(IllegalStateException),
+*   그 사이 다른 서버가 번호를 받았으면 비어 있는 다른 번호로 바꾼다
+*   시작할 때 Redis 에 연결할 수 없으면 시작하지 않는다 (Redis 없이 쓰려면 node-id 를 설정)
+* */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.transaction-id.generator", havingValue = "time-ordered",
+        matchIfMissing = true)
+public class TransactionIdNodeLease {
+    private static final String COUNTER_KEY = "TXID:NODE:SEQ";
+    private static final String LEASE_KEY_PREFIX = "TXID:NODE:";
+
+    private final RedissonClient redissonClient;
+    private final long leaseSeconds;
+    private final String owner = UUID.randomUUID().toString();
+    private volatile int nodeId;
+    private volatile RBucket<String> lease;
+    // 이 시각(System.nanoTime)까지는 다른 서버가 같은 번호를 받을 수 없다 (Redis 요청 전 시각 + lease 시간)
+    private volatile long leaseValidUntil;
+
+    public TransactionIdNodeLease(
+            RedissonClient redissonClient,
+            @Value("${account.transaction-id.node-id:-1}") int nodeId,
+            @Value("${account.transaction-id.node-lease-seconds:60}") long leaseSeconds) {
+        this.redissonClient = redissonClient;
+        this.leaseSeconds = leaseSeconds;
+        if (nodeId >= 0) {
+            TimeOrderedTransactionIdGenerator.checkNodeId(nodeId);
+            this.nodeId = nodeId;
+            this.lease = null;
+            return;
+        }
+        long requestedAt = System.nanoTime();
+        try {
+            lease(acquire(), requestedAt);
+        } catch (RedisException e) {
+            throw new IllegalStateException("account.transaction-id.node-id is -1 but no node-id could be leased "
+                    + "from Redis - set node-id (0 ~ 65535, different per server) to run without Redis", e);
+        }
+        log.info("Transaction id node-id {} leased from Redis", this.nodeId);
+    }
+
+    // id 를 발급할 때마다 부른다
+    public int getNodeId() {
+        if (lease != null && System.nanoTime() - leaseValidUntil > 0) {
+            throw new IllegalStateException("Transaction id node-id " + nodeId
+                    + " lease could not be renewed in Redis");
+        }
+        return nodeId;
+    }
+
+    private void lease(RBucket<String> bucket, long requestedAt) {
+        this.nodeId = Integer.parseInt(bucket.getName().substring(LEASE_KEY_PREFIX.length()));
+        this.lease = bucket;
+        this.leaseValidUntil = requestedAt + TimeUnit.SECONDS.toNanos(leaseSeconds);
+    }
+
+    // 카운터 다음 번호부터 돌면서 비어 있는 번호를 찾는다 (모두 사용 중이면 시작 실패)
+    private RBucket<String> acquire() {
+        RAtomicLong counter = redissonClient.getAtomicLong(COUNTER_KEY);
+        int nodes = TimeOrderedTransactionIdGenerator.MAX_NODE_ID + 1;
+        for (int attempt = 0; attempt < nodes; attempt++) {
+            long candidate = Math.floorMod(counter.incrementAndGet(), nodes);
+            RBucket<String> bucket = redissonClient.getBucket(LEASE_KEY_PREFIX + candidate, StringCodec.INSTANCE);
+            if (bucket.trySet(owner, leaseSeconds, TimeUnit.SECONDS)) {
+                return bucket;
+            }
+        }
+        throw new IllegalStateException("No free transaction id node-id in Redis");
+    }
+
+    @Scheduled(fixedDelayString = "#{${account.transaction-id.node-lease-seconds:60} * 1000 / 3}",
+            initialDelayString = "#{${account.transaction-id.node-lease-seconds:60} * 1000 / 3}")
+    public void renew() {
+        RBucket<String> current = lease;
+        if (current == null) {
+            return;
+        }
+        long requestedAt = System.nanoTime();
+        try {
+            if ((owner.equals(current.get()) && current.expire(leaseSeconds, TimeUnit.SECONDS))
+                    || current.trySet(owner, leaseSeconds, TimeUnit.SECONDS)) {
+                leaseValidUntil = requestedAt + TimeUnit.SECONDS.toNanos(leaseSeconds);
+                return;
+            }
+            // Redis 장애 등으로 만료된 사이 다른 서버가 같은 번호를 받았다 - 비어 있는 다른 번호로 바꾼다
+            int lost = nodeId;
+            lease(acquire(), requestedAt);
+            log.error("Transaction id node-id {} was leased by another server, switched to node-id {}",
+                    lost, nodeId);
+        } catch (Exception e) {
+            // 연장하지 못한 채 lease 시간이 지나면 getNodeId 가 발급을 멈춘다
+            log.error("Transaction id node-id {} lease renewal failed", nodeId, e);
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (lease != null) {
+            lease.compareAndSet(owner, null);
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package com.example.service;
 
+import com.example.aop.ReplicaRead;
+import com.example.cache.NegativeLookupGuard;
+import com.example.cache.TransactionDtoCache;
 import com.example.domain.Account;
+import com.example.domain.ArchivedTransaction;
 import com.example.domain.AccountStatus;
-import com.example.domain.AccountUser;
 import com.example.domain.Transaction;
+import com.example.dto.BalanceResult;
 import com.example.dto.TransactionDto;
+import com.example.dto.TransactionHistoryDto;
+import com.example.dto.UseBalance;
+import com.example.event.AccountChangedEvent;
 import com.example.exception.AccountException;
+import com.example.journal.TransactionJournal;
 import com.example.repository.AccountRepository;
 import com.example.repository.AccountUserRepository;
+import com.example.repository.ArchivedTransactionRepository;
+import com.example.repository.TransactionHistoryView;
 import com.example.repository.TransactionRepository;
 import com.example.type.ErrorCode;
 import com.example.type.TransactionResultType;
@@ -15,38 +25,51 @@ import com.example.type.TransactionType;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionDtoCache transactionDtoCache;
+    private final NegativeLookupGuard negativeLookupGuard;
+    private final TransactionJournal transactionJournal;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
 
     @Transactional // 동시성 만족해게 해줌
     public TransactionDto useBalance(Long userId,
                                      String accountNumber,
                                      Long amount){
-        AccountUser user = accountUserRepository.findById(userId)
-                .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
-
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                        .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        // 조회는 계좌 한 번 - 소유주 id 는 account_user_id 컬럼 값이라 사용자를 따로 읽지 않는다
+        Account account = getAccountOfUser(userId, accountNumber);
 
-        validateUseBalance(user, account, amount);
+        validateUseBalance(userId, account, amount);
 
        // Long accountBalance = account.getBalance();
        // account.setBalance(accountBalance - amount);
         // 위처럼 중요 데이터 변경은 엔티티에 작성
 
         account.useBalance(amount); // update
+        publishAccountChanged(account);
 
 
         // insert
@@ -57,9 +80,88 @@ public class TransactionService {
         );
     }
 
-    private void validateUseBalance(AccountUser user, Account account, Long amount) {
-        if(!Objects.equals(user.getId(), account.getAccountUser().getId())){
-            throw new AccountException(ErrorCode.USER_ACCOUNT_UN_MATCH);
+    /*
+    * lock 없이 잔액 사용 (account.balance.mode = OPTIMISTIC)
+    * 읽은 version 과 같을 때만 UPDATE 하고, 다른 요청이 먼저 바꿨으면 Optional.empty()
+    * -> 재시도는 호출하는 쪽(OptimisticBalanceEngine)에서 새 트랜잭션으로 한다
+    * */
+    @Transactional
+    public Optional<TransactionDto> tryUseBalanceWithVersion(Long userId,
+                                                             String accountNumber,
+                                                             Long amount){
+        Account account = getAccountOfUser(userId, accountNumber);
+
+        validateUseBalance(userId, account, amount);
+
+        if(accountRepository.useBalanceIfVersionMatches(
+                accountNumber, amount, account.getVersion()) == 0){
+            return Optional.empty();
+        }
+        // UPDATE 후 영속성 컨텍스트가 비워졌으므로 스냅샷용 값만 맞춰준다
+        account.setBalance(account.getBalance() - amount);
+        publishAccountChanged(account);
+
+        return Optional.of(TransactionDto.fromEntity(
+                saveAndGetTransaction(
+                        TransactionType.USE, TransactionResultType.S, amount, account
+                )
+        ));
+    }
+
+    /*
+    * 같은 계좌에 대한 여러 건의 잔액 사용을 순서대로 하나의 트랜잭션에서 처리
+    * - 계좌는 한 번만 읽고, 각 건마다 검증 후 account.useBalance
+    * - 실패한 건은 F 거래로 남기고 나머지는 계속 진행 (건별 결과를 리턴)
+    * - 거래 내역은 한 번에 저장
+    * 호출하는 쪽에서 해당 계좌의 lock 을 잡고 있어야 한다
+    * */
+    @Transactional
+    public List<BalanceResult> useBalanceBatch(String accountNumber,
+                                               List<UseBalance.Request> requests){
+        List<BalanceResult> results = new ArrayList<>(requests.size());
+
+        Optional<Account> optionalAccount = negativeLookupGuard.mightContainAccount(accountNumber)
+                ? accountRepository.findByAccountNumber(accountNumber)
+                : Optional.empty();
+        if(optionalAccount.isEmpty()){
+            // 계좌가 없으면 실패 거래도 남길 수 없다 (saveFailedTransactions 와 동일)
+            requests.forEach(request -> results.add(
+                    BalanceResult.failure(new AccountException(ErrorCode.ACCOUNT_NOT_FOUND))));
+            return results;
+        }
+        Account account = optionalAccount.get();
+
+        List<Transaction> transactions = new ArrayList<>(requests.size());
+        for (UseBalance.Request request : requests) {
+            try {
+                validateUseBalance(request.getUserId(), account, request.getAmount());
+                account.useBalance(request.getAmount());
+
+                Transaction transaction = newTransaction(TransactionType.USE,
+                        TransactionResultType.S, request.getAmount(), account);
+                transactions.add(transaction);
+                TransactionDto transactionDto = TransactionDto.fromEntity(transaction);
+                transactionDtoCache.put(transactionDto);
+                results.add(BalanceResult.success(transactionDto));
+            } catch (AccountException e) {
+                transactions.add(newTransaction(TransactionType.USE,
+                        TransactionResultType.F, request.getAmount(), account));
+                results.add(BalanceResult.failure(e));
+            }
+        }
+        transactionRepository.saveAllInBatches(transactions);
+        transactions.forEach(transactionJournal::append);
+        publishAccountChanged(account);
+
+        return results;
+    }
+
+    private void validateUseBalance(Long userId, Account account, Long amount) {
+        if(!Objects.equals(userId, account.getAccountUser().getId())){
+            // 소유주가 아닐 때만 사용자가 있는지 조회
+            throw new AccountException(accountUserRepository.existsById(userId)
+                    ? ErrorCode.USER_ACCOUNT_UN_MATCH
+                    : ErrorCode.USER_NOT_FOUND);
         }
         if(account.getAccountStatus() != AccountStatus.IN_USE){
             throw new AccountException(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED);
@@ -69,11 +171,68 @@ public class TransactionService {
         }
     }
 
-    @Transactional
-    public void saveFailedTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+    // Bloom filter 에 없는 계좌번호 / 거래 id 는 DB 를 조회하지 않고 바로 NOT_FOUND
+    public Account getAccount(String accountNumber) {
+        if(!negativeLookupGuard.mightContainAccount(accountNumber)){
+            throw new AccountException(ErrorCode.ACCOUNT_NOT_FOUND);
+        }
+        return accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
-        saveAndGetTransaction(TransactionType.USE, TransactionResultType.F, amount, account);
+    }
+
+    // 계좌가 없으면 사용자도 없는지 확인해서 USER_NOT_FOUND 를 먼저 돌려준다 (실패할 때만 추가 조회)
+    private Account getAccountOfUser(Long userId, String accountNumber) {
+        try {
+            return getAccount(accountNumber);
+        } catch (AccountException e) {
+            if(!accountUserRepository.existsById(userId)){
+                throw new AccountException(ErrorCode.USER_NOT_FOUND);
+            }
+            throw e;
+        }
+    }
+
+    // 취소할 원 거래를 계좌와 함께 조회 - archive 로 옮겨진 거래는 1년이 지난 거래이므로 TOO_OLD_ORDER_TO_CANCEL
+    private Transaction getTransaction(String transactionId) {
+        if(!negativeLookupGuard.mightContainTransaction(transactionId)){
+            throw new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+        }
+        return transactionRepository.findWithAccountByTransactionId(transactionId)
+                .orElseThrow(() -> new AccountException(
+                        archivedTransactionRepository.findByTransactionId(transactionId).isPresent()
+                                ? ErrorCode.TOO_OLD_ORDER_TO_CANCEL
+                                : ErrorCode.TRANSACTION_NOT_FOUND));
+    }
+
+    // 잔액이 바뀐 계좌의 사용자 캐시 등을 커밋 후에 무효화
+    private void publishAccountChanged(Account account) {
+        eventPublisher.publishEvent(new AccountChangedEvent(
+                account.getAccountUser().getId(), account.getAccountNumber()));
+    }
+
+    /*
+    * FailureJournal 이 모아 둔 실패 거래를 한 번에 저장
+    * 계좌는 계좌번호별로 한 번만 조회하고, 없는 계좌의 건은 남길 수 없으므로 건너뛴다
+    * */
+    @Transactional
+    public void saveFailedTransactions(List<FailureJournal.Entry> entries) {
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(
+                        entries.stream().map(FailureJournal.Entry::accountNumber).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        List<Transaction> transactions = new ArrayList<>(entries.size());
+        for (FailureJournal.Entry entry : entries) {
+            Account account = accounts.get(entry.accountNumber());
+            if(account == null){
+                log.warn("Failed transaction dropped, account not found : {}", entry.accountNumber());
+                continue;
+            }
+            transactions.add(newTransaction(entry.transactionType(), TransactionResultType.F,
+                    entry.amount(), account, entry.transactionId(), entry.transactedAt()));
+        }
+        transactionRepository.saveAllInBatches(transactions);
+        transactions.forEach(transactionJournal::append);
     }
 
     private Transaction saveAndGetTransaction(
@@ -81,31 +240,53 @@ public class TransactionService {
             TransactionResultType transactionResultType,
                                               Long amount,
                                               Account account) {
-        return transactionRepository.save(
-                Transaction.builder()
-                        .transactionType(transactionType)
-                        .transactionResultType(transactionResultType)
-                        .account(account)
-                        .amount(amount)
-                        .balanceSnapshot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                        .transactedAt(LocalDateTime.now())
-                        .build()
-        );
+        Transaction transaction =
+                newTransaction(transactionType, transactionResultType, amount, account);
+        Transaction saved = transactionRepository.save(transaction);
+        transactionJournal.append(transaction);
+        transactionDtoCache.put(TransactionDto.fromEntity(transaction));
+        return saved;
+    }
+
+    private Transaction newTransaction(TransactionType transactionType,
+                                       TransactionResultType transactionResultType,
+                                       Long amount,
+                                       Account account) {
+        return newTransaction(transactionType, transactionResultType, amount, account,
+                transactionIdGenerator.nextTransactionId(), LocalDateTime.now());
+    }
+
+    private Transaction newTransaction(TransactionType transactionType,
+                                       TransactionResultType transactionResultType,
+                                       Long amount,
+                                       Account account,
+                                       String transactionId,
+                                       LocalDateTime transactedAt) {
+        // 롤백되어도 넣은 채로 두는데, 오탐이 하나 늘 뿐 조회 결과는 같다
+        negativeLookupGuard.addTransaction(transactionId);
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(account.getBalance())
+                .transactionId(transactionId)
+                .transactedAt(transactedAt)
+                .build();
     }
 
     @Transactional
     public TransactionDto cancelBalance(String transactionId,
                                         String accountNumber,
                                         Long amount) {
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        // 원 거래와 계좌를 한 번에 조회 - 요청한 계좌가 원 거래의 계좌면 다시 읽지 않는다
+        Transaction transaction = getTransaction(transactionId);
+        Account account = transaction.getAccount();
 
-        validateCancelBalance(transaction, account, amount);
+        validateCancelBalance(transaction, accountNumber, amount);
 
         account.cancelBalance(amount);
+        publishAccountChanged(account);
 
         return TransactionDto.fromEntity(
                 saveAndGetTransaction(TransactionType.CANCEL,
@@ -113,8 +294,10 @@ public class TransactionService {
         );
     }
 
-    private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
-        if(!Objects.equals(transaction.getAccount().getId(), account.getId())){
+    private void validateCancelBalance(Transaction transaction, String accountNumber, Long amount) {
+        if(!Objects.equals(transaction.getAccount().getAccountNumber(), accountNumber)){
+            // 다른 계좌면 그 계좌가 있는지만 확인 (없으면 ACCOUNT_NOT_FOUND)
+            getAccount(accountNumber);
             throw new AccountException(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH);
         }
 
@@ -127,17 +310,102 @@ public class TransactionService {
         }
     }
 
-    public void saveFailedCancelTransaction(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+    @ReplicaRead
+    @Transactional
+    public TransactionDto queryTransaction(String transactionId) {
+        // 거래 내역은 바뀌지 않으므로 캐시에 있으면 DB 를 조회하지 않는다
+        // (방금 저장한 거래는 커밋 후 캐시에 들어가므로 replica 가 늦어도 조회된다)
+        // 1년이 지나 archive 로 옮겨진 거래도 조회된다
+        return transactionDtoCache.get(transactionId, id -> {
+            if(!negativeLookupGuard.mightContainTransaction(id)){
+                throw new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+            }
+            // id 의 발급 시각이 1년 전이면 archive 로 옮겨졌을 테니 archive 부터 조회
+            boolean archivedFirst = transactionIdGenerator.issuedAt(id)
+                    .map(issuedAt -> issuedAt.isBefore(LocalDateTime.now().minusYears(1)))
+                    .orElse(false);
+            if(archivedFirst){
+                return archivedTransactionRepository.findByTransactionId(id)
+                        .map(ArchivedTransaction::toDto)
+                        .or(() -> transactionRepository.findDtoByTransactionId(id))
+                        .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+            }
+            return transactionRepository.findDtoByTransactionId(id)
+                    .or(() -> archivedTransactionRepository.findByTransactionId(id)
+                            .map(ArchivedTransaction::toDto))
+                    .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+        });
+    }
 
-        saveAndGetTransaction(TransactionType.CANCEL, TransactionResultType.F, amount, account);
+    /*
+    * 여러 거래를 한 번에 조회 (POST /transaction/query) - 찾은 거래만 id 별로 리턴
+    * - 캐시에 있는 거래는 DB 를 조회하지 않고, Bloom filter 에 없는 id 는 바로 제외
+    * - 나머지는 IN 쿼리 한 번, 거기에도 없으면 archive 에서 IN 쿼리 한 번
+    * */
+    @ReplicaRead
+    @Transactional
+    public Map<String, TransactionDto> queryTransactions(List<String> transactionIds) {
+        List<String> candidates = transactionIds.stream()
+                .filter(negativeLookupGuard::mightContainTransaction)
+                .toList();
+        if(candidates.isEmpty()){
+            return Map.of();
+        }
+        return transactionDtoCache.getAll(candidates, missing -> {
+            List<String> missingIds = List.copyOf(missing);
+            Map<String, TransactionDto> found = transactionRepository.findDtoByTransactionIdIn(missingIds)
+                    .stream()
+                    .collect(Collectors.toMap(TransactionDto::getTransactionId, Function.identity(),
+                            (first, second) -> first, HashMap::new));
+            List<String> archivedIds = missingIds.stream()
+                    .filter(id -> !found.containsKey(id))
+                    .toList();
+            if(!archivedIds.isEmpty()){
+                archivedTransactionRepository.findByTransactionIdIn(archivedIds)
+                        .forEach(archived -> found.put(archived.getTransactionId(), archived.toDto()));
+            }
+            return found;
+        });
     }
 
+    /*
+    * 계좌의 거래 내역을 최신순으로 size 건씩 조회 (archive 로 옮겨진 거래는 제외)
+    * cursor 가 없으면 첫 페이지, 있으면 그 거래 다음부터
+    * -> offset 을 쓰지 않으므로 뒤쪽 페이지도 첫 페이지와 같은 비용
+    * */
+    @ReplicaRead
     @Transactional
-    public TransactionDto queryTransaction(String transactionId) {
-        return TransactionDto.fromEntity(
-                transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)));
+    public TransactionHistoryDto getTransactionHistory(String accountNumber,
+                                                       String cursor,
+                                                       int size) {
+        if(size < 1 || size > MAX_HISTORY_PAGE_SIZE){
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+        Account account = getAccount(accountNumber);
+
+        // 한 건 더 읽어서 다음 페이지가 있는지 확인
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<TransactionHistoryView> views;
+        if(cursor == null || cursor.isBlank()){
+            views = transactionRepository.findHistory(account.getId(), limit);
+        } else {
+            TransactionHistoryDto.Cursor after = TransactionHistoryDto.Cursor.decode(cursor);
+            views = transactionRepository.findHistoryBefore(
+                    account.getId(), after.transactedAt(), after.id(), limit);
+        }
+
+        boolean hasNext = views.size() > size;
+        List<TransactionHistoryView> page = hasNext ? views.subList(0, size) : views;
+        TransactionHistoryView last = page.isEmpty() ? null : page.get(page.size() - 1);
+
+        return TransactionHistoryDto.builder()
+                .accountNumber(accountNumber)
+                .transactions(page.stream()
+                        .map(view -> TransactionDto.fromView(view, accountNumber))
+                        .toList())
+                .nextCursor(hasNext
+                        ? new TransactionHistoryDto.Cursor(last.getTransactedAt(), last.getId()).encode()
+                        : null)
+                .build();
     }
-}
\ No newline at end of file
+}
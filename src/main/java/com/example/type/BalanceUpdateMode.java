@@ -0,0 +1,23 @@
+package com.example.type;
+
+import lombok.AllArgsConstructor;
+
+/*
+* 잔액 변경(사용/취소) 처리 방식 - account.balance.mode
+* 각 모드마다 @AccountLock 으로 요청 단위 계좌 lock 이 필요한지가 다르다
+* */
+@AllArgsConstructor
+public enum BalanceUpdateMode {
+    LOCKED(true, true),      // 요청마다 계좌 lock + JPA dirty checking (기본값)
+    OPTIMISTIC(false, true), // 사용은 lock 없이 version 조건부 UPDATE, 취소는 기존처럼 lock
+    MAILBOX(false, true),    // 사용은 계좌별 큐에 모아서 배치마다 한 번만 lock, 취소는 기존처럼 lock
+    REDIS(false, false),     // 잔액을 Redis 에 두고 Lua 스크립트 한 번으로 검증 + 차감, DB 는 나중에 반영
+    LEDGER(false, false);    // 스레드 하나가 메모리의 계좌 테이블에 순서대로 반영, DB 는 묶어서 저장
+
+    private final boolean useLocked;
+    private final boolean cancelLocked;
+
+    public boolean needsAccountLock(TransactionType transactionType) {
+        return transactionType == TransactionType.CANCEL ? cancelLocked : useLocked;
+    }
+}
@@ -3,4 +3,9 @@ values (1, 'Pororo', now(), now());
 insert into account_user(id, name, created_at, updated_at)
 values (2, 'Lupi', now(), now());
 insert into account_user(id, name, created_at, updated_at)
-values (3, 'Eddie', now(), now());
\ No newline at end of file
+values (3, 'Eddie', now(), now());
+-- 위에서 id 1 ~ 3 을 직접 넣었으므로 JPA 로 만드는 사용자 id 는 그 다음부터 (pooled-lo : 시퀀스 값부터 100 개)
+alter sequence account_user_seq restart with 4;
+
+-- 계좌번호 범위 예약용 (increment 는 account.number.block-size 와 같아야 한다)
+create sequence if not exists account_number_seq start with 1000000000 increment by 100;
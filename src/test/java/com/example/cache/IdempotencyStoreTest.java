@@ -0,0 +1,217 @@
+package com.example.cache;
+
+import com.example.dto.UseBalance;
+import com.example.exception.AccountException;
+import com.example.type.ErrorCode;
+import com.example.type.TransactionResultType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.beans.factory.ObjectProvider;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class IdempotencyStoreTest {
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private final IdempotencyStore idempotencyStore =
+            new IdempotencyStore(null, new ObjectMapper(), 1000, 60, 1000, 60000, false);
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @Test
+    void replayCompletedResponse() {
+        //when
+        UseBalance.Response first = idempotencyStore.execute("useBalance:key", "request",
+                this::response);
+        UseBalance.Response second = idempotencyStore.execute("useBalance:key", "request",
+                this::response);
+
+        //then
+        assertEquals(1, executions.get());
+        assertSame(first, second);
+    }
+
+    @Test
+    void coalesceConcurrentDuplicates() throws Exception {
+        //given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<UseBalance.Response> first = CompletableFuture.supplyAsync(() ->
+                idempotencyStore.execute("useBalance:key", "request", () -> {
+                    started.countDown();
+                    await(release);
+                    return response();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        //when
+        CompletableFuture<UseBalance.Response> second = CompletableFuture.supplyAsync(() ->
+                idempotencyStore.execute("useBalance:key", "request", this::response));
+        release.countDown();
+
+        //then
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void replayDeterministicFailure() {
+        //given
+        assertThrows(AccountException.class, () ->
+                idempotencyStore.execute("useBalance:key", "request", () -> {
+                    executions.incrementAndGet();
+                    throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+                }));
+
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                idempotencyStore.execute("useBalance:key", "request", this::response));
+
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void retryAfterLockFailure() {
+        //given
+        assertThrows(AccountException.class, () ->
+                idempotencyStore.execute("useBalance:key", "request", () -> {
+                    throw new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK);
+                }));
+
+        //when
+        UseBalance.Response response = idempotencyStore.execute("useBalance:key", "request",
+                this::response);
+
+        //then
+        assertEquals("1000000000", response.getAccountNumber());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void retryAfterInternalError() {
+        //given
+        assertThrows(AccountException.class, () ->
+                idempotencyStore.execute("useBalance:key", "request", () -> {
+                    throw new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+                }));
+
+        //when
+        UseBalance.Response response = idempotencyStore.execute("useBalance:key", "request",
+                this::response);
+
+        //then
+        assertEquals("1000000000", response.getAccountNumber());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void leaseIsRenewedWhileOtherServerWaits() throws Exception {
+        //given
+        redissonClient.getKeys().flushall();
+        // lease 보다 오래 걸리는 요청 - 연장하지 않으면 다른 서버가 같은 요청을 한 번 더 실행한다
+        IdempotencyStore server1 = redisTierStore();
+        IdempotencyStore server2 = redisTierStore();
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<UseBalance.Response> first = CompletableFuture.supplyAsync(() ->
+                server1.execute("useBalance:lease", "request", () -> {
+                    started.countDown();
+                    sleep(1000);
+                    return response();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        //when
+        UseBalance.Response second = server2.execute("useBalance:lease", "request",
+                this::response);
+
+        //then
+        assertEquals(first.get(5, TimeUnit.SECONDS).getTransactionId(), second.getTransactionId());
+        assertEquals(1, executions.get());
+        server1.shutdown();
+        server2.shutdown();
+    }
+
+    @Test
+    void rejectDifferentRequestWithSameKey() {
+        //given
+        idempotencyStore.execute("useBalance:key", "request", this::response);
+
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                idempotencyStore.execute("useBalance:key", "other request", this::response));
+
+        //then
+        assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+        assertEquals(1, executions.get());
+    }
+
+    private UseBalance.Response response() {
+        executions.incrementAndGet();
+        return UseBalance.Response.builder()
+                .accountNumber("1000000000")
+                .transactionResult(TransactionResultType.S)
+                .transactionId("transactionId")
+                .amount(1000L)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IdempotencyStore redisTierStore() {
+        ObjectProvider<RedissonClient> provider = mock(ObjectProvider.class);
+        given(provider.getObject()).willReturn(redissonClient);
+        return new IdempotencyStore(provider, new ObjectMapper(), 1000, 60, 5000, 300, true);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NegativeLookupGuardTest {
+
+    @Test
+    void restoreKeepsValuesAddedWhileLoading() throws Exception {
+        //given
+        NegativeLookupGuard negativeLookupGuard = new NegativeLookupGuard(true, 100000, 1000, 0.01);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        Future<?> adding = executor.submit(() -> {
+            started.countDown();
+            for (int i = 0; i < 20000; i++) {
+                negativeLookupGuard.addTransaction("t" + i);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        //when
+        // 적재 중에 파일에서 읽은 filter 로 여러 번 바꿔도 그 사이 넣은 값은 남아야 한다
+        while (!adding.isDone()) {
+            negativeLookupGuard.restore(negativeLookupGuard.newTransactionFilter(),
+                    negativeLookupGuard.newAccountFilter());
+        }
+        adding.get();
+        executor.shutdown();
+        negativeLookupGuard.markReady();
+
+        //then
+        for (int i = 0; i < 20000; i++) {
+            assertTrue(negativeLookupGuard.mightContainTransaction("t" + i));
+        }
+    }
+
+    @Test
+    void disabledGuardAlwaysAllowsLookup() {
+        //given
+        NegativeLookupGuard negativeLookupGuard = new NegativeLookupGuard(false, 1000, 1000, 0.01);
+
+        //when
+        negativeLookupGuard.markReady();
+
+        //then
+        assertTrue(negativeLookupGuard.mightContainTransaction("unknown"));
+        assertTrue(negativeLookupGuard.mightContainAccount("unknown"));
+    }
+}
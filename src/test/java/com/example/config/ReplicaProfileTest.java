@@ -0,0 +1,73 @@
+package com.example.config;
+
+import com.example.domain.Account;
+import com.example.domain.AccountStatus;
+import com.example.domain.AccountUser;
+import com.example.exception.AccountException;
+import com.example.repository.AccountRepository;
+import com.example.repository.AccountUserRepository;
+import com.example.service.AccountService;
+import com.example.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+* replica 프로필 설정으로 @ReplicaRead 조회는 replica, 쓰기와 일반 조회는 primary 로 가는지 확인
+* replica 는 시작할 때 primary 를 복사한 별도 DB 라서, 그 뒤에 쓴 계좌는 replica 에서 보이지 않는다
+* */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:profile-primary;DB_CLOSE_DELAY=-1",
+        "account.datasource.replica.enabled=true",
+        "account.datasource.replica.url=jdbc:h2:mem:profile-replica;DB_CLOSE_DELAY=-1",
+        "account.datasource.replica.seed-from-primary=true",
+        // 다른 SpringBootTest 컨텍스트의 embedded Redis 와 겹치지 않도록
+        "spring.redis.port=16379",
+        "account.lookup-guard.enabled=false",
+        "account.journal.enabled=false"
+})
+class ReplicaProfileTest {
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Test
+    @DisplayName("replica 는 시작할 때 primary 를 복사해 둔다")
+    void replicaReadUsesSeededReplica() {
+        //when
+        //then
+        // data.sql 의 사용자는 복사되어 있다 (계좌는 아직 없음)
+        assertTrue(accountService.getAccountInfoByUserId(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("쓰기는 primary 에만, @ReplicaRead 조회는 replica 에서")
+    void writeGoesToPrimaryOnly() {
+        //given
+        AccountUser user = accountUserRepository.findById(2L).orElseThrow();
+        //when
+        Account account = accountRepository.save(Account.builder()
+                .accountUser(user)
+                .accountNumber("8000000001")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(1000L)
+                .registeredAt(LocalDateTime.now())
+                .build());
+        //then
+        // primary 로 가는 조회에는 보이고
+        assertTrue(accountRepository.findDtoById(account.getId()).isPresent());
+        // @ReplicaRead 조회는 replica 로 가므로 보이지 않는다
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.getAccount(account.getId()));
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, exception.getErrorCode());
+        assertTrue(accountService.getAccountInfoByUserId(2L).isEmpty());
+    }
+}
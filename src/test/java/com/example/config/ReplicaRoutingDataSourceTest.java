@@ -0,0 +1,94 @@
+package com.example.config;
+
+import com.example.aop.ReplicaRead;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+* 서로 다른 H2 DB 두 개를 primary / replica 로 두고, 어느 쪽에서 읽는지 확인
+* */
+class ReplicaRoutingDataSourceTest {
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("routing-primary");
+        DataSource replica = database("routing-replica");
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replica));
+        jdbcTemplate = new JdbcTemplate(routing);
+        transactionManager = new DataSourceTransactionManager(routing);
+    }
+
+    @Test
+    @DisplayName("트랜잭션 밖, 일반 트랜잭션은 primary")
+    void readsPrimaryByDefault() {
+        assertEquals("routing-primary", whereAmI());
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        assertEquals("routing-primary", transactionTemplate.execute(status -> whereAmI()));
+    }
+
+    @Test
+    @DisplayName("readOnly 트랜잭션이라도 @ReplicaRead 가 아니면 primary")
+    void readOnlyTransactionReadsPrimary() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        assertEquals("routing-primary", transactionTemplate.execute(status -> whereAmI()));
+    }
+
+    @Test
+    @DisplayName("@ReplicaRead 는 replica, 쓰기 트랜잭션 안에서 호출하면 primary")
+    void replicaReadAnnotation() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Reader(this));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ReplicaReadAspect());
+        Reader reader = factory.getProxy();
+
+        assertEquals("routing-replica", reader.read());
+        assertFalse(ReplicaRoutingDataSource.isReplicaRead());
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        assertEquals("routing-primary", transactionTemplate.execute(status -> reader.read()));
+    }
+
+    private String whereAmI() {
+        return jdbcTemplate.queryForObject("select name from marker", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists marker(name varchar(32))");
+        jdbcTemplate.update("delete from marker");
+        jdbcTemplate.update("insert into marker(name) values (?)", name);
+        return dataSource;
+    }
+
+    static class Reader {
+        private final ReplicaRoutingDataSourceTest test;
+
+        Reader(ReplicaRoutingDataSourceTest test) {
+            this.test = test;
+        }
+
+        @ReplicaRead
+        public String read() {
+            return test.whereAmI();
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.controller;
 
+import com.example.cache.AccountInfoCache;
 import com.example.domain.Account;
 import com.example.domain.AccountStatus;
 import com.example.domain.AccountUser;
 import com.example.dto.AccountDto;
+import com.example.dto.AccountInfo;
 import com.example.dto.CreateAccount;
 import com.example.dto.DeleteAccount;
 import com.example.exception.AccountException;
@@ -18,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultMatcher;
@@ -31,6 +34,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -39,6 +44,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 
 @WebMvcTest(AccountController.class)
+@Import(AccountInfoCache.class)
 class AccountControllerTest {
     @MockBean
     private AccountService accountService;
@@ -88,19 +94,18 @@ class AccountControllerTest {
     @Test
         void successGetAccount() throws Exception {
             //given
-        Account account = Account.builder()
-                .accountNumber("3456")
-                .accountStatus(AccountStatus.IN_USE)
-                .build();
-        account.setId(213123L);
-
         given(accountService.getAccount(anyLong()))
-                .willReturn(account);
+                .willReturn(AccountDto.builder()
+                        .userId(12L)
+                        .accountNumber("3456")
+                        .accountStatus(AccountStatus.IN_USE)
+                        .build());
             //when
             //then
         mockMvc.perform(get("/account/876"))
                 .andDo(print())
-                .andExpect(jsonPath("$.id").value(213123L))
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.userId").value(12L))
                 .andExpect(jsonPath("$.accountNumber").value("3456"))
                 .andExpect(jsonPath("$.accountStatus").value("IN_USE"))
                 .andExpect(status().isOk());
@@ -136,21 +141,21 @@ class AccountControllerTest {
             @Test
                 void successGetAccountsByUserId() throws Exception {
                     //given
-                List<AccountDto> accountDtos =
-                        Arrays.asList(AccountDto.builder()
+                List<AccountInfo> accountInfos =
+                        Arrays.asList(AccountInfo.builder()
                                         .accountNumber("1234567890")
                                         .balance(1000L)
                                 .build(),
-                                AccountDto.builder()
+                                AccountInfo.builder()
                                         .accountNumber("111111111")
                                         .balance(1000L)
                                         .build(),
-                                AccountDto.builder()
+                                AccountInfo.builder()
                                         .accountNumber("222222222")
                                         .balance(1000L)
                                         .build());
-                given(accountService.getAccountByUserId(anyLong()))
-                        .willReturn(accountDtos);
+                given(accountService.getAccountInfoByUserId(anyLong()))
+                        .willReturn(accountInfos);
                     //when
                     //then
 
@@ -179,4 +184,21 @@ class AccountControllerTest {
                             .andExpect(jsonPath("$.errorMessage").value("계좌가 없습니다"))
                             .andExpect(status().isOk());
                     }
-}
\ No newline at end of file
+
+            @Test
+                void getAccountsByUserId_cached() throws Exception {
+                    //given
+                given(accountService.getAccountInfoByUserId(anyLong()))
+                        .willReturn(List.of(AccountInfo.builder()
+                                .accountNumber("1234567890")
+                                .balance(1000L)
+                                .build()));
+                    //when
+                mockMvc.perform(get("/account?user_id=7"));
+                mockMvc.perform(get("/account?user_id=7"))
+                        .andExpect(jsonPath("$[0].accountNumber").value("1234567890"));
+                    //then
+                // 두번째 조회는 캐시에서 응답
+                verify(accountService, times(1)).getAccountInfoByUserId(7L);
+                }
+}
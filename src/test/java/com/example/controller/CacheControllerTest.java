@@ -0,0 +1,33 @@
+package com.example.controller;
+
+import com.example.cache.MonitoredCache;
+import com.example.dto.CacheStatsResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheControllerTest {
+    @Test
+    void statsDisabledCacheIsNotReported() {
+        //given
+        MonitoredCache enabled = () -> CacheStatsResponse.builder().name("accountInfo").build();
+        MonitoredCache disabled = new MonitoredCache() {
+            @Override
+            public CacheStatsResponse getStats() {
+                return CacheStatsResponse.builder().name("hibernate:account-user").build();
+            }
+
+            @Override
+            public boolean isStatsEnabled() {
+                return false;
+            }
+        };
+        CacheController cacheController = new CacheController(List.of(enabled, disabled));
+        //when
+        List<CacheStatsResponse> stats = cacheController.getCacheStats();
+        //then
+        assertEquals(List.of("accountInfo"), stats.stream().map(CacheStatsResponse::getName).toList());
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.controller;
+
+import com.example.domain.Account;
+import com.example.domain.AccountStatus;
+import com.example.domain.AccountUser;
+import com.example.domain.Transaction;
+import com.example.dto.CancelBalance;
+import com.example.dto.UseBalance;
+import com.example.repository.AccountRepository;
+import com.example.repository.AccountUserRepository;
+import com.example.repository.TransactionRepository;
+import com.example.type.TransactionResultType;
+import com.example.type.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+* API 하나가 DB 에 보내는 SQL 수를 확인 (Hibernate statistics)
+* - 조회 : 연관관계를 EAGER 로 되돌리거나 projection 대신 엔티티를 읽으면 실패
+* - 잔액 사용/취소 : 검증에 필요한 조회는 한 번, 나머지는 계좌 UPDATE + 거래 INSERT
+* */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "account.lookup-guard.enabled=false",
+        "account.journal.enabled=false"
+})
+@AutoConfigureMockMvc
+class StatementCountTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private AccountUser user;
+    private Account account;
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 8);
+        user = accountUserRepository.save(AccountUser.builder()
+                .name("statement-" + suffix)
+                .build());
+        account = accountRepository.save(Account.builder()
+                .accountUser(user)
+                .accountNumber("9" + String.format("%09d", Math.abs(suffix.hashCode()) % 1_000_000_000))
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .registeredAt(LocalDateTime.now())
+                .build());
+        transaction = transactionRepository.save(Transaction.builder()
+                .account(account)
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactionId("statement" + suffix)
+                .transactedAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Test
+    @DisplayName("GET /account/{id} - 계좌 projection 1번")
+    void getAccount() throws Exception {
+        assertStatements(1, () -> mockMvc.perform(get("/account/" + account.getId()))
+                .andExpect(jsonPath("$.accountNumber").value(account.getAccountNumber()))
+                .andExpect(jsonPath("$.userId").value(user.getId())));
+    }
+
+    @Test
+    @DisplayName("GET /account?user_id= - 사용자는 2차 캐시, 계좌 목록 projection 1번, 두번째는 캐시")
+    void getAccountsByUserId() throws Exception {
+        assertStatements(1, () -> mockMvc.perform(get("/account?user_id=" + user.getId()))
+                .andExpect(jsonPath("$[0].accountNumber").value(account.getAccountNumber())));
+        assertStatements(0, () -> mockMvc.perform(get("/account?user_id=" + user.getId())));
+    }
+
+    @Test
+    @DisplayName("GET /transaction/{id} - 거래 + 계좌번호 join 1번 (account_user 는 읽지 않음)")
+    void queryTransaction() throws Exception {
+        assertStatements(1, () -> mockMvc.perform(get("/transaction/" + transaction.getTransactionId()))
+                .andExpect(jsonPath("$.accountNumber").value(account.getAccountNumber()))
+                .andExpect(jsonPath("$.transactionId").value(transaction.getTransactionId())));
+    }
+
+    @Test
+    @DisplayName("GET /transaction?account_number= - 계좌 1번 + 거래 내역 projection 1번")
+    void getTransactionHistory() throws Exception {
+        assertStatements(2, () -> mockMvc.perform(get("/transaction")
+                        .param("account_number", account.getAccountNumber()))
+                .andExpect(jsonPath("$.transactions[0].transactionId").value(transaction.getTransactionId())));
+    }
+
+    @Test
+    @DisplayName("POST /transaction/use - 계좌 조회 1번 + UPDATE + INSERT (사용자는 읽지 않음)")
+    void useBalance() throws Exception {
+        // 계좌번호 -> id 가 캐시에 없을 때 (natural id 조회 1번)
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = statistics();
+        statistics.clear();
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(user.getId(), account.getAccountNumber(), 1000L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionResult").value("S"));
+
+        assertEquals(1, reads(statistics), "검증용 조회는 한 번이어야 합니다");
+        assertEquals(1, statistics.getEntityUpdateCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    @DisplayName("계좌번호 -> 계좌 id 는 두번째 조회부터 2차 캐시")
+    void accountNumberNaturalIdCache() throws Exception {
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = statistics();
+        statistics.clear();
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/transaction")
+                            .param("account_number", account.getAccountNumber()))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(1, statistics.getNaturalIdQueryExecutionCount());
+        assertEquals(1, statistics.getNaturalIdCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("POST /transaction/cancel - 원 거래 + 계좌 fetch join 1번 + UPDATE + INSERT")
+    void cancelBalance() throws Exception {
+        Statistics statistics = statistics();
+        statistics.clear();
+        mockMvc.perform(post("/transaction/cancel")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new CancelBalance.Request(transaction.getTransactionId(),
+                                        account.getAccountNumber(), 1000L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionResult").value("S"));
+
+        assertEquals(1, reads(statistics), "검증용 조회는 한 번이어야 합니다");
+        assertEquals(1, statistics.getEntityUpdateCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+    }
+
+    // 쿼리(JPQL/메서드 이름, natural id) + LAZY 초기화
+    private static long reads(Statistics statistics) {
+        return statistics.getQueryExecutionCount()
+                + statistics.getNaturalIdQueryExecutionCount()
+                + statistics.getEntityFetchCount()
+                + statistics.getCollectionFetchCount();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // 통계를 지운 뒤 요청을 보내고 그 사이에 실행된 SQL 수를 비교
+    private void assertStatements(long expected, ThrowingRequest request) throws Exception {
+        Statistics statistics = statistics();
+        statistics.clear();
+        request.perform().andExpect(status().isOk());
+        assertEquals(expected, statistics.getPrepareStatementCount(),
+                "SQL 수가 다릅니다 : " + statistics.getQueries().length + " queries");
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRequest {
+        ResultActions perform() throws Exception;
+    }
+}
@@ -1,12 +1,21 @@
 package com.example.controller;
 
-import com.example.domain.Account;
 import com.example.domain.AccountStatus;
 import com.example.dto.CancelBalance;
+import com.example.dto.QueryTransactions;
 import com.example.dto.TransactionDto;
+import com.example.dto.TransactionHistoryDto;
 import com.example.dto.UseBalance;
+import com.example.dto.UseBalanceBatch;
+import com.example.dto.BalanceResult;
+import com.example.exception.AccountException;
+import com.example.service.BulkBalanceService;
+import com.example.service.FailureJournal;
+import com.example.service.TransactionExportService;
 import com.example.service.TransactionService;
+import com.example.type.ErrorCode;
 import com.example.type.TransactionResultType;
+import com.example.type.ExportFormat;
 import com.example.type.TransactionType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -15,17 +24,27 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 import static org.awaitility.Awaitility.given;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TransactionalController.class)
@@ -33,6 +52,15 @@ class TransactionalControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private FailureJournal failureJournal;
+
+    @MockBean
+    private TransactionExportService transactionExportService;
+
+    @MockBean
+    private BulkBalanceService bulkBalanceService;
+
     @Autowired
     MockMvc mockMvc;
 
@@ -67,6 +95,99 @@ class TransactionalControllerTest {
 
         }
 
+    @Test
+    void failUseBalance_recordedToJournal() throws Exception {
+        //given
+        given(transactionService.useBalance(anyLong(), anyString(), anyLong()))
+                .willThrow(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+        //when
+        //then
+        mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, "2000000000", 3000L)
+                        )))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("AMOUNT_EXCEED_BALANCE"));
+        verify(failureJournal).record(TransactionType.USE, "2000000000", 3000L);
+    }
+
+    @Test
+    void useBalanceBatch_resultsPerItem() throws Exception {
+        //given
+        given(bulkBalanceService.useBalances(anyList()))
+                .willReturn(List.of(
+                        BalanceResult.success(TransactionDto.builder()
+                                .accountNumber("2000000000")
+                                .amount(3000L)
+                                .transactedAt(LocalDateTime.now())
+                                .transactionId("transactionId")
+                                .transactionResultType(TransactionResultType.S)
+                                .build()),
+                        BalanceResult.failure(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE))));
+        //when
+        //then
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceBatch.Request(List.of(
+                                        new UseBalance.Request(1L, "2000000000", 3000L),
+                                        new UseBalance.Request(1L, "2000000000", 900000L)))
+                        )))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.successCount").value(1))
+                .andExpect(jsonPath("$.failureCount").value(1))
+                .andExpect(jsonPath("$.results[0].transactionResult").value("S"))
+                .andExpect(jsonPath("$.results[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.results[1].transactionResult").value("F"))
+                .andExpect(jsonPath("$.results[1].amount").value(900000L))
+                .andExpect(jsonPath("$.results[1].errorCode").value("AMOUNT_EXCEED_BALANCE"));
+    }
+
+    @Test
+    void useBalanceBatch_invalidItem() throws Exception {
+        //given
+        //when
+        //then
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceBatch.Request(List.of(
+                                        new UseBalance.Request(1L, "2000000000", 1L)))
+                        )))
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+        verify(bulkBalanceService, never()).useBalances(anyList());
+    }
+
+    @Test
+    void queryTransactions_inRequestOrderWithNotFound() throws Exception {
+        //given
+        given(transactionService.queryTransactions(anyList()))
+                .willReturn(Map.of("second", TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionType(TransactionType.USE)
+                        .transactionResultType(TransactionResultType.S)
+                        .transactionId("second")
+                        .amount(3000L)
+                        .transactedAt(LocalDateTime.now())
+                        .build()));
+        //when
+        //then
+        mockMvc.perform(post("/transaction/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new QueryTransactions.Request(List.of("first", "second")))))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].transactionId").value("first"))
+                .andExpect(jsonPath("$.results[0].found").value(false))
+                .andExpect(jsonPath("$.results[1].transactionId").value("second"))
+                .andExpect(jsonPath("$.results[1].found").value(true))
+                .andExpect(jsonPath("$.results[1].transaction.amount").value(3000L));
+    }
+
     @Test
     void successCancelBalance() throws Exception {
         //given
@@ -119,4 +240,71 @@ class TransactionalControllerTest {
         // $. -> json 시작점
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void successGetTransactionHistory() throws Exception {
+        //given
+        given(transactionService.getTransactionHistory(anyString(), isNull(), anyInt()))
+                .willReturn(TransactionHistoryDto.builder()
+                        .accountNumber("1000000000")
+                        .transactions(List.of(TransactionDto.builder()
+                                .accountNumber("1000000000")
+                                .transactionType(TransactionType.USE)
+                                .transactionResultType(TransactionResultType.S)
+                                .transactionId("transactionId")
+                                .amount(1000L)
+                                .transactedAt(LocalDateTime.now())
+                                .build()))
+                        .nextCursor("nextCursor")
+                        .build());
+        //when
+        //then
+        mockMvc.perform(get("/transaction").param("account_number", "1000000000"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.transactions[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.transactions[0].amount").value(1000L))
+                .andExpect(jsonPath("$.nextCursor").value("nextCursor"));
+        verify(transactionService).getTransactionHistory("1000000000", null, 20);
+    }
+
+    @Test
+    void successExportTransactions() throws Exception {
+        //given
+        given(transactionExportService.getAccountId("1000000000"))
+                .willReturn(12L);
+        given(transactionExportService.export(any(), any(), any(), any(), any(), any()))
+                .willAnswer(invocation -> {
+                    invocation.<OutputStream>getArgument(5).write("csv-body".getBytes());
+                    return 1L;
+                });
+        //when
+        MvcResult result = mockMvc.perform(get("/transaction/export")
+                        .param("account_number", "1000000000")
+                        .param("format", "csv")
+                        .param("from", "2024-01-01T00:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"1000000000.csv\""))
+                .andExpect(content().string("csv-body"));
+        verify(transactionExportService).export(eq(12L), eq("1000000000"),
+                eq(LocalDateTime.of(2024, 1, 1, 0, 0)), isNull(), eq(ExportFormat.CSV), any());
+    }
+
+    @Test
+    void failExportTransactions_unknownFormat() throws Exception {
+        //given
+        //when
+        //then
+        mockMvc.perform(get("/transaction/export")
+                        .param("account_number", "1000000000")
+                        .param("format", "xml"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.journal;
+
+import com.example.domain.Account;
+import com.example.domain.Transaction;
+import com.example.type.TransactionResultType;
+import com.example.type.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionJournalTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void appendRollsSegmentsAndReplaysInOrder() throws Exception {
+        //given
+        TransactionJournal journal = new TransactionJournal(true, tempDir.toString(), 4, false);
+        journal.open();
+        for (int i = 1; i <= 10; i++) {
+            journal.append(transaction("trx" + i, i * 100L));
+        }
+        journal.close();
+        //when
+        List<JournalRecord> records = new ArrayList<>();
+        long last = new TransactionJournalReader(tempDir).replay(3, records::add);
+        //then
+        assertEquals(3, TransactionJournal.segments(tempDir).size());
+        assertEquals(10, last);
+        assertEquals(8, records.size());
+        assertEquals(3, records.get(0).sequence());
+        assertEquals("trx3", records.get(0).transactionId());
+        assertEquals(300L, records.get(0).amount());
+        assertEquals(TransactionResultType.S, records.get(0).transactionResultType());
+        assertEquals("trx10", records.get(7).transactionId());
+    }
+
+    @Test
+    void reopenContinuesAfterLastRecord() throws Exception {
+        //given
+        TransactionJournal journal = new TransactionJournal(true, tempDir.toString(), 4, false);
+        journal.open();
+        journal.append(transaction("trx1", 100L));
+        journal.append(transaction("trx2", 200L));
+        journal.close();
+        //when
+        TransactionJournal reopened = new TransactionJournal(true, tempDir.toString(), 4, false);
+        reopened.open();
+        reopened.append(transaction("trx3", 300L));
+        reopened.close();
+        //then
+        assertEquals(3, reopened.lastSequence());
+        List<JournalRecord> records = new ArrayList<>();
+        reopened.newReader().replay(1, records::add);
+        assertEquals(List.of("trx1", "trx2", "trx3"),
+                records.stream().map(JournalRecord::transactionId).toList());
+    }
+
+    @Test
+    void corruptedRecordIsDetected() throws Exception {
+        //given
+        TransactionJournal journal = new TransactionJournal(true, tempDir.toString(), 4, false);
+        journal.open();
+        journal.append(transaction("trx1", 100L));
+        journal.close();
+        try (RandomAccessFile file = new RandomAccessFile(
+                tempDir.resolve(TransactionJournal.fileName(1)).toFile(), "rw")) {
+            file.seek(24); // amount
+            file.writeLong(999L);
+        }
+        //when
+        //then
+        assertThrows(IllegalStateException.class,
+                () -> new TransactionJournalReader(tempDir).replay(1, record -> { }));
+    }
+
+    private static Transaction transaction(String transactionId, Long amount) {
+        Account account = Account.builder().balance(10000L).build();
+        account.setId(7L);
+        return Transaction.builder()
+                .account(account)
+                .transactionId(transactionId)
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .amount(amount)
+                .balanceSnapshot(10000L - amount)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+}
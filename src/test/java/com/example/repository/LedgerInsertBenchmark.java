@@ -0,0 +1,118 @@
+package com.example.repository;
+
+import com.example.domain.Account;
+import com.example.domain.AccountStatus;
+import com.example.domain.Transaction;
+import com.example.type.TransactionResultType;
+import com.example.type.TransactionType;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+* 거래 내역 INSERT 속도 비교 (./gradlew benchmark 로만 실행)
+* - row-by-row : 기존 저장 방식 - 건마다 트랜잭션 하나 (시퀀스 조회 1번 + INSERT 1번 + commit 1번), JDBC batch 없음
+* - batched    : 트랜잭션 하나에서 saveAllInBatches, 시퀀스는 100 개씩 (pooled-lo), batch_size 단위 JDBC batch
+* */
+@Tag("benchmark")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LedgerInsertBenchmark {
+    private static final Logger log = LoggerFactory.getLogger(LedgerInsertBenchmark.class);
+    private static final int ROWS = 20_000;
+    private static final int WARM_UP_ROWS = 2_000;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Long accountId;
+
+    @Test
+    @DisplayName("건별 저장 vs batch 저장 rows/sec")
+    void rowByRowVsBatched() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        accountId = transactionTemplate.execute(status -> accountRepository.save(
+                Account.builder()
+                        .accountNumber("3000000000")
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(0L)
+                        .build()).getId());
+
+        measure(WARM_UP_ROWS, this::insertRowByRow);
+        measure(WARM_UP_ROWS, this::insertBatched);
+
+        double before = measure(ROWS, this::insertRowByRow);
+        double after = measure(ROWS, this::insertBatched);
+
+        log.info("Ledger insert : row-by-row {} rows/s, batched {} rows/s ({}x)",
+                Math.round(before), Math.round(after), String.format("%.2f", after / before));
+        assertEquals(2L * (ROWS + WARM_UP_ROWS), transactionRepository.count());
+    }
+
+    private double measure(int rows, IntConsumer writer) {
+        long started = System.nanoTime();
+        writer.accept(rows);
+        return rows / ((System.nanoTime() - started) / 1_000_000_000.0);
+    }
+
+    // 건마다 commit, id 도 건마다 시퀀스에서 받던 것처럼 시퀀스를 한 번씩 조회한다
+    // (엔티티의 id 는 pooled-lo 로 채워지므로 조회한 값은 쓰지 않고 비용만 맞춘다)
+    private void insertRowByRow(int rows) {
+        for (int i = 0; i < rows; i++) {
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+                entityManager.createNativeQuery("select next value for transaction_seq")
+                        .getSingleResult();
+                transactionRepository.save(newTransaction(accountRepository.getReferenceById(accountId)));
+            });
+        }
+    }
+
+    private void insertBatched(int rows) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Account account = accountRepository.getReferenceById(accountId);
+            List<Transaction> transactions = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                transactions.add(newTransaction(account));
+            }
+            transactionRepository.saveAllInBatches(transactions);
+        });
+    }
+
+    private static Transaction newTransaction(Account account) {
+        return Transaction.builder()
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.S)
+                .account(account)
+                .amount(100L)
+                .balanceSnapshot(0L)
+                .transactionId(UUID.randomUUID().toString().replace("-", ""))
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.repository;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+* 데이터를 많이 넣은 H2 에서 repository 메서드를 실제로 실행하고,
+* Hibernate 가 보낸 SQL 을 StatementInspector 로 받아서 그대로 EXPLAIN 한다
+* - 메서드마다 사용해야 하는 인덱스 이름을 적어두고, 그 인덱스(또는 컬럼이 같은 인덱스)가 아니면 실패
+*   (H2 가 같은 컬럼에 제약조건용 인덱스를 따로 만들 수 있어서 컬럼 목록이 같으면 같은 인덱스로 본다)
+* - repository 에 메서드를 추가하면 아래 PLANS(또는 NO_TABLE)에도 추가해야 한다
+* */
+@DataJpaTest
+class RepositoryIndexPlanTest {
+    private static final int USERS = 2_000;
+    private static final int ACCOUNTS_PER_USER = 5;
+    private static final int TRANSACTIONS_PER_ACCOUNT = 10;
+
+    // 테이블을 읽지 않는 메서드
+    private static final Set<String> NO_TABLE = Set.of("nextAccountNumberBlock");
+    // min/max 를 인덱스 끝에서 바로 읽는 경우 (H2 는 인덱스 이름 대신 direct lookup 으로 표시)
+    private static final String DIRECT_LOOKUP = "direct lookup";
+    // H2 plan 의 인덱스 표시 : /* PUBLIC.인덱스이름: 조건 */ 또는 /* PUBLIC.인덱스이름 */ (table scan 은 PUBLIC.테이블.tableScan)
+    private static final Pattern INDEX_IN_PLAN = Pattern.compile("/\\* PUBLIC\\.(\\w+)(?::| \\*/)");
+
+    private static final CapturedStatements STATEMENTS = new CapturedStatements();
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @TestConfiguration
+    static class StatementCaptureConfiguration {
+        @Bean
+        HibernatePropertiesCustomizer statementCapture() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, STATEMENTS);
+        }
+    }
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("insert into account_user(id, name, account_count) " +
+                "select 1000 + x, 'user' || x, ? from system_range(0, ?)",
+                ACCOUNTS_PER_USER, USERS - 1);
+        jdbcTemplate.update("insert into account(id, account_user_id, account_number, " +
+                "account_status, balance, version, registered_at) " +
+                "select 1000000 + x, 1000 + x / ?, cast(2000000000 + x as varchar), " +
+                "'IN_USE', 10000, 0, now() from system_range(0, ?)",
+                ACCOUNTS_PER_USER, USERS * ACCOUNTS_PER_USER - 1);
+        jdbcTemplate.update("insert into transaction(id, account_id, transaction_id, " +
+                "transaction_type, transaction_result_type, amount, balance_snapshot, transacted_at) " +
+                "select 1000000 + x, 1000000 + x / ?, 'trx' || x, " +
+                "'USE', 'S', 100, 10000, now() from system_range(0, ?)",
+                TRANSACTIONS_PER_ACCOUNT, USERS * ACCOUNTS_PER_USER * TRANSACTIONS_PER_ACCOUNT - 1);
+        jdbcTemplate.update("insert into archived_transaction(id, account_id, account_number, " +
+                "transaction_id, transaction_type, transaction_result_type, amount, balance_snapshot, " +
+                "transacted_at) " +
+                "select 1000000 + x, 1000000 + x / ?, cast(2000000000 + x / ? as varchar), 'old' || x, " +
+                "'USE', 'S', 100, 10000, now() from system_range(0, ?)",
+                TRANSACTIONS_PER_ACCOUNT, TRANSACTIONS_PER_ACCOUNT,
+                USERS * ACCOUNTS_PER_USER * TRANSACTIONS_PER_ACCOUNT - 1);
+    }
+
+    @Test
+    @DisplayName("AccountRepository 의 모든 메서드는 인덱스를 사용")
+    void accountRepositoryUsesIndexes() {
+        Map<String, Plan> plans = Map.ofEntries(
+                Map.entry("findFirstByOrderByIdDesc", new Plan(
+                        () -> accountRepository.findFirstByOrderByIdDesc(),
+                        primaryKey("account"))),
+                Map.entry("findByAccountNumberIn", new Plan(
+                        () -> accountRepository.findByAccountNumberIn(List.of("2000000500", "2000000501")),
+                        "uk_account_account_number")),
+                Map.entry("useBalanceIfVersionMatches", new Plan(
+                        () -> accountRepository.useBalanceIfVersionMatches("2000000500", 100L, 0L),
+                        "uk_account_account_number")),
+                Map.entry("updateBalance", new Plan(
+                        () -> accountRepository.updateBalance(1000500L, 100L),
+                        primaryKey("account"))),
+                Map.entry("updateBalanceIfNewer", new Plan(
+                        () -> accountRepository.updateBalanceIfNewer(1000500L, 100L, 1L),
+                        primaryKey("account"))),
+                Map.entry("findLookupKeysAfter", new Plan(
+                        () -> accountRepository.findLookupKeysAfter(1000500L, PageRequest.of(0, 1000)),
+                        primaryKey("account"))),
+                Map.entry("findMaxId", new Plan(
+                        () -> accountRepository.findMaxId(),
+                        DIRECT_LOOKUP)),
+                Map.entry("findDtoById", new Plan(
+                        () -> accountRepository.findDtoById(1000500L),
+                        primaryKey("account"))),
+                Map.entry("findInfoByAccountUserId", new Plan(
+                        () -> accountRepository.findInfoByAccountUserId(1100L),
+                        "idx_account_user_status"))
+        );
+        assertCovered(AccountRepository.class, plans);
+        plans.forEach(this::assertUsesIndex);
+    }
+
+    @Test
+    @DisplayName("AccountNaturalIdRepository 의 모든 메서드는 인덱스를 사용")
+    void accountNaturalIdRepositoryUsesIndexes() {
+        // natural id 캐시에 없을 때 실행되는 SQL
+        Map<String, Plan> plans = Map.of(
+                "findByAccountNumber", new Plan(
+                        () -> accountRepository.findByAccountNumber("2000000500"),
+                        "uk_account_account_number")
+        );
+        assertCovered(AccountNaturalIdRepository.class, plans);
+        plans.forEach(this::assertUsesIndex);
+    }
+
+    @Test
+    @DisplayName("TransactionRepository 의 모든 메서드는 인덱스를 사용")
+    void transactionRepositoryUsesIndexes() {
+        Map<String, Plan> plans = Map.ofEntries(
+                Map.entry("findByTransactionId", new Plan(
+                        () -> transactionRepository.findByTransactionId("trx5000"),
+                        "uk_transaction_transaction_id")),
+                Map.entry("findWithAccountByTransactionId", new Plan(
+                        () -> transactionRepository.findWithAccountByTransactionId("trx5000"),
+                        "uk_transaction_transaction_id", primaryKey("account"))),
+                Map.entry("findDtoByTransactionId", new Plan(
+                        () -> transactionRepository.findDtoByTransactionId("trx5000"),
+                        "uk_transaction_transaction_id", primaryKey("account"))),
+                Map.entry("findDtoByTransactionIdIn", new Plan(
+                        () -> transactionRepository.findDtoByTransactionIdIn(List.of("trx5000", "trx5001")),
+                        "uk_transaction_transaction_id", primaryKey("account"))),
+                Map.entry("findLookupKeysAfter", new Plan(
+                        () -> transactionRepository.findLookupKeysAfter(1005000L, PageRequest.of(0, 1000)),
+                        primaryKey("transaction"))),
+                Map.entry("findMaxId", new Plan(
+                        () -> transactionRepository.findMaxId(),
+                        DIRECT_LOOKUP)),
+                Map.entry("findTransactedBefore", new Plan(
+                        () -> transactionRepository.findTransactedBefore(
+                                LocalDateTime.of(2000, 1, 1, 0, 0), PageRequest.of(0, 1000)),
+                        "idx_transaction_transacted_at", primaryKey("account"))),
+                Map.entry("findHistory", new Plan(
+                        () -> transactionRepository.findHistory(1000500L, PageRequest.of(0, 21)),
+                        "idx_transaction_account_transacted_at")),
+                Map.entry("findHistoryBefore", new Plan(
+                        () -> transactionRepository.findHistoryBefore(1000500L, TO, 1005005L,
+                                PageRequest.of(0, 21)),
+                        "idx_transaction_account_transacted_at")),
+                Map.entry("streamHistory", new Plan(
+                        () -> consume(transactionRepository.streamHistory(1000500L, FROM, TO)),
+                        "idx_transaction_account_transacted_at"))
+        );
+        assertCovered(TransactionRepository.class, plans);
+        plans.forEach(this::assertUsesIndex);
+    }
+
+    @Test
+    @DisplayName("ArchivedTransactionRepository 의 모든 메서드는 인덱스를 사용")
+    void archivedTransactionRepositoryUsesIndexes() {
+        Map<String, Plan> plans = Map.of(
+                "findByTransactionId", new Plan(
+                        () -> archivedTransactionRepository.findByTransactionId("old5000"),
+                        "uk_archived_transaction_transaction_id"),
+                "findByTransactionIdIn", new Plan(
+                        () -> archivedTransactionRepository.findByTransactionIdIn(List.of("old5000", "old5001")),
+                        "uk_archived_transaction_transaction_id"),
+                "findLookupKeysAfter", new Plan(
+                        () -> archivedTransactionRepository.findLookupKeysAfter(1005000L, PageRequest.of(0, 1000)),
+                        primaryKey("archived_transaction")),
+                "findMaxId", new Plan(
+                        () -> archivedTransactionRepository.findMaxId(),
+                        DIRECT_LOOKUP),
+                "streamHistory", new Plan(
+                        () -> consume(archivedTransactionRepository.streamHistory(1000500L, FROM, TO)),
+                        "idx_archived_transaction_account_transacted_at")
+        );
+        assertCovered(ArchivedTransactionRepository.class, plans);
+        plans.forEach(this::assertUsesIndex);
+    }
+
+    @Test
+    @DisplayName("계좌번호, 거래 id 는 중복 저장 불가")
+    void lookupKeysAreUnique() {
+        assertThrows(Exception.class, () -> jdbcTemplate.update(
+                "insert into account(id, account_number, account_status, balance, version) " +
+                        "values (9000000, '2000000500', 'IN_USE', 0, 0)"));
+        assertThrows(Exception.class, () -> jdbcTemplate.update(
+                "insert into transaction(id, transaction_id, transaction_type, transaction_result_type) " +
+                        "values (9000000, 'trx5000', 'USE', 'S')"));
+    }
+
+    // repository 에 선언된 메서드가 모두 PLANS 에 있는지
+    private void assertCovered(Class<?> repository, Map<String, Plan> plans) {
+        Set<String> declared = Arrays.stream(repository.getDeclaredMethods())
+                .filter(method -> !method.isSynthetic())
+                .map(Method::getName)
+                .filter(name -> !NO_TABLE.contains(name))
+                .collect(Collectors.toCollection(TreeSet::new));
+        assertEquals(declared, new TreeSet<>(plans.keySet()),
+                repository.getSimpleName() + " 의 메서드와 확인할 SQL 목록이 다릅니다");
+    }
+
+    // 메서드를 실행해서 나간 SQL 마다 EXPLAIN - 적어둔 인덱스만, 적어둔 인덱스는 모두 사용해야 한다
+    private void assertUsesIndex(String method, Plan expected) {
+        // 앞에서 읽은 엔티티가 영속성 컨텍스트에 있으면 SQL 없이 끝나므로 비운다
+        entityManager.clear();
+        STATEMENTS.clear();
+        expected.call().run();
+        List<String> statements = STATEMENTS.drain();
+        assertFalse(statements.isEmpty(), method + " 가 SQL 을 실행하지 않았습니다");
+
+        Map<String, IndexInfo> indexes = indexes();
+        Set<String> used = new HashSet<>();
+        for (String sql : statements) {
+            String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+            assertNotNull(plan);
+            if (expected.indexes().contains(DIRECT_LOOKUP)) {
+                assertTrue(plan.contains("/* direct lookup */"),
+                        method + " 가 인덱스 끝에서 바로 읽지 않습니다\n" + sql + "\n" + plan);
+                used.add(DIRECT_LOOKUP);
+                continue;
+            }
+            assertFalse(plan.contains("tableScan"),
+                    method + " 가 테이블 전체를 읽습니다\n" + sql + "\n" + plan);
+            Matcher matcher = INDEX_IN_PLAN.matcher(plan);
+            while (matcher.find()) {
+                String index = matcher.group(1);
+                String matched = expected.indexes().stream()
+                        .filter(name -> sameIndex(resolve(name, indexes), index, indexes))
+                        .findFirst()
+                        .orElseThrow(() -> new AssertionError(method + " 가 " + index +
+                                " 인덱스를 사용합니다 (기대 : " + expected.indexes() + ")\n" + sql + "\n" + plan));
+                used.add(matched);
+            }
+        }
+        assertEquals(new TreeSet<>(expected.indexes()), new TreeSet<>(used),
+                method + " 가 사용하지 않은 인덱스가 있습니다\n" + String.join("\n", statements));
+    }
+
+    // 같은 테이블, 같은 컬럼 목록이면 같은 인덱스
+    private static boolean sameIndex(String expected, String actual, Map<String, IndexInfo> indexes) {
+        return expected.equals(actual)
+                || (indexes.containsKey(expected) && Objects.equals(indexes.get(expected), indexes.get(actual)));
+    }
+
+    // primaryKey("account") -> H2 가 만든 PK 인덱스 이름 (PRIMARY_KEY_xx)
+    private static String resolve(String name, Map<String, IndexInfo> indexes) {
+        if (name.startsWith("pk:")) {
+            String table = name.substring("pk:".length()).toUpperCase();
+            return indexes.entrySet().stream()
+                    .filter(entry -> entry.getValue().primaryKey() && entry.getValue().table().equals(table))
+                    .map(Map.Entry::getKey)
+                    .findFirst()
+                    .orElseThrow(() -> new AssertionError(table + " 의 PK 인덱스가 없습니다"));
+        }
+        return name.toUpperCase();
+    }
+
+    private Map<String, IndexInfo> indexes() {
+        Map<String, List<String>> columns = new HashMap<>();
+        jdbcTemplate.query("select index_name, column_name from information_schema.index_columns " +
+                        "where index_schema = 'PUBLIC' order by index_name, ordinal_position",
+                (rs, rowNum) -> columns.computeIfAbsent(rs.getString(1), k -> new ArrayList<>())
+                        .add(rs.getString(2)));
+        Map<String, IndexInfo> indexes = new HashMap<>();
+        jdbcTemplate.query("select index_name, table_name, index_type_name from information_schema.indexes " +
+                        "where index_schema = 'PUBLIC'",
+                (rs, rowNum) -> indexes.put(rs.getString(1), new IndexInfo(rs.getString(2),
+                        columns.getOrDefault(rs.getString(1), List.of()),
+                        "PRIMARY KEY".equals(rs.getString(3)))));
+        return indexes;
+    }
+
+    private static String primaryKey(String table) {
+        return "pk:" + table;
+    }
+
+    private static void consume(Stream<?> stream) {
+        try (stream) {
+            stream.forEach(row -> { });
+        }
+    }
+
+    // 실행할 메서드와 사용해야 하는 인덱스
+    private record Plan(Runnable call, List<String> indexes) {
+        Plan(Runnable call, String... indexes) {
+            this(call, List.of(indexes));
+        }
+    }
+
+    private record IndexInfo(String table, List<String> columns, boolean primaryKey) {
+    }
+
+    // Hibernate 가 JDBC 로 보내는 SQL 을 그대로 모은다
+    static class CapturedStatements implements StatementInspector {
+        private final List<String> statements = new ArrayList<>();
+
+        @Override
+        public synchronized String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        synchronized void clear() {
+            statements.clear();
+        }
+
+        synchronized List<String> drain() {
+            List<String> drained = List.copyOf(statements);
+            statements.clear();
+            return drained;
+        }
+    }
+}
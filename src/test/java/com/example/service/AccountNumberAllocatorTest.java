@@ -0,0 +1,47 @@
+package com.example.service;
+
+import com.example.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Test
+    void allocateFromReservedBlock() {
+        //given
+        AccountNumberAllocator allocator =
+                new SequenceAccountNumberAllocator(accountRepository, 3);
+        given(accountRepository.nextAccountNumberBlock())
+                .willReturn(1000000000L, 1000000003L);
+        //when
+        //then
+        assertEquals("1000000000", allocator.nextAccountNumber());
+        assertEquals("1000000001", allocator.nextAccountNumber());
+        assertEquals("1000000002", allocator.nextAccountNumber());
+        assertEquals("1000000003", allocator.nextAccountNumber());
+        // 범위를 다 쓸 때만 DB 시퀀스를 조회한다
+        verify(accountRepository, times(2)).nextAccountNumberBlock();
+    }
+
+    @Test
+    void failAllocate_overTenDigits() {
+        //given
+        AccountNumberAllocator allocator =
+                new SequenceAccountNumberAllocator(accountRepository, 100);
+        given(accountRepository.nextAccountNumberBlock())
+                .willReturn(10000000000L);
+        //when
+        //then
+        assertThrows(IllegalStateException.class, allocator::nextAccountNumber);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.service;
 
+import com.example.cache.NegativeLookupGuard;
 import com.example.domain.Account;
 import com.example.domain.AccountStatus;
 import com.example.domain.AccountUser;
@@ -16,18 +17,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 
 import javax.swing.text.html.Option;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -87,6 +91,14 @@ class AccountServiceTest {
     private AccountRepository accountRepository;
     @Mock
     private AccountUserRepository accountUserRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+    @Spy
+    private NegativeLookupGuard negativeLookupGuard = new NegativeLookupGuard(true, 1000, 1000, 0.01);
+    @Mock
+    private ObjectProvider<BalanceEngine> balanceEngine;
     @InjectMocks
     private AccountService accountService;
 
@@ -102,15 +114,12 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .name("Pobi").build();
         user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.of(user));
 
-        given(accountRepository.findFirstByOrderByIdDesc())
-                //  새로운 계좌 번호를 추가하기 위한 마지막에 추가한 계좌번호를 찾는다
-                .willReturn(Optional.of(Account.builder()
-                        .accountUser(user)
-                        .accountNumber("1000000012")
-                        .build()));
+        given(accountNumberAllocator.nextAccountNumber())
+                //  미리 예약해 둔 범위에서 새로운 계좌 번호를 발급
+                .willReturn("1000000013");
 
         // 앞서서 찾은 정보를 통해 저장소에 정보를 저장
         given(accountRepository.save(any()))
@@ -147,6 +156,7 @@ class AccountServiceTest {
         // assertEquals("1000000013",accountDto.getAccountNumber());
         // 1000000015 를 넣어줘도 테스트는 성립 --> 문제점
         assertEquals("1000000013", captor.getValue().getAccountNumber());
+        assertEquals(1, user.getAccountCount());
 
     }
 
@@ -157,10 +167,10 @@ class AccountServiceTest {
                 .name("Pobi")
                 .build();
         user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.empty());
+        given(accountNumberAllocator.nextAccountNumber())
+                .willReturn("1000000000");
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
                         .accountUser(user)
@@ -184,7 +194,7 @@ class AccountServiceTest {
     void createAccount_UserNotFound() {
 
         //given
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.empty());
 
       /*    사실 밑에 테스트는 의미가 없음 어차피
@@ -216,13 +226,11 @@ class AccountServiceTest {
                 .name("Pobi")
                 .build();
         user.setId(12L);
+        user.setAccountCount(10);
         //given
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.of(user));
 
-        given(accountRepository.countByAccountUser(any()))
-                .willReturn(10);
-
         //when
         AccountException accountException = assertThrows(AccountException.class,
                 () -> accountService.createAccount(1L, 1000L));
@@ -237,9 +245,10 @@ class AccountServiceTest {
         //given
         AccountUser user = AccountUser.builder()
                 .name("Pobi")
+                .accountCount(3)
                 .build();
         user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -258,13 +267,14 @@ class AccountServiceTest {
         assertEquals(12L, accountDto.getUserId());
         assertEquals("1000000012", captor.getValue().getAccountNumber());
         assertEquals(AccountStatus.UNREGISTERED, captor.getValue().getAccountStatus());
+        assertEquals(2, user.getAccountCount());
     }
 
     @Test
     @DisplayName("해당 유저 없음 - 계좌 해지 실패")
     void deleteAccountFailed_UserNotFound() {
         //given
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.empty());
         //when
         AccountException accountException = assertThrows(AccountException.class,
@@ -281,7 +291,7 @@ class AccountServiceTest {
                 .name("Pobi")
                 .build();
         user.setId(12L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.empty());
@@ -305,7 +315,7 @@ class AccountServiceTest {
                 .name("Herry")
                 .build();
             herry.setId(13L);
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.of(pobi));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -329,7 +339,7 @@ class AccountServiceTest {
                 .build();
         user.setId(12L);
         //given
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -354,7 +364,7 @@ class AccountServiceTest {
                 .build();
         user.setId(12L);
         //given
-        given(accountUserRepository.findById(anyLong()))
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.of(user));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
@@ -371,63 +381,62 @@ class AccountServiceTest {
     }
 
     @Test
-    void successGetAccountByUserId() {
-
-        // given
+    @DisplayName("REDIS 모드는 아직 DB 에 저장되지 않은 잔액도 확인")
+    void deleteAccountFailed_balanceNotEmptyInEngine() {
         AccountUser user = AccountUser.builder()
-                .name("Pobi").build();
+                .name("Pobi")
+                .build();
         user.setId(12L);
-        List<Account> accounts = Arrays.asList(
-                Account.builder()
-                        .accountNumber("111111111")
-                        .accountUser(user)
-                        .balance(1000L)
-                        .build(),
-                Account.builder()
-                        .accountNumber("222222222")
-                        .accountUser(user)
-                        .balance(2000L)
-                        .build(),
-                Account.builder()
-                        .accountNumber("333333333")
-                        .accountUser(user)
-                        .balance(3000L)
-                        .build()
-        );
-        given(accountUserRepository.findById(anyLong()))
+        BalanceEngine engine = mock(BalanceEngine.class);
+        //given
+        given(accountUserRepository.findByIdForUpdate(anyLong()))
                 .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountUser(any()))
-                .willReturn(accounts);
-
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountNumber("1000000012")
+                        .balance(0L)
+                        .build()));
+        given(balanceEngine.getIfAvailable()).willReturn(engine);
+        given(engine.currentBalance("1000000012")).willReturn(Optional.of(100L));
         //when
-
-        List<AccountDto> accountDtos = accountService.getAccountByUserId(1L);
+        AccountException accountException = assertThrows(AccountException.class,
+                () -> accountService.deleteAccount(1L, "1000000012"));
 
         //then
+        assertEquals(ErrorCode.BALANCE_NOT_EMPTY, accountException.getErrorCode());
+        verify(accountRepository, times(0)).save(any());
+    }
 
-        assertEquals(3, accounts.size());
-        assertEquals("111111111", accountDtos.get(0).getAccountNumber());
-        assertEquals(1000, accountDtos.get(0).getBalance());
-        assertEquals("222222222", accountDtos.get(1).getAccountNumber());
-        assertEquals(2000, accountDtos.get(1).getBalance());
-        assertEquals("333333333", accountDtos.get(2).getAccountNumber());
-        assertEquals(3000, accountDtos.get(2).getBalance());
-
-
+    @Test
+    @DisplayName("계좌 목록은 엔티티 없이 projection 으로 조회")
+    void successGetAccountInfos(){
+        //given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(1L);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findInfoByAccountUserId(anyLong()))
+                .willReturn(List.of(new AccountInfo("1111111111", 1000L)));
+        //when
+        List<AccountInfo> accountInfos = accountService.getAccountInfoByUserId(1L);
+        //then
+        assertEquals("1111111111", accountInfos.get(0).getAccountNumber());
+        assertEquals(1000L, accountInfos.get(0).getBalance());
     }
 
     @Test
-        void failedToGetAccounts(){
-            //given
+    void failedToGetAccountInfos(){
+        //given
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.empty());
-            //when
+        //when
         AccountException accountException = assertThrows(AccountException.class,
-                () -> accountService.getAccountByUserId(1L));
-
+                () -> accountService.getAccountInfoByUserId(1L));
         //then
         assertEquals(ErrorCode.USER_NOT_FOUND, accountException.getErrorCode());
-        }
+    }
 
 }
 
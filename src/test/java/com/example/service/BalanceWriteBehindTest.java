@@ -0,0 +1,206 @@
+package com.example.service;
+
+import com.example.cache.AccountInfoCache;
+import com.example.domain.Transaction;
+import com.example.journal.TransactionJournal;
+import com.example.repository.AccountRepository;
+import com.example.repository.TransactionRepository;
+import com.example.type.TransactionResultType;
+import com.example.type.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceWriteBehindTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionJournal transactionJournal;
+
+    @Mock
+    private AccountInfoCache accountInfoCache;
+
+    @TempDir
+    private Path directory;
+
+    private BalanceWriteBehind balanceWriteBehind;
+
+    @AfterEach
+    void tearDown() {
+        balanceWriteBehind.shutdown();
+    }
+
+    @Test
+    void flush_savesTransactionsAndLatestBalance() {
+        //given
+        balanceWriteBehind = writeBehind(10, 5);
+        balanceWriteBehind.enqueue(entry("t2", 8000L, 2L, NOW.plusSeconds(1)));
+        balanceWriteBehind.enqueue(entry("t1", 9000L, 1L, NOW));
+        //when
+        balanceWriteBehind.flush();
+        //then
+        verify(transactionRepository, times(1)).saveAllInBatches(anyList());
+        // 큐 순서가 아니라 가장 최근 잔액 순번의 스냅샷
+        verify(accountRepository, times(1)).updateBalanceIfNewer(1L, 8000L, 2L);
+        // 저장된 뒤 소유자의 계좌 목록 캐시를 한 번 지운다
+        verify(accountInfoCache, times(1)).evict(12L);
+        assertEquals(0, balanceWriteBehind.pendingCount());
+    }
+
+    @Test
+    void flush_latestBalanceFollowsRedisOrderNotTransactedAt() {
+        //given
+        balanceWriteBehind = writeBehind(10, 5);
+        // t2 가 시각은 늦지만 Redis 에서는 먼저 실행됐다 (100 -> 90 -> 80)
+        balanceWriteBehind.enqueue(entry("t2", 90L, 1L, NOW.plusSeconds(1)));
+        balanceWriteBehind.enqueue(entry("t1", 80L, 2L, NOW));
+        //when
+        balanceWriteBehind.flush();
+        //then
+        verify(accountRepository, times(1)).updateBalanceIfNewer(1L, 80L, 2L);
+    }
+
+    @Test
+    void flush_dbUnavailable_keepsEntriesInOverflowFile() throws IOException {
+        //given
+        balanceWriteBehind = writeBehind(10, 5);
+        willThrow(new CannotCreateTransactionException("down"))
+                .given(transactionRepository).saveAllInBatches(anyList());
+        balanceWriteBehind.enqueue(entry("t1", 9000L, NOW));
+        balanceWriteBehind.enqueue(entry("t2", 8000L, NOW));
+        //when
+        balanceWriteBehind.flush();
+        //then
+        assertEquals(2, overflowLines().size());
+        assertTrue(overflowLines().get(0).startsWith("0\t"));
+        // DB 에 연결할 수 없으면 한 건씩 다시 시도하지 않는다
+        verify(transactionRepository, never()).findDtoByTransactionId(any());
+    }
+
+    @Test
+    void flush_replaysOverflowFile() throws IOException {
+        //given
+        balanceWriteBehind = writeBehind(10, 5);
+        willThrow(new CannotCreateTransactionException("down"))
+                .willDoNothing()
+                .given(transactionRepository).saveAllInBatches(anyList());
+        balanceWriteBehind.enqueue(entry("t1", 9000L, NOW));
+        balanceWriteBehind.flush();
+        //when
+        balanceWriteBehind.flush();
+        //then
+        verify(transactionRepository, times(2)).saveAllInBatches(anyList());
+        verify(accountRepository, times(1)).updateBalanceIfNewer(1L, 9000L, 1L);
+        assertTrue(overflowLines().isEmpty());
+    }
+
+    @Test
+    void flush_quarantinesEntryThatKeepsFailing() throws IOException {
+        //given
+        balanceWriteBehind = writeBehind(10, 2);
+        willAnswer(invocation -> {
+            List<Transaction> transactions = invocation.getArgument(0);
+            if (transactions.stream().anyMatch(t -> "bad".equals(t.getTransactionId()))) {
+                throw new DataIntegrityViolationException("bad");
+            }
+            return null;
+        }).given(transactionRepository).saveAllInBatches(anyList());
+        balanceWriteBehind.enqueue(entry("good", 9000L, 1L, NOW));
+        balanceWriteBehind.enqueue(entry("bad", 8000L, 2L, NOW));
+        //when
+        balanceWriteBehind.flush(); // 배치 실패 -> 한 건씩 : good 저장, bad 1회 실패 -> overflow
+        balanceWriteBehind.flush(); // overflow 에서 다시 : bad 2회 실패 -> quarantine
+        //then
+        assertTrue(overflowLines().isEmpty());
+        List<String> quarantined = Files.readAllLines(directory.resolve("write-behind.quarantine"));
+        assertEquals(1, quarantined.size());
+        assertTrue(quarantined.get(0).startsWith("2\t1\tUSE\tS\t1000\t8000\tbad\t"));
+        verify(accountRepository, times(1)).updateBalanceIfNewer(1L, 9000L, 1L);
+    }
+
+    @Test
+    void enqueue_queueFull_appendsToOverflowFile() throws IOException {
+        //given
+        balanceWriteBehind = writeBehind(1, 5);
+        //when
+        balanceWriteBehind.enqueue(entry("t1", 9000L, NOW));
+        balanceWriteBehind.enqueue(entry("t2", 8000L, NOW));
+        //then
+        assertEquals(1, balanceWriteBehind.pendingCount());
+        assertEquals(1, overflowLines().size());
+        assertTrue(overflowLines().get(0).contains("\tt2\t"));
+    }
+
+    @Test
+    void shutdown_keepsUnsavedEntries() throws IOException {
+        //given
+        balanceWriteBehind = writeBehind(10, 5);
+        willThrow(new CannotCreateTransactionException("down"))
+                .given(transactionRepository).saveAllInBatches(anyList());
+        balanceWriteBehind.enqueue(entry("t1", 9000L, NOW));
+        //when
+        balanceWriteBehind.shutdown();
+        //then
+        assertEquals(1, overflowLines().size());
+        verify(accountRepository, never()).updateBalanceIfNewer(anyLong(), anyLong(), anyLong());
+    }
+
+    private BalanceWriteBehind writeBehind(int capacity, int maxAttempts) {
+        TransactionTemplate transactionTemplate =
+                new TransactionTemplate(mock(PlatformTransactionManager.class));
+        return new BalanceWriteBehind(transactionRepository, accountRepository,
+                transactionTemplate, transactionJournal, accountInfoCache, 100, capacity, 3_600_000L, maxAttempts,
+                directory.resolve("write-behind.log").toString(),
+                directory.resolve("write-behind.quarantine").toString());
+    }
+
+    private List<String> overflowLines() throws IOException {
+        Path overflow = directory.resolve("write-behind.log");
+        return Files.exists(overflow)
+                ? Files.readAllLines(overflow, StandardCharsets.UTF_8)
+                : List.of();
+    }
+
+    private static BalanceWriteBehind.Entry entry(String transactionId, Long balance,
+                                                  LocalDateTime transactedAt) {
+        return entry(transactionId, balance, 1L, transactedAt);
+    }
+
+    private static BalanceWriteBehind.Entry entry(String transactionId, Long balance, Long balanceSeq,
+                                                  LocalDateTime transactedAt) {
+        return new BalanceWriteBehind.Entry(1L, 12L, TransactionType.USE, TransactionResultType.S,
+                1000L, balance, balanceSeq, transactionId, transactedAt);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.service;
+
+import com.example.dto.BalanceResult;
+import com.example.dto.TransactionDto;
+import com.example.dto.UseBalance;
+import com.example.exception.AccountException;
+import com.example.type.ErrorCode;
+import com.example.type.TransactionResultType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BulkBalanceServiceTest {
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private LockService lockService;
+
+    private BulkBalanceService bulkBalanceService;
+
+    @BeforeEach
+    void setUp() {
+        bulkBalanceService = new BulkBalanceService(transactionService, lockService, Optional.empty());
+    }
+
+    @Test
+    void useBalances_groupedByAccountInRequestOrder() {
+        //given
+        UseBalance.Request first = new UseBalance.Request(1L, "1000000000", 100L);
+        UseBalance.Request second = new UseBalance.Request(2L, "2000000000", 200L);
+        UseBalance.Request third = new UseBalance.Request(1L, "1000000000", 300L);
+        given(transactionService.useBalanceBatch("1000000000", List.of(first, third)))
+                .willReturn(List.of(success("1000000000", 100L), success("1000000000", 300L)));
+        given(transactionService.useBalanceBatch("2000000000", List.of(second)))
+                .willReturn(List.of(
+                        BalanceResult.failure(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE))));
+        //when
+        List<BalanceResult> results = bulkBalanceService.useBalances(List.of(first, second, third));
+        //then
+        assertEquals(100L, results.get(0).getTransactionDto().getAmount());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(1).getException().getErrorCode());
+        assertEquals(300L, results.get(2).getTransactionDto().getAmount());
+        // 계좌마다 lock 은 한 번
+        InOrder inOrder = inOrder(lockService, transactionService);
+        inOrder.verify(lockService).lock("1000000000");
+        inOrder.verify(transactionService).useBalanceBatch(eq("1000000000"), anyList());
+        inOrder.verify(lockService).unlock("1000000000");
+        verify(lockService, times(1)).lock("2000000000");
+        verify(lockService, times(1)).unlock("2000000000");
+    }
+
+    @Test
+    void useBalances_lockFailedOnlyForThatAccount() {
+        //given
+        UseBalance.Request locked = new UseBalance.Request(1L, "1000000000", 100L);
+        UseBalance.Request other = new UseBalance.Request(2L, "2000000000", 200L);
+        willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock("1000000000");
+        given(transactionService.useBalanceBatch("2000000000", List.of(other)))
+                .willReturn(List.of(success("2000000000", 200L)));
+        //when
+        List<BalanceResult> results = bulkBalanceService.useBalances(List.of(locked, other));
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, results.get(0).getException().getErrorCode());
+        assertTrue(results.get(1).isSuccess());
+        verify(transactionService, never()).useBalanceBatch(eq("1000000000"), anyList());
+        verify(lockService, never()).unlock("1000000000");
+    }
+
+    @Test
+    void useBalances_delegatedToBalanceEngine() {
+        //given
+        BalanceEngine balanceEngine = new BalanceEngine() {
+            @Override
+            public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+                if (amount > 1000L) {
+                    throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+                }
+                return TransactionDto.builder()
+                        .accountNumber(accountNumber)
+                        .amount(amount)
+                        .transactionResultType(TransactionResultType.S)
+                        .build();
+            }
+
+            @Override
+            public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        bulkBalanceService = new BulkBalanceService(transactionService, lockService,
+                Optional.of(balanceEngine));
+        //when
+        List<BalanceResult> results = bulkBalanceService.useBalances(List.of(
+                new UseBalance.Request(1L, "1000000000", 100L),
+                new UseBalance.Request(1L, "1000000000", 5000L)));
+        //then
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(1).getException().getErrorCode());
+        verify(lockService, never()).lock("1000000000");
+    }
+
+    private static BalanceResult success(String accountNumber, Long amount) {
+        return BalanceResult.success(TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .amount(amount)
+                .transactionResultType(TransactionResultType.S)
+                .build());
+    }
+}
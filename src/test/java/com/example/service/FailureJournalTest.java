@@ -0,0 +1,79 @@
+package com.example.service;
+
+import com.example.type.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class FailureJournalTest {
+    @Mock
+    private TransactionService transactionService;
+
+    @TempDir
+    Path tempDir;
+
+    private Path overflowPath;
+    private FailureJournal failureJournal;
+
+    @BeforeEach
+    void setUp() {
+        overflowPath = tempDir.resolve("failure-journal.log");
+        // 스케줄러가 끼어들지 않도록 주기를 길게
+        failureJournal = new FailureJournal(transactionService,
+                new TimeOrderedTransactionIdGenerator(0), 100, 1, 60_000L,
+                overflowPath.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        failureJournal.shutdown();
+    }
+
+    @Test
+    void overflowIsWrittenToFileAndReplayed() throws Exception {
+        //given
+        failureJournal.record(TransactionType.USE, "1000000000", 1000L);
+        failureJournal.record(TransactionType.CANCEL, "1000000000", 2000L);
+        failureJournal.record(TransactionType.USE, "1000000001", 3000L);
+        assertEquals(1, failureJournal.pendingCount());
+        assertEquals(2, Files.readAllLines(overflowPath).size());
+        ArgumentCaptor<List<FailureJournal.Entry>> captor = ArgumentCaptor.forClass(List.class);
+        //when
+        failureJournal.flush();
+        //then
+        verify(transactionService, times(2)).saveFailedTransactions(captor.capture());
+        assertEquals(1000L, captor.getAllValues().get(0).get(0).amount());
+        assertEquals(TransactionType.CANCEL, captor.getAllValues().get(1).get(0).transactionType());
+        assertEquals("1000000001", captor.getAllValues().get(1).get(1).accountNumber());
+        assertFalse(Files.exists(overflowPath));
+    }
+
+    @Test
+    void failedBatchIsKeptInFile() throws Exception {
+        //given
+        willThrow(new IllegalStateException("DB down"))
+                .given(transactionService).saveFailedTransactions(anyList());
+        failureJournal.record(TransactionType.USE, "1000000000", 1000L);
+        //when
+        assertThrows(IllegalStateException.class, () -> failureJournal.flush());
+        //then
+        assertEquals(0, failureJournal.pendingCount());
+        assertEquals(1, Files.readAllLines(overflowPath).size());
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.service;
+
+import com.example.cache.AccountInfoCache;
+import com.example.cache.NegativeLookupGuard;
+import com.example.cache.TransactionDtoCache;
+import com.example.domain.Account;
+import com.example.domain.AccountStatus;
+import com.example.domain.AccountUser;
+import com.example.domain.ArchivedTransaction;
+import com.example.domain.Transaction;
+import com.example.dto.TransactionDto;
+import com.example.event.AccountChangedEvent;
+import com.example.exception.AccountException;
+import com.example.journal.TransactionJournal;
+import com.example.journal.TransactionJournalReader;
+import com.example.repository.AccountRepository;
+import com.example.repository.ArchivedTransactionRepository;
+import com.example.repository.TransactionRepository;
+import com.example.type.ErrorCode;
+import com.example.type.TransactionResultType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerBalanceEngineTest {
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
+    @Mock
+    private TransactionJournal transactionJournal;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private AccountInfoCache accountInfoCache;
+
+    @TempDir
+    private Path directory;
+
+    private LedgerBalanceEngine ledgerBalanceEngine;
+    private Account account;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AccountUser user = AccountUser.builder().name("Pobi").build();
+        user.setId(12L);
+        account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(100000L)
+                .accountNumber("1000000000")
+                .build();
+        account.setId(1L);
+
+        ledgerBalanceEngine = engine(1024, 5000L, "");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerBalanceEngine.shutdown();
+    }
+
+    @Test
+    void useAndCancelBalance() {
+        //given
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        given(accountRepository.getReferenceById(1L)).willReturn(account);
+        //when
+        TransactionDto used = ledgerBalanceEngine.useBalance(12L, "1000000000", 3000L);
+        TransactionDto canceled = ledgerBalanceEngine.cancelBalance(
+                used.getTransactionId(), "1000000000", 3000L);
+        //then
+        assertEquals(97000L, used.getBalanceSnapshot());
+        assertEquals(100000L, canceled.getBalanceSnapshot());
+        // 계좌는 처음 한 번만 DB 에서 읽고, 원 거래는 메모리에서 찾는다
+        verify(accountRepository, times(1)).findByAccountNumber("1000000000");
+        verify(accountRepository).updateBalance(1L, 100000L);
+        verify(accountInfoCache, times(2)).evict(12L);
+    }
+
+    @Test
+    void cancelArchivedTransaction_tooOld() {
+        //given
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        given(accountRepository.getReferenceById(1L)).willReturn(account);
+        given(transactionRepository.findByTransactionId("old")).willReturn(Optional.empty());
+        given(archivedTransactionRepository.findByTransactionId("old"))
+                .willReturn(Optional.of(ArchivedTransaction.builder()
+                        .transactionId("old")
+                        .build()));
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledgerBalanceEngine.cancelBalance("old", "1000000000", 3000L));
+        //then
+        assertEquals(ErrorCode.TOO_OLD_ORDER_TO_CANCEL, exception.getErrorCode());
+    }
+
+    @Test
+    void failedUseIsRecorded() {
+        //given
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        given(accountRepository.getReferenceById(1L)).willReturn(account);
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledgerBalanceEngine.useBalance(12L, "1000000000", 200000L));
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(transactionRepository).saveAllInBatches(captor.capture());
+        assertEquals(TransactionResultType.F, captor.getValue().get(0).getTransactionResultType());
+        assertEquals(100000L, captor.getValue().get(0).getBalanceSnapshot());
+    }
+
+    @Test
+    void concurrentUsesAreAppliedInSequence() throws Exception {
+        //given
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        given(accountRepository.getReferenceById(1L)).willReturn(account);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Long>> uses = IntStream.range(0, 4000)
+                .<Callable<Long>>mapToObj(i -> () -> ledgerBalanceEngine
+                        .useBalance(12L, "1000000000", 10L).getBalanceSnapshot())
+                .toList();
+        //when
+        List<Future<Long>> results = executor.invokeAll(uses);
+        executor.shutdown();
+        //then
+        List<Long> snapshots = new ArrayList<>();
+        for (Future<Long> result : results) {
+            snapshots.add(result.get());
+        }
+        assertEquals(4000, snapshots.stream().distinct().count());
+        assertEquals(60000L, snapshots.stream().mapToLong(Long::longValue).min().orElseThrow());
+    }
+
+    @Test
+    void persistKeepsFailing_quarantinesSlotAndKeepsGoing() throws Exception {
+        //given
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        given(accountRepository.getReferenceById(1L)).willReturn(account);
+        // 묶음 저장 3번 + 한 건 저장 1번 실패, 그 다음부터는 저장된다
+        willThrow(new DataIntegrityViolationException("bad"))
+                .willThrow(new DataIntegrityViolationException("bad"))
+                .willThrow(new DataIntegrityViolationException("bad"))
+                .willThrow(new DataIntegrityViolationException("bad"))
+                .willDoNothing()
+                .given(transactionRepository).saveAllInBatches(anyList());
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledgerBalanceEngine.useBalance(12L, "1000000000", 3000L));
+        TransactionDto next = ledgerBalanceEngine.useBalance(12L, "1000000000", 1000L);
+        //then
+        assertEquals(ErrorCode.INTERNAL_SERVER_ERROR, exception.getErrorCode());
+        List<String> quarantined = Files.readAllLines(directory.resolve("ledger.quarantine"));
+        assertEquals(1, quarantined.size());
+        assertTrue(quarantined.get(0).contains("\t1\t1000000000\tUSE\tS\t3000\t97000\t"));
+        // 저장하지 못한 3000 은 메모리 잔액에서도 되돌린다
+        assertEquals(99000L, next.getBalanceSnapshot());
+        verify(accountRepository).updateBalance(1L, 99000L);
+    }
+
+    @Test
+    void claimTimesOutWhenRingIsFull() throws Exception {
+        //given
+        LedgerBalanceEngine smallEngine = engine(1, 50L, "");
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        given(accountRepository.getReferenceById(1L)).willReturn(account);
+        CountDownLatch persisting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            persisting.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).given(transactionRepository).saveAllInBatches(anyList());
+        try {
+            CompletableFuture<TransactionDto> first = CompletableFuture.supplyAsync(
+                    () -> smallEngine.useBalance(12L, "1000000000", 1000L));
+            assertTrue(persisting.await(5, TimeUnit.SECONDS));
+            //when
+            AccountException exception = assertThrows(AccountException.class,
+                    () -> smallEngine.useBalance(12L, "1000000000", 1000L));
+            release.countDown();
+            //then
+            assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+            assertEquals(99000L, first.get(5, TimeUnit.SECONDS).getBalanceSnapshot());
+        } finally {
+            release.countDown();
+            smallEngine.shutdown();
+        }
+    }
+
+    @Test
+    void accountStatusChangeIsAppliedOnNextUse() {
+        //given
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        given(accountRepository.getReferenceById(1L)).willReturn(account);
+        ledgerBalanceEngine.useBalance(12L, "1000000000", 1000L);
+        account.setAccountStatus(AccountStatus.UNREGISTERED);
+        //when
+        ledgerBalanceEngine.onAccountChanged(new AccountChangedEvent(12L, "1000000000"));
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledgerBalanceEngine.useBalance(12L, "1000000000", 1000L));
+        //then
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, exception.getErrorCode());
+    }
+
+    @Test
+    void restoreUsesDbBalanceOverSnapshot() throws Exception {
+        //given
+        Path snapshot = directory.resolve("ledger.snapshot");
+        // 스냅샷은 DB 에 커밋되지 않은 잔액까지 앞서 있다
+        LedgerSnapshot.write(snapshot, 0L, List.of(new LedgerSnapshot.Account(
+                1L, "1000000000", 12L, AccountStatus.IN_USE, 150000L)));
+        TransactionJournalReader reader = mock(TransactionJournalReader.class);
+        given(transactionJournal.isEnabled()).willReturn(true);
+        given(transactionJournal.newReader()).willReturn(reader);
+        given(reader.replay(anyLong(), any())).willReturn(0L);
+        given(accountRepository.findAllById(List.of(1L))).willReturn(List.of(account));
+        given(accountRepository.getReferenceById(1L)).willReturn(account);
+        LedgerBalanceEngine restoredEngine = engine(1024, 5000L, snapshot.toString());
+        try {
+            //when
+            TransactionDto used = restoredEngine.useBalance(12L, "1000000000", 1000L);
+            //then
+            assertEquals(99000L, used.getBalanceSnapshot());
+            verify(accountRepository, never()).findByAccountNumber("1000000000");
+        } finally {
+            restoredEngine.shutdown();
+        }
+    }
+
+    private LedgerBalanceEngine engine(int ringSize, long claimTimeoutMillis,
+                                       String snapshotPath) throws Exception {
+        LedgerBalanceEngine engine = new LedgerBalanceEngine(accountRepository, transactionRepository,
+                archivedTransactionRepository, new TransactionTemplate(transactionManager), transactionJournal,
+                new TransactionDtoCache(1000L, 0L), accountInfoCache,
+                new NegativeLookupGuard(false, 1000, 1000, 0.01),
+                new TimeOrderedTransactionIdGenerator(0),
+                ringSize, 100, 1024, snapshotPath, 100000L, claimTimeoutMillis, 3,
+                directory.resolve("ledger.quarantine").toString());
+        engine.start();
+        return engine;
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.service;
 
+import com.example.aop.AccountLock;
 import com.example.dto.UseBalance;
 import com.example.exception.AccountException;
+import com.example.type.BalanceUpdateMode;
 import com.example.type.ErrorCode;
+import com.example.type.TransactionType;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,9 +13,12 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -26,6 +32,9 @@ class LockAopAspectTest {
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
+    @Mock
+    private AccountLock accountLock;
+
 
     @InjectMocks
     private LockAopAspect lockAopAspect;
@@ -43,7 +52,7 @@ class LockAopAspectTest {
                 new UseBalance.Request(123L, "1234", 1000L);
 
             //when
-        lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock, request);
         // request는 UseBalance 타입이 아닌 AccountLockIdInterface 타입이다
             //then
         verify(lockService, times(1))
@@ -70,7 +79,7 @@ class LockAopAspectTest {
                 .willThrow(new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
         //when
         assertThrows(AccountException.class, () ->
-        lockAopAspect.aroundMethod(proceedingJoinPoint, request));
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock, request));
 
         //then
         verify(lockService, times(1))
@@ -81,4 +90,23 @@ class LockAopAspectTest {
         assertEquals("54321", lockArgumentCaptor.getValue());
         assertEquals("54321", unLockArgumentCaptor.getValue());
     }
+
+    @Test
+    void skipLock_whenLockFreeMode() throws Throwable {
+        //given
+        ReflectionTestUtils.setField(lockAopAspect,
+                "balanceUpdateMode", BalanceUpdateMode.OPTIMISTIC);
+        given(accountLock.transactionType())
+                .willReturn(TransactionType.USE);
+        UseBalance.Request request =
+                new UseBalance.Request(123L, "1234", 1000L);
+
+        //when
+        lockAopAspect.aroundMethod(proceedingJoinPoint, accountLock, request);
+
+        //then
+        verify(proceedingJoinPoint, times(1)).proceed();
+        verify(lockService, never()).lock(anyString());
+        verify(lockService, never()).unlock(anyString());
+    }
 }
\ No newline at end of file
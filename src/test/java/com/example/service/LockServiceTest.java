@@ -2,6 +2,7 @@ package com.example.service;
 
 import com.example.exception.AccountException;
 import com.example.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -10,6 +11,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,9 +27,14 @@ class LockServiceTest {
     private RLock rLock;
 
     @InjectMocks
-    private LockService lockService;
+    private RedisLockEngine redisLockEngine;
 
+    private LockService lockService;
 
+    @BeforeEach
+    void setUp() {
+        lockService = new LockService(redisLockEngine);
+    }
 
     @Test
         void successGetLock() throws InterruptedException {
@@ -53,4 +62,28 @@ class LockServiceTest {
         //then
         assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
         }
-}
\ No newline at end of file
+
+    @Test
+    void successGetLocalLock() {
+        //given
+        LockService localLockService = new LockService(new LocalStripedLockEngine(16));
+        //when
+        //then
+        assertDoesNotThrow(() -> localLockService.lock("1000000000"));
+        assertDoesNotThrow(() -> localLockService.unlock("1000000000"));
+    }
+
+    @Test
+    void failGetLocalLock_whenHeldByOtherThread() {
+        //given
+        LockService localLockService = new LockService(new LocalStripedLockEngine(16));
+        localLockService.lock("1000000000");
+        //when
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> CompletableFuture.runAsync(
+                        () -> localLockService.lock("1000000000")).join());
+        //then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                ((AccountException) exception.getCause()).getErrorCode());
+    }
+}
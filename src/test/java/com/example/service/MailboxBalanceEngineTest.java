@@ -0,0 +1,106 @@
+package com.example.service;
+
+import com.example.dto.BalanceResult;
+import com.example.dto.TransactionDto;
+import com.example.exception.AccountException;
+import com.example.type.ErrorCode;
+import com.example.type.TransactionResultType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class MailboxBalanceEngineTest {
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private LockService lockService;
+
+    @Mock
+    private FailureJournal failureJournal;
+
+    private MailboxBalanceEngine mailboxBalanceEngine;
+
+    @BeforeEach
+    void setUp() {
+        mailboxBalanceEngine = new MailboxBalanceEngine(
+                transactionService, lockService, failureJournal, 100, 1, 5000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailboxBalanceEngine.shutdown();
+    }
+
+    @Test
+    void successUseBalance() {
+        //given
+        given(transactionService.useBalanceBatch(anyString(), anyList()))
+                .willReturn(List.of(BalanceResult.success(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactionResultType(TransactionResultType.S)
+                        .amount(1000L)
+                        .build())));
+        //when
+        TransactionDto transactionDto =
+                mailboxBalanceEngine.useBalance(1L, "1000000000", 1000L);
+        //then
+        assertEquals(1000L, transactionDto.getAmount());
+        // 배치 단위로 lock 을 잡고 푼다
+        verify(lockService, times(1)).lock("1000000000");
+        verify(lockService, times(1)).unlock("1000000000");
+    }
+
+    @Test
+    void failUseBalance_resultOfOwnRequest() {
+        //given
+        given(transactionService.useBalanceBatch(anyString(), anyList()))
+                .willReturn(List.of(BalanceResult.failure(
+                        new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE))));
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> mailboxBalanceEngine.useBalance(1L, "1000000000", 1000L));
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+    }
+
+    @Test
+    void failUseBalance_batchStuckWhileProcessing() {
+        //given
+        MailboxBalanceEngine shortTimeout = new MailboxBalanceEngine(
+                transactionService, lockService, failureJournal, 100, 1, 200L);
+        CountDownLatch release = new CountDownLatch(1);
+        given(transactionService.useBalanceBatch(anyString(), anyList()))
+                .willAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return List.of(BalanceResult.failure(
+                            new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE)));
+                });
+        try {
+            //when
+            AccountException exception = assertThrows(AccountException.class,
+                    () -> shortTimeout.useBalance(1L, "1000000000", 1000L));
+            //then
+            // 이미 처리 중인 건은 큐에서 뺄 수 없으므로 한 번 더 기다린 뒤 결과를 알 수 없는 에러
+            assertEquals(ErrorCode.INTERNAL_SERVER_ERROR, exception.getErrorCode());
+        } finally {
+            release.countDown();
+            shortTimeout.shutdown();
+        }
+    }
+}
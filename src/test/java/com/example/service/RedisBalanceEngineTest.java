@@ -0,0 +1,307 @@
+package com.example.service;
+
+import com.example.cache.NegativeLookupGuard;
+import com.example.cache.TransactionDtoCache;
+import com.example.domain.Account;
+import com.example.domain.AccountStatus;
+import com.example.domain.AccountUser;
+import com.example.domain.ArchivedTransaction;
+import com.example.dto.TransactionDto;
+import com.example.exception.AccountException;
+import com.example.repository.AccountRepository;
+import com.example.repository.ArchivedTransactionRepository;
+import com.example.repository.TransactionRepository;
+import com.example.type.ErrorCode;
+import com.example.type.TransactionResultType;
+import com.example.type.TransactionType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/*
+* 잔액 Lua 스크립트와 대사는 embedded Redis 로 실제 실행해서 확인
+* */
+@ExtendWith(MockitoExtension.class)
+class RedisBalanceEngineTest {
+    private static final String ACCOUNT_NUMBER = "1000000000";
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Mock
+    private BalanceWriteBehind balanceWriteBehind;
+
+    @Mock
+    private TransactionDtoCache transactionDtoCache;
+
+    private RedisBalanceLoader redisBalanceLoader;
+
+    private RedisBalanceEngine redisBalanceEngine;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+        NegativeLookupGuard negativeLookupGuard = new NegativeLookupGuard(true, 1000, 1000, 0.01);
+        redisBalanceLoader = new RedisBalanceLoader(redissonClient, accountRepository,
+                transactionRepository, archivedTransactionRepository, balanceWriteBehind,
+                negativeLookupGuard, false, 366);
+        redisBalanceEngine = new RedisBalanceEngine(redissonClient, redisBalanceLoader,
+                balanceWriteBehind, transactionDtoCache, negativeLookupGuard,
+                new TimeOrderedTransactionIdGenerator(0));
+    }
+
+    @Test
+    void useBalance_debitsInRedis() {
+        //given
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account(10000L)));
+        ArgumentCaptor<BalanceWriteBehind.Entry> captor =
+                ArgumentCaptor.forClass(BalanceWriteBehind.Entry.class);
+        //when
+        TransactionDto transactionDto = redisBalanceEngine.useBalance(12L, ACCOUNT_NUMBER, 1000L);
+        //then
+        assertEquals(9000L, transactionDto.getBalanceSnapshot());
+        assertEquals(Optional.of(9000L), redisBalanceEngine.currentBalance(ACCOUNT_NUMBER));
+        verify(balanceWriteBehind, times(1)).enqueue(captor.capture());
+        assertEquals(TransactionResultType.S, captor.getValue().transactionResultType());
+        assertEquals(9000L, captor.getValue().balanceSnapshot());
+        assertEquals(1L, captor.getValue().balanceSeq());
+        assertEquals(12L, captor.getValue().accountUserId());
+        assertEquals(transactionDto.getTransactionId(), captor.getValue().transactionId());
+    }
+
+    @Test
+    void useBalance_seqFollowsScriptOrder() {
+        //given
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account(10000L)));
+        ArgumentCaptor<BalanceWriteBehind.Entry> captor =
+                ArgumentCaptor.forClass(BalanceWriteBehind.Entry.class);
+        //when
+        redisBalanceEngine.useBalance(12L, ACCOUNT_NUMBER, 1000L);
+        redisBalanceEngine.useBalance(12L, ACCOUNT_NUMBER, 1000L);
+        assertThrows(AccountException.class,
+                () -> redisBalanceEngine.useBalance(12L, ACCOUNT_NUMBER, 100000L));
+        //then
+        verify(balanceWriteBehind, times(3)).enqueue(captor.capture());
+        List<BalanceWriteBehind.Entry> entries = captor.getAllValues();
+        assertEquals(List.of(1L, 2L, 2L), entries.stream().map(BalanceWriteBehind.Entry::balanceSeq).toList());
+        // 실패 거래는 잔액을 바꾸지 않으므로 현재 순번 그대로
+        assertEquals(8000L, entries.get(2).balanceSnapshot());
+    }
+
+    @Test
+    void useBalance_amountExceedBalance() {
+        //given
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account(100L)));
+        ArgumentCaptor<BalanceWriteBehind.Entry> captor =
+                ArgumentCaptor.forClass(BalanceWriteBehind.Entry.class);
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.useBalance(12L, ACCOUNT_NUMBER, 1000L));
+        //then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(Optional.of(100L), redisBalanceEngine.currentBalance(ACCOUNT_NUMBER));
+        verify(balanceWriteBehind, times(1)).enqueue(captor.capture());
+        assertEquals(TransactionResultType.F, captor.getValue().transactionResultType());
+        assertEquals(0L, captor.getValue().balanceSeq());
+    }
+
+    @Test
+    void useBalance_userUnMatch() {
+        //given
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account(10000L)));
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.useBalance(13L, ACCOUNT_NUMBER, 1000L));
+        //then
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, exception.getErrorCode());
+        assertEquals(Optional.of(10000L), redisBalanceEngine.currentBalance(ACCOUNT_NUMBER));
+    }
+
+    @Test
+    void useBalance_accountNotFound() {
+        //given
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.empty());
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.useBalance(12L, ACCOUNT_NUMBER, 1000L));
+        //then
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, exception.getErrorCode());
+        verify(balanceWriteBehind, times(0)).enqueue(any());
+    }
+
+    @Test
+    void cancelBalance_restoresBalance() {
+        //given
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account(10000L)));
+        TransactionDto used = redisBalanceEngine.useBalance(12L, ACCOUNT_NUMBER, 1000L);
+        //when
+        TransactionDto canceled = redisBalanceEngine.cancelBalance(
+                used.getTransactionId(), ACCOUNT_NUMBER, 1000L);
+        //then
+        assertEquals(TransactionType.CANCEL, canceled.getTransactionType());
+        assertEquals(10000L, canceled.getBalanceSnapshot());
+        assertEquals(Optional.of(10000L), redisBalanceEngine.currentBalance(ACCOUNT_NUMBER));
+    }
+
+    @Test
+    void cancelBalance_mustFully() {
+        //given
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account(10000L)));
+        TransactionDto used = redisBalanceEngine.useBalance(12L, ACCOUNT_NUMBER, 1000L);
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.cancelBalance(used.getTransactionId(), ACCOUNT_NUMBER, 500L));
+        //then
+        assertEquals(ErrorCode.CANCEL_MUST_FULLY, exception.getErrorCode());
+        assertEquals(Optional.of(9000L), redisBalanceEngine.currentBalance(ACCOUNT_NUMBER));
+    }
+
+    @Test
+    void cancelBalance_tooOldTransactionLoadedFromDb() {
+        //given
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account(10000L)));
+        given(transactionRepository.findDtoByTransactionId("old"))
+                .willReturn(Optional.of(TransactionDto.builder()
+                        .accountNumber(ACCOUNT_NUMBER)
+                        .amount(1000L)
+                        .transactedAt(LocalDateTime.now().minusYears(1).minusDays(1))
+                        .build()));
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.cancelBalance("old", ACCOUNT_NUMBER, 1000L));
+        //then
+        assertEquals(ErrorCode.TOO_OLD_ORDER_TO_CANCEL, exception.getErrorCode());
+        assertEquals(Optional.of(10000L), redisBalanceEngine.currentBalance(ACCOUNT_NUMBER));
+    }
+
+    @Test
+    void cancelBalance_archivedTransaction_tooOld() {
+        //given
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account(10000L)));
+        given(transactionRepository.findDtoByTransactionId("old")).willReturn(Optional.empty());
+        given(archivedTransactionRepository.findByTransactionId("old"))
+                .willReturn(Optional.of(ArchivedTransaction.builder()
+                        .transactionId("old")
+                        .build()));
+        ArgumentCaptor<BalanceWriteBehind.Entry> captor =
+                ArgumentCaptor.forClass(BalanceWriteBehind.Entry.class);
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> redisBalanceEngine.cancelBalance("old", ACCOUNT_NUMBER, 1000L));
+        //then
+        assertEquals(ErrorCode.TOO_OLD_ORDER_TO_CANCEL, exception.getErrorCode());
+        assertEquals(Optional.of(10000L), redisBalanceEngine.currentBalance(ACCOUNT_NUMBER));
+        // 계좌가 있으므로 실패 거래로 남긴다
+        verify(balanceWriteBehind, times(1)).enqueue(captor.capture());
+        assertEquals(TransactionResultType.F, captor.getValue().transactionResultType());
+    }
+
+    @Test
+    void reconcile_comparesOnlyTouchedAccounts() {
+        //given
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account(10000L)));
+        redisBalanceEngine.useBalance(12L, ACCOUNT_NUMBER, 1000L);
+        given(accountRepository.findByAccountNumberIn(List.of(ACCOUNT_NUMBER)))
+                .willReturn(List.of(account(9000L)));
+        //when
+        List<String> mismatched = redisBalanceLoader.reconcile();
+        //then
+        assertTrue(mismatched.isEmpty());
+        verify(balanceWriteBehind, times(1)).flush();
+        // 다음 대사에서는 다시 비교하지 않는다
+        assertTrue(redisBalanceLoader.reconcile().isEmpty());
+        verify(accountRepository, times(1)).findByAccountNumberIn(anyList());
+    }
+
+    @Test
+    void reconcile_reportsMismatchUntilFixed() {
+        //given
+        given(accountRepository.findByAccountNumber(ACCOUNT_NUMBER))
+                .willReturn(Optional.of(account(10000L)));
+        redisBalanceEngine.useBalance(12L, ACCOUNT_NUMBER, 1000L);
+        given(accountRepository.findByAccountNumberIn(List.of(ACCOUNT_NUMBER)))
+                .willReturn(List.of(account(10000L)));
+        //when
+        List<String> mismatched = redisBalanceLoader.reconcile();
+        //then
+        assertEquals(List.of(ACCOUNT_NUMBER), mismatched);
+        // 어긋난 계좌는 다음 대사에서도 확인
+        assertEquals(List.of(ACCOUNT_NUMBER), redisBalanceLoader.reconcile());
+    }
+
+    private static Account account(Long balance) {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountNumber(ACCOUNT_NUMBER)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(balance)
+                .build();
+        account.setId(1L);
+        return account;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.service;
+
+import com.example.domain.Account;
+import com.example.exception.AccountException;
+import com.example.repository.AccountRepository;
+import com.example.repository.ArchivedTransactionRepository;
+import com.example.repository.TransactionHistoryView;
+import com.example.repository.TransactionRepository;
+import com.example.type.ErrorCode;
+import com.example.type.ExportFormat;
+import com.example.type.TransactionResultType;
+import com.example.type.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionExportService transactionExportService;
+
+    @BeforeEach
+    void setUp() {
+        transactionExportService = new TransactionExportService(accountRepository, transactionRepository,
+                archivedTransactionRepository,
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                transactionManager, 366);
+    }
+
+    @Test
+    @DisplayName("계좌 id 확인 - 없는 계좌는 ACCOUNT_NOT_FOUND")
+    void getAccountId() {
+        //given
+        Account account = Account.builder().accountNumber("1000000012").build();
+        account.setId(12L);
+        given(accountRepository.findByAccountNumber("1000000012")).willReturn(Optional.of(account));
+        given(accountRepository.findByAccountNumber("9999999999")).willReturn(Optional.empty());
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionExportService.getAccountId("9999999999"));
+        //then
+        assertEquals(12L, transactionExportService.getAccountId("1000000012"));
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("CSV 값 - 쉼표/따옴표/줄바꿈이 있으면 따옴표로 감싸고 따옴표는 두 번")
+    void csvFieldQuoting() throws IOException {
+        //given
+        StringWriter writer = new StringWriter();
+        //when
+        TransactionExportService.writeCsvField("plain", writer);
+        writer.write('|');
+        TransactionExportService.writeCsvField("a,b", writer);
+        writer.write('|');
+        TransactionExportService.writeCsvField("say \"hi\"", writer);
+        writer.write('|');
+        TransactionExportService.writeCsvField("line\nbreak", writer);
+        //then
+        assertEquals("plain|\"a,b\"|\"say \"\"hi\"\"\"|\"line\nbreak\"", writer.toString());
+    }
+
+    @Test
+    @DisplayName("CSV 내보내기 - 헤더 + 거래마다 한 줄, Stream 은 닫힌다")
+    void exportCsv() {
+        //given
+        LocalDateTime transactedAt = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        AtomicBoolean closed = new AtomicBoolean();
+        given(transactionRepository.streamHistory(eq(12L), any(), any()))
+                .willReturn(Stream.of(view("trx1", transactedAt), view("trx2", transactedAt))
+                        .onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        //when
+        long written = transactionExportService.export(12L, "1000000012", null, null, ExportFormat.CSV, out);
+        //then
+        assertEquals(2L, written);
+        assertTrue(closed.get());
+        assertEquals("""
+                transactionId,transactedAt,transactionType,transactionResult,amount,balanceSnapshot
+                trx1,2024-01-02T03:04:05,USE,S,1000,9000
+                trx2,2024-01-02T03:04:05,USE,S,1000,9000
+                """, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("NDJSON 내보내기 - 기간 조건 전달, 거래마다 JSON 한 줄")
+    void exportNdjson() {
+        //given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+        given(transactionRepository.streamHistory(12L, from, to))
+                .willReturn(Stream.of(view("trx1", from)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        //when
+        transactionExportService.export(12L, "1000000012", from, to, ExportFormat.NDJSON, out);
+        //then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1, lines.length);
+        assertTrue(lines[0].contains("\"transactionId\":\"trx1\""));
+        assertTrue(lines[0].contains("\"accountNumber\":\"1000000012\""));
+    }
+
+    @Test
+    @DisplayName("archive 기간에 걸치면 archive 의 거래를 먼저 쓰고 이어서 transaction")
+    void exportIncludesArchivedTransactions() {
+        //given
+        LocalDateTime from = LocalDateTime.of(2020, 1, 1, 0, 0);
+        given(archivedTransactionRepository.streamHistory(12L, from, LocalDateTime.of(9999, 12, 31, 0, 0)))
+                .willReturn(Stream.of(view("old1", from)));
+        given(transactionRepository.streamHistory(12L, from, LocalDateTime.of(9999, 12, 31, 0, 0)))
+                .willReturn(Stream.of(view("trx1", from.plusYears(5))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        //when
+        long written = transactionExportService.export(12L, "1000000012", from, null, ExportFormat.CSV, out);
+        //then
+        assertEquals(2L, written);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertTrue(lines[1].startsWith("old1,"));
+        assertTrue(lines[2].startsWith("trx1,"));
+    }
+
+    @Test
+    @DisplayName("archive 로 옮겨질 수 없는 최근 범위면 archive 는 읽지 않는다")
+    void exportRecentRangeSkipsArchive() {
+        //given
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        given(transactionRepository.streamHistory(eq(12L), eq(from), any()))
+                .willReturn(Stream.of(view("trx1", from)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        //when
+        transactionExportService.export(12L, "1000000012", from, null, ExportFormat.NDJSON, out);
+        //then
+        verify(archivedTransactionRepository, never()).streamHistory(any(), any(), any());
+    }
+
+    private static TransactionHistoryView view(String transactionId, LocalDateTime transactedAt) {
+        return new TransactionHistoryView() {
+            public Long getId() { return 1L; }
+            public TransactionType getTransactionType() { return TransactionType.USE; }
+            public TransactionResultType getTransactionResultType() { return TransactionResultType.S; }
+            public Long getAmount() { return 1000L; }
+            public Long getBalanceSnapshot() { return 9000L; }
+            public String getTransactionId() { return transactionId; }
+            public LocalDateTime getTransactedAt() { return transactedAt; }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionIdGeneratorTest {
+    private final TransactionIdGenerator generator = new TimeOrderedTransactionIdGenerator(7);
+
+    @Test
+    void generateInIssueOrder() {
+        //given
+        List<String> ids = new ArrayList<>();
+        //when
+        for (int i = 0; i < 10000; i++) {
+            ids.add(generator.nextTransactionId());
+        }
+        //then
+        // 같은 스레드에서 발급한 id 는 문자열 순서가 발급 순서와 같다
+        assertEquals(ids.stream().sorted().toList(), ids);
+        assertEquals(10000, new HashSet<>(ids).size());
+        assertTrue(ids.stream().allMatch(id -> id.length() == 26));
+    }
+
+    @Test
+    void generateUniqueAcrossThreads() throws Exception {
+        //given
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        //when
+        for (int thread = 0; thread < 8; thread++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    ids.add(generator.nextTransactionId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        //then
+        assertEquals(80000, ids.size());
+    }
+
+    @Test
+    void readIssuedAt() {
+        //given
+        LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+        //when
+        String id = generator.nextTransactionId();
+        //then
+        LocalDateTime issuedAt = generator.issuedAt(id).orElseThrow();
+        assertTrue(issuedAt.isAfter(before));
+        assertTrue(issuedAt.isBefore(LocalDateTime.now().plusSeconds(1)));
+        // 이전 방식(UUID) id 는 발급 시각을 모른다
+        assertTrue(generator.issuedAt("0f8fad5bd9cb469fa16570867728950e").isEmpty());
+        assertTrue(generator.issuedAt("transactionId").isEmpty());
+    }
+
+    @Test
+    void failCreate_nodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TimeOrderedTransactionIdGenerator(65536));
+        // 랜덤으로 고르지 않는다 - 설정하지 않으면 TransactionIdNodeLease 가 Redis 에서 받는다
+        assertThrows(IllegalArgumentException.class,
+                () -> new TimeOrderedTransactionIdGenerator(-1));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionIdNodeLeaseTest {
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+    }
+
+    @Test
+    void configuredNodeIdIsUsedAsIs() {
+        //when
+        TransactionIdNodeLease nodeLease = new TransactionIdNodeLease(null, 7, 60);
+        //then
+        assertEquals(7, nodeLease.getNodeId());
+    }
+
+    @Test
+    void leasedNodeIdsDoNotCollide() {
+        //given
+        // 현재 번호를 다른 서버가 쓰는 중 - 카운터가 한 바퀴 돌아와도 건너뛴다
+        redissonClient.getAtomicLong("TXID:NODE:SEQ").set(65535);
+        redissonClient.getBucket("TXID:NODE:1").set("other server");
+        //when
+        TransactionIdNodeLease server1 = new TransactionIdNodeLease(redissonClient, -1, 60);
+        TransactionIdNodeLease server2 = new TransactionIdNodeLease(redissonClient, -1, 60);
+        //then
+        assertEquals(0, server1.getNodeId());
+        assertEquals(2, server2.getNodeId());
+    }
+
+    @Test
+    void releasedNodeIdCanBeLeasedAgain() {
+        //given
+        TransactionIdNodeLease server1 = new TransactionIdNodeLease(redissonClient, -1, 60);
+        server1.renew();
+        //when
+        server1.release();
+        redissonClient.getAtomicLong("TXID:NODE:SEQ").set(server1.getNodeId() - 1);
+        TransactionIdNodeLease server2 = new TransactionIdNodeLease(redissonClient, -1, 60);
+        //then
+        assertEquals(server1.getNodeId(), server2.getNodeId());
+    }
+
+    @Test
+    void nodeIdLeasedByAnotherServer_switchesToFreeNodeId() {
+        //given
+        TransactionIdNodeLease server1 = new TransactionIdNodeLease(redissonClient, -1, 60);
+        int lost = server1.getNodeId();
+        // 만료된 사이 다른 서버가 같은 번호를 받았다
+        redissonClient.getBucket("TXID:NODE:" + lost).set("other server");
+        //when
+        server1.renew();
+        //then
+        assertNotEquals(lost, server1.getNodeId());
+        assertEquals("other server", redissonClient.getBucket("TXID:NODE:" + lost).get());
+    }
+
+    @Test
+    void leaseNotRenewedInTime_stopsIssuing() throws Exception {
+        //given
+        TransactionIdNodeLease nodeLease = new TransactionIdNodeLease(redissonClient, -1, 1);
+        TransactionIdGenerator generator = new TimeOrderedTransactionIdGenerator(nodeLease);
+        generator.nextTransactionId();
+        //when
+        Thread.sleep(1100);
+        //then
+        assertThrows(IllegalStateException.class, generator::nextTransactionId);
+    }
+}
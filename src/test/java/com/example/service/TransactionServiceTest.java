@@ -1,13 +1,22 @@
 package com.example.service;
 
+import com.example.cache.NegativeLookupGuard;
+import com.example.cache.TransactionDtoCache;
 import com.example.domain.Account;
 import com.example.domain.AccountStatus;
 import com.example.domain.AccountUser;
+import com.example.domain.ArchivedTransaction;
 import com.example.domain.Transaction;
+import com.example.dto.BalanceResult;
 import com.example.dto.TransactionDto;
+import com.example.dto.TransactionHistoryDto;
+import com.example.dto.UseBalance;
 import com.example.exception.AccountException;
+import com.example.journal.TransactionJournal;
 import com.example.repository.AccountRepository;
 import com.example.repository.AccountUserRepository;
+import com.example.repository.ArchivedTransactionRepository;
+import com.example.repository.TransactionHistoryView;
 import com.example.repository.TransactionRepository;
 import com.example.type.ErrorCode;
 import com.example.type.TransactionResultType;
@@ -18,16 +27,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 
 import javax.swing.text.html.Option;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -39,6 +53,18 @@ class TransactionServiceTest {
     private AccountUserRepository accountUserRepository;
     @Mock
     private TransactionRepository transactionRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private TransactionJournal transactionJournal;
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
+    @Spy
+    private TransactionDtoCache transactionDtoCache = new TransactionDtoCache(1000L, 0L);
+    @Spy
+    private NegativeLookupGuard negativeLookupGuard = new NegativeLookupGuard(true, 1000, 1000, 0.01);
+    @Spy
+    private TransactionIdGenerator transactionIdGenerator = new TimeOrderedTransactionIdGenerator(0);
 
     @InjectMocks
     private TransactionService transactionService;
@@ -52,8 +78,6 @@ class TransactionServiceTest {
                 .build();
         user.setId(12L);
             //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
         Account account = Account.builder()
                 .accountUser(user)
                 .accountStatus(AccountStatus.IN_USE)
@@ -76,7 +100,7 @@ class TransactionServiceTest {
 
         ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
             //when
-        TransactionDto transactionDto = transactionService.useBalance(1L, "1000000000", 2000L);
+        TransactionDto transactionDto = transactionService.useBalance(12L, "1000000000", 2000L);
         //then
         verify(transactionRepository, times(1)).save(captor.capture());
         assertEquals(8000L , captor.getValue().getBalanceSnapshot());
@@ -91,8 +115,8 @@ class TransactionServiceTest {
         @DisplayName("해당 유저 없음 - 잔액 사용 실패")
             void useBalance_UserNotFound(){
                 //given
-            given(accountUserRepository.findById(anyLong()))
-                    .willReturn(Optional.empty());
+            given(accountUserRepository.existsById(anyLong()))
+                    .willReturn(false);
                 //when
             AccountException exception = assertThrows(AccountException.class,
                     () -> transactionService.useBalance(1L, "1000000000", 1000L));
@@ -108,8 +132,8 @@ class TransactionServiceTest {
                     .build();
             user.setId(12L);
                 //given
-                given(accountUserRepository.findById(anyLong()))
-                        .willReturn(Optional.of(user));
+                given(accountUserRepository.existsById(anyLong()))
+                        .willReturn(true);
                 given(accountRepository.findByAccountNumber(anyString()))
                         .willReturn(Optional.empty());
                 //when
@@ -131,8 +155,8 @@ class TransactionServiceTest {
                          .build();
                  Herry.setId(13L);
                      //given
-                 given(accountUserRepository.findById(anyLong()))
-                         .willReturn(Optional.of(Pobi));
+                 given(accountUserRepository.existsById(anyLong()))
+                         .willReturn(true);
                  given(accountRepository.findByAccountNumber(anyString()))
                          .willReturn(Optional.of(Account.builder()
                                  .accountUser(Herry)
@@ -141,7 +165,7 @@ class TransactionServiceTest {
                                  .build()));
                      //when
                  AccountException exception = assertThrows(AccountException.class,
-                         ()-> transactionService.useBalance(1L, "1000000000", 1000L));
+                         ()-> transactionService.useBalance(12L, "1000000000", 1000L));
                      //then
                  assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, exception.getErrorCode());
     }
@@ -154,8 +178,6 @@ class TransactionServiceTest {
                 .build();
         Pobi.setId(12L);
             //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(Pobi));
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.of(Account.builder()
                                 .accountUser(Pobi)
@@ -165,7 +187,7 @@ class TransactionServiceTest {
                         .build()));
             //when
         AccountException exception = assertThrows(AccountException.class,
-                () -> transactionService.useBalance(1L, "1234567890", 1000L));
+                () -> transactionService.useBalance(12L, "1234567890", 1000L));
 
         //then
         assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, exception.getErrorCode());
@@ -185,13 +207,11 @@ class TransactionServiceTest {
                     .accountNumber("10000000012")
                     .build();
                 //given
-            given(accountUserRepository.findById(anyLong()))
-                    .willReturn(Optional.of(user));
             given(accountRepository.findByAccountNumber(anyString()))
                     .willReturn(Optional.of(account));
                 //when
             AccountException exception = assertThrows(AccountException.class,
-                    () -> transactionService.useBalance(1L, "1234567890", 1000L));
+                    () -> transactionService.useBalance(12L, "1234567890", 1000L));
 
             //then
             // 거래 금액이 잔액보다 큰 경우이라서 계좌에 직접적인 영향을 줄수 있으므로 저장하면 안된다
@@ -202,9 +222,8 @@ class TransactionServiceTest {
 
 
     @Test
-    // 같은 계정으로 여러 계좌로 거래를 시도할 경우
-    @DisplayName("실패 트랜잭션 저장 성공")
-    void saveFailedTransactione(){
+    @DisplayName("실패 트랜잭션 저장 성공 - 없는 계좌의 건은 건너뛴다")
+    void saveFailedTransactions(){
         AccountUser user = AccountUser.builder()
                 .name("Pobi")
                 .build();
@@ -215,37 +234,26 @@ class TransactionServiceTest {
                 .balance(10000L)
                 .accountNumber("1000000000")
                 .build();
+        LocalDateTime transactedAt = LocalDateTime.now();
         //given
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
-        given(transactionRepository.save(any()))
-                .willReturn(
-                        Transaction.builder()
-                                .account(account)
-                                .transactionType(TransactionType.USE)
-                               // .transactionResultType(TransactionResultType.S) 있으나 마나이다
-                                .transactionId("transactionId")
-                                .transactedAt(LocalDateTime.now())
-                               // .amount(1000L) 있으나 마나이다
-                              //  .balanceSnapshot(9000L) 있으나 마나이다
-                                .build()
-                );
-
-        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
-        /*
-        *      return transactionRepository.save(...)
-        *
-        *      captor는 Repository에서 save할때를 capture
-        *
-        * */
+        given(accountRepository.findByAccountNumberIn(anyList()))
+                .willReturn(List.of(account));
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
 
         //when
-        transactionService.saveFailedTransaction("1000000000", 2000L);
+        transactionService.saveFailedTransactions(List.of(
+                new FailureJournal.Entry(TransactionType.USE, "1000000000", 2000L,
+                        transactedAt, "failedId"),
+                new FailureJournal.Entry(TransactionType.CANCEL, "9999999999", 1000L,
+                        transactedAt, "droppedId")));
         //then
-        verify(transactionRepository, times(1)).save(captor.capture());
-        assertEquals(2000L, captor.getValue().getAmount());
-        assertEquals(10000L , captor.getValue().getBalanceSnapshot());
-        assertEquals(TransactionResultType.F, captor.getValue().getTransactionResultType());
+        verify(transactionRepository, times(1)).saveAllInBatches(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        Transaction saved = captor.getValue().get(0);
+        assertEquals(2000L, saved.getAmount());
+        assertEquals(10000L , saved.getBalanceSnapshot());
+        assertEquals(TransactionResultType.F, saved.getTransactionResultType());
+        assertEquals("failedId", saved.getTransactionId());
     }
     @Test
     void successCancelBalance(){
@@ -270,9 +278,7 @@ class TransactionServiceTest {
                 .transactedAt(LocalDateTime.now())
                 .amount(1000L)
                 .build();
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findWithAccountByTransactionId(anyString()))
                 .willReturn(Optional.of(transaction));
 
         given(transactionRepository.save(any()))
@@ -308,9 +314,11 @@ class TransactionServiceTest {
         //given
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.empty());
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findWithAccountByTransactionId(anyString()))
                 .willReturn(Optional.of(
-                        Transaction.builder().build()
+                        Transaction.builder()
+                                .account(Account.builder().accountNumber("1000000012").build())
+                                .build()
                 ));
         //when
         AccountException exception = assertThrows(AccountException.class,
@@ -322,7 +330,7 @@ class TransactionServiceTest {
     @DisplayName("원 사용 거래 없음 - 잔액 사용 취소 실패")
         void cancelTransaction_TransactionNotFound(){
             //given
-            given(transactionRepository.findByTransactionId(anyString()))
+            given(transactionRepository.findWithAccountByTransactionId(anyString()))
                     .willReturn(Optional.empty());
 
             //when
@@ -367,7 +375,7 @@ class TransactionServiceTest {
                             .transactedAt(LocalDateTime.now())
                             .build();
             //given
-            given(transactionRepository.findByTransactionId(anyString()))
+            given(transactionRepository.findWithAccountByTransactionId(anyString()))
                     .willReturn(Optional.of(transaction));
             given(accountRepository.findByAccountNumber(anyString()))
                     .willReturn(Optional.of(accountNotUse));
@@ -405,16 +413,14 @@ class TransactionServiceTest {
                         .transactedAt(LocalDateTime.now())
                         .build();
         //given
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findWithAccountByTransactionId(anyString()))
                 .willReturn(Optional.of(transaction));
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
 
         //when
         AccountException exception = assertThrows(AccountException.class,
                 () -> transactionService.cancelBalance(
                         "transactionId",
-                        "1000000000",
+                        "1000000012",
                         1000L));
         //then
         assertEquals(ErrorCode.CANCEL_MUST_FULLY, exception.getErrorCode());
@@ -445,16 +451,14 @@ class TransactionServiceTest {
                         .transactedAt(LocalDateTime.now().minusYears(1).minusDays(1))
                         .build();
         //given
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findWithAccountByTransactionId(anyString()))
                 .willReturn(Optional.of(transaction));
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
 
         //when
         AccountException exception = assertThrows(AccountException.class,
                 () -> transactionService.cancelBalance(
                         "transactionId",
-                        "1000000000",
+                        "1000000012",
                         1000L));
         //then
         assertEquals(ErrorCode.TOO_OLD_ORDER_TO_CANCEL, exception.getErrorCode());
@@ -484,8 +488,8 @@ class TransactionServiceTest {
                         .transactedAt(LocalDateTime.now().minusYears(1).minusDays(1))
                         .build();
             //given
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(transaction));
+        given(transactionRepository.findDtoByTransactionId(anyString()))
+                .willReturn(Optional.of(TransactionDto.fromEntity(transaction)));
             //when
         TransactionDto transactionDto = transactionService.queryTransaction("trxId");
         //then
@@ -500,7 +504,7 @@ class TransactionServiceTest {
     @DisplayName("원 거래 없음 - 거래 조회 실패")
     void queryTransaction_TransactionNotFound(){
         //given
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findDtoByTransactionId(anyString()))
                 .willReturn(Optional.empty());
 
         //when
@@ -511,4 +515,305 @@ class TransactionServiceTest {
 
         assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("version 이 그대로면 lock 없이 잔액 사용 성공")
+    void successTryUseBalanceWithVersion(){
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000000")
+                .version(3L)
+                .build();
+        //given
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountRepository.useBalanceIfVersionMatches(anyString(), anyLong(), anyLong()))
+                .willReturn(1);
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+        //when
+        Optional<TransactionDto> transactionDto =
+                transactionService.tryUseBalanceWithVersion(12L, "1000000000", 2000L);
+        //then
+        verify(accountRepository, times(1))
+                .useBalanceIfVersionMatches("1000000000", 2000L, 3L);
+        verify(transactionRepository, times(1)).save(captor.capture());
+        assertTrue(transactionDto.isPresent());
+        assertEquals(8000L, captor.getValue().getBalanceSnapshot());
+        assertEquals(TransactionResultType.S, transactionDto.get().getTransactionResultType());
+    }
+
+    @Test
+    @DisplayName("다른 요청이 먼저 잔액을 바꾸면 거래를 저장하지 않고 재시도 대상으로 리턴")
+    void tryUseBalanceWithVersion_conflict(){
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000000")
+                .version(3L)
+                .build();
+        //given
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountRepository.useBalanceIfVersionMatches(anyString(), anyLong(), anyLong()))
+                .willReturn(0);
+        //when
+        Optional<TransactionDto> transactionDto =
+                transactionService.tryUseBalanceWithVersion(12L, "1000000000", 2000L);
+        //then
+        assertTrue(transactionDto.isEmpty());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("같은 계좌 여러 건 사용 - 건별 결과를 리턴하고 거래는 한 번에 저장")
+    void useBalanceBatch(){
+        AccountUser user = AccountUser.builder()
+                .name("Pobi")
+                .build();
+        user.setId(12L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .accountNumber("1000000000")
+                .build();
+        //given
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        //when
+        List<BalanceResult> results = transactionService.useBalanceBatch("1000000000",
+                List.of(new UseBalance.Request(12L, "1000000000", 3000L),
+                        new UseBalance.Request(12L, "1000000000", 20000L),
+                        new UseBalance.Request(12L, "1000000000", 5000L)));
+        //then
+        verify(transactionRepository, times(1)).saveAllInBatches(captor.capture());
+        assertEquals(3, captor.getValue().size());
+        assertEquals(7000L, captor.getValue().get(0).getBalanceSnapshot());
+        assertEquals(TransactionResultType.F, captor.getValue().get(1).getTransactionResultType());
+        assertEquals(2000L, captor.getValue().get(2).getBalanceSnapshot());
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(1).getException().getErrorCode());
+        assertEquals(5000L, results.get(2).getTransactionDto().getAmount());
+        assertEquals(2000L, account.getBalance());
+    }
+
+    @Test
+    @DisplayName("한 번 조회한 거래는 캐시에서 응답")
+    void queryTransaction_cached(){
+        Account account = Account.builder()
+                .accountNumber("1000000000")
+                .build();
+        Transaction transaction =
+                Transaction.builder()
+                        .account(account)
+                        .transactionId("transactionId")
+                        .transactionType(TransactionType.USE)
+                        .transactionResultType(TransactionResultType.S)
+                        .amount(1000L)
+                        .transactedAt(LocalDateTime.now())
+                        .build();
+        //given
+        given(transactionRepository.findDtoByTransactionId(anyString()))
+                .willReturn(Optional.of(TransactionDto.fromEntity(transaction)));
+        //when
+        transactionService.queryTransaction("transactionId");
+        TransactionDto transactionDto = transactionService.queryTransaction("transactionId");
+        //then
+        verify(transactionRepository, times(1)).findDtoByTransactionId("transactionId");
+        assertEquals(1000L, transactionDto.getAmount());
+    }
+
+    @Test
+    @DisplayName("여러 거래 조회 - 캐시에 없는 것만 IN 쿼리, 남은 것은 archive 에서")
+    void queryTransactions(){
+        //given
+        transactionDtoCache.put(TransactionDto.builder()
+                .transactionId("cached").amount(100L).build());
+        given(transactionRepository.findDtoByTransactionIdIn(anyCollection()))
+                .willReturn(List.of(TransactionDto.builder()
+                        .transactionId("live").amount(200L).build()));
+        given(archivedTransactionRepository.findByTransactionIdIn(anyCollection()))
+                .willReturn(List.of(ArchivedTransaction.builder()
+                        .transactionId("old").amount(300L).build()));
+        //when
+        Map<String, TransactionDto> transactions = transactionService.queryTransactions(
+                List.of("live", "cached", "old", "missing"));
+        //then
+        assertEquals(3, transactions.size());
+        assertEquals(100L, transactions.get("cached").getAmount());
+        assertEquals(200L, transactions.get("live").getAmount());
+        assertEquals(300L, transactions.get("old").getAmount());
+        assertFalse(transactions.containsKey("missing"));
+        verify(transactionRepository, times(1)).findDtoByTransactionIdIn(
+                argThat(ids -> ids.size() == 3 && !ids.contains("cached")));
+        verify(archivedTransactionRepository, times(1)).findByTransactionIdIn(
+                argThat(ids -> ids.size() == 2 && ids.containsAll(List.of("old", "missing"))));
+    }
+
+    @Test
+    @DisplayName("발급한 적 없는 거래 id 는 DB 조회 없이 실패")
+    void queryTransaction_filteredByLookupGuard(){
+        //given
+        negativeLookupGuard.addTransaction("transactionId");
+        negativeLookupGuard.markReady();
+        given(transactionRepository.findDtoByTransactionId(anyString()))
+                .willReturn(Optional.empty());
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.queryTransaction("unknownId"));
+        assertThrows(AccountException.class,
+                () -> transactionService.queryTransaction("transactionId"));
+        //then
+        assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
+        verify(transactionRepository, never()).findDtoByTransactionId("unknownId");
+        verify(transactionRepository, times(1)).findDtoByTransactionId("transactionId");
+    }
+
+    @Test
+    @DisplayName("archive 로 옮겨진 거래 조회 성공")
+    void queryTransaction_archived(){
+        //given
+        given(transactionRepository.findDtoByTransactionId(anyString()))
+                .willReturn(Optional.empty());
+        given(archivedTransactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(ArchivedTransaction.builder()
+                        .transactionType(TransactionType.USE)
+                        .transactionResultType(TransactionResultType.S)
+                        .accountNumber("1000000000")
+                        .transactionId("transactionId")
+                        .transactedAt(LocalDateTime.now().minusYears(2))
+                        .amount(1000L)
+                        .balanceSnapshot(9000L)
+                        .build()));
+        //when
+        TransactionDto transactionDto = transactionService.queryTransaction("transactionId");
+        //then
+        assertEquals("1000000000", transactionDto.getAccountNumber());
+        assertEquals(TransactionType.USE, transactionDto.getTransactionType());
+        assertEquals(1000L, transactionDto.getAmount());
+    }
+
+    @Test
+    @DisplayName("발급 시각이 1년 전인 id 는 archive 부터 조회")
+    void queryTransaction_archivedFirstByIssuedAt(){
+        //given
+        String transactionId = TimeOrderedTransactionIdGenerator.encode(
+                System.currentTimeMillis() - 400L * 24 * 60 * 60 * 1000 << 16, 0L);
+        given(archivedTransactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(ArchivedTransaction.builder()
+                        .transactionType(TransactionType.USE)
+                        .transactionResultType(TransactionResultType.S)
+                        .accountNumber("1000000000")
+                        .transactionId(transactionId)
+                        .transactedAt(LocalDateTime.now().minusDays(400))
+                        .amount(1000L)
+                        .balanceSnapshot(9000L)
+                        .build()));
+        //when
+        TransactionDto transactionDto = transactionService.queryTransaction(transactionId);
+        //then
+        assertEquals(transactionId, transactionDto.getTransactionId());
+        verify(transactionRepository, never()).findDtoByTransactionId(anyString());
+    }
+
+    @Test
+    @DisplayName("archive 로 옮겨진 거래는 취소 실패 - 1년이 지난 거래")
+    void cancelTransaction_archived(){
+        //given
+        given(transactionRepository.findWithAccountByTransactionId(anyString()))
+                .willReturn(Optional.empty());
+        given(archivedTransactionRepository.findByTransactionId(anyString()))
+                .willReturn(Optional.of(ArchivedTransaction.builder()
+                        .transactionId("transactionId")
+                        .build()));
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance("transactionId", "1000000000", 1000L));
+        //then
+        assertEquals(ErrorCode.TOO_OLD_ORDER_TO_CANCEL, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("거래 내역 조회 - 다음 페이지가 있으면 마지막 거래로 cursor 생성")
+    void getTransactionHistory_firstPage(){
+        //given
+        Account account = Account.builder()
+                .accountNumber("1000000012").build();
+        account.setId(12L);
+        LocalDateTime now = LocalDateTime.now();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.findHistory(anyLong(), any()))
+                .willReturn(List.of(historyView(3L, now), historyView(2L, now), historyView(1L, now)));
+        //when
+        TransactionHistoryDto history = transactionService.getTransactionHistory("1000000012", null, 2);
+        //then
+        assertEquals(2, history.getTransactions().size());
+        assertEquals("trx3", history.getTransactions().get(0).getTransactionId());
+        assertEquals("1000000012", history.getTransactions().get(0).getAccountNumber());
+        TransactionHistoryDto.Cursor cursor = TransactionHistoryDto.Cursor.decode(history.getNextCursor());
+        assertEquals(now, cursor.transactedAt());
+        assertEquals(2L, cursor.id());
+    }
+
+    @Test
+    @DisplayName("거래 내역 조회 - cursor 다음부터 조회, 마지막 페이지면 cursor 없음")
+    void getTransactionHistory_afterCursor(){
+        //given
+        Account account = Account.builder()
+                .accountNumber("1000000012").build();
+        account.setId(12L);
+        LocalDateTime now = LocalDateTime.now();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.findHistoryBefore(anyLong(), any(), anyLong(), any()))
+                .willReturn(List.of(historyView(1L, now)));
+        String cursor = new TransactionHistoryDto.Cursor(now, 2L).encode();
+        //when
+        TransactionHistoryDto history = transactionService.getTransactionHistory("1000000012", cursor, 2);
+        //then
+        verify(transactionRepository).findHistoryBefore(eq(12L), eq(now), eq(2L), any());
+        assertEquals(1, history.getTransactions().size());
+        assertNull(history.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("거래 내역 조회 - 잘못된 cursor 는 실패")
+    void getTransactionHistory_invalidCursor(){
+        //given
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder().accountNumber("1000000012").build()));
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.getTransactionHistory("1000000012", "not-a-cursor", 2));
+        //then
+        assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+    }
+
+    private static TransactionHistoryView historyView(Long id, LocalDateTime transactedAt) {
+        return new TransactionHistoryView() {
+            public Long getId() { return id; }
+            public TransactionType getTransactionType() { return TransactionType.USE; }
+            public TransactionResultType getTransactionResultType() { return TransactionResultType.S; }
+            public Long getAmount() { return 1000L; }
+            public Long getBalanceSnapshot() { return 9000L; }
+            public String getTransactionId() { return "trx" + id; }
+            public LocalDateTime getTransactedAt() { return transactedAt; }
+        };
+    }
+}